@@ -0,0 +1,81 @@
+package com.example.expensetracker.database;
+
+import android.database.Cursor;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Times the upgrade from the last release (version 7) to the current schema on a history of
+ * 100k transactions, a third of them with an SMS body. The migrations run once, on first
+ * launch after the update, so this is how long that launch waits. The time is logged under
+ * the MigrationBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class MigrationBenchmark {
+    private static final String TAG = "MigrationBenchmark";
+    private static final String TEST_DB = "migration-benchmark";
+    private static final int ROWS = 100_000;
+
+    // Generous, to catch a migration that goes quadratic rather than to track small changes
+    private static final long MAX_MILLIS = 120_000;
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), TransactionDatabase.class);
+
+    @Test
+    public void migrate7ToLatestWith100kRows() throws IOException {
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 7)) {
+            db.beginTransaction();
+            try {
+                long start = 1577836800000L;  // 2020-01-01
+                for (int i = 1; i <= ROWS; i++) {
+                    String sms = i % 3 == 0
+                            ? "Rs " + i + ".00 debited from A/c XX1234 at MERCHANT " + (i % 500) + " on 01-02-24"
+                            : null;
+                    db.execSQL("INSERT INTO transactions (id, bank, type, amount, date, description, " +
+                                    "messageHash, category, original_sms, exclusion_source) " +
+                                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 'NONE')",
+                            new Object[]{i, i % 2 == 0 ? "HDFC" : "SBI", i % 5 == 0 ? "CREDIT" : "DEBIT",
+                                    (i % 10000) / 100.0, start + i * 600_000L, "Merchant " + (i % 500),
+                                    "hash-" + i, i % 4 == 0 ? "Food" : "Shopping", sms});
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+
+        long begin = SystemClock.elapsedRealtime();
+        // Opened like the app opens it on first launch: migrations, Room's validation and the open callback
+        TransactionDatabase database = TransactionDatabase.builder(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(), TEST_DB).build();
+        helper.closeWhenFinished(database);
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        long elapsed = SystemClock.elapsedRealtime() - begin;
+        Log.i(TAG, "Migrated " + ROWS + " transactions from version 7 in " + elapsed + " ms");
+
+        try (Cursor cursor = db.query("SELECT COUNT(*), (SELECT COUNT(*) FROM transaction_sms) FROM transactions")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(ROWS, cursor.getInt(0));
+            assertEquals(ROWS / 3, cursor.getInt(1));
+        }
+        assertTrue("Migration took " + elapsed + " ms", elapsed < MAX_MILLIS);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.expensetracker.database;
+
+import android.database.Cursor;
+
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.expensetracker.models.ExclusionSource;
+import com.example.expensetracker.models.TransactionType;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Creates databases at older versions with rows in the tables the migrations rebuild, then opens
+ * them with the app's configuration, so Room runs the real migrations and checks the result
+ * against the entities compiled into this build. Tables created outside Room are not checked:
+ * the lookup tables, daily_rollups_zone and the SMS index.
+ *
+ * MigrationTestHelper creates the start states from app/schemas. 7.json, 10.json and 11.json
+ * were written from the migrations for these tests, not exported by a build of those versions,
+ * so their identityHash is not Room's; Room replaces it when it upgrades the database.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+    private static final String TEST_DB = "migration-test";
+    private static final String SMS_BODY = "Rs 120.50 debited from A/c XX1234 at COFFEE HOUSE on 01-02-24";
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), TransactionDatabase.class);
+
+    @Test
+    public void migrate7ToLatest() throws IOException {
+        // Version 7 is the last release before the schema work
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 7)) {
+            insertWithSmsColumn(db, 1, "DEBIT", 120.5, SMS_BODY, "MANUAL");
+            insertWithSmsColumn(db, 2, "CREDIT", 0.07, null, "NONE");
+            insertWithSmsColumn(db, 3, "DEBIT", 1.0, null, "NONE");
+            db.execSQL("DELETE FROM transactions WHERE id = 3");
+        }
+
+        SupportSQLiteDatabase db = openMigrated();
+
+        // The table rebuilds keep the deleted row's id from being handed out again
+        assertEquals(3, queryLong(db, "SELECT seq FROM sqlite_sequence WHERE name = 'transactions'"));
+        assertMigratedRows(db);
+    }
+
+    @Test
+    public void migrate10ToLatestMovesSmsBodies() throws IOException {
+        // The last version with original_sms as a text column in transactions
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 10)) {
+            insertWithSmsColumn(db, 1, "DEBIT", 120.5, SMS_BODY, "MANUAL");
+            insertWithSmsColumn(db, 2, "CREDIT", 0.07, null, "NONE");
+        }
+
+        SupportSQLiteDatabase db = openMigrated();
+
+        assertMigratedRows(db);
+    }
+
+    @Test
+    public void migrate11ToLatestKeepsSmsForeignKey() throws IOException {
+        // transaction_sms exists from version 11 on, so every later rebuild of transactions
+        // has to leave its foreign key pointing at the rebuilt table
+        try (SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 11)) {
+            insertWithoutSmsColumn(db, 1, "DEBIT", 120.5, "MANUAL");
+            insertWithoutSmsColumn(db, 2, "CREDIT", 0.07, "NONE");
+            db.execSQL("INSERT INTO transaction_sms (transaction_id, body_deflated) VALUES (?, ?)",
+                    new Object[]{1, SmsBodyCodec.encode(SMS_BODY)});
+        }
+
+        SupportSQLiteDatabase db = openMigrated();
+
+        assertMigratedRows(db);
+    }
+
+    // Opened like the app opens it, so the upgrade is validated by Room's generated code
+    private SupportSQLiteDatabase openMigrated() {
+        TransactionDatabase database = TransactionDatabase.builder(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(), TEST_DB).build();
+        helper.closeWhenFinished(database);
+        return database.getOpenHelper().getWritableDatabase();
+    }
+
+    private static void insertWithSmsColumn(SupportSQLiteDatabase db, long id, String type, double amount,
+                                            String sms, String exclusionSource) {
+        db.execSQL("INSERT INTO transactions (id, bank, type, amount, date, description, messageHash, " +
+                        "category, original_sms, exclusion_source) VALUES (?, 'HDFC', ?, ?, ?, ?, ?, 'Food', ?, ?)",
+                new Object[]{id, type, amount, 1706745600000L + id, "Coffee house " + id, "hash-" + id,
+                        sms, exclusionSource});
+    }
+
+    private static void insertWithoutSmsColumn(SupportSQLiteDatabase db, long id, String type, double amount,
+                                               String exclusionSource) {
+        db.execSQL("INSERT INTO transactions (id, bank, type, amount, date, description, messageHash, " +
+                        "category, exclusion_source) VALUES (?, 'HDFC', ?, ?, ?, ?, ?, 'Food', ?)",
+                new Object[]{id, type, amount, 1706745600000L + id, "Coffee house " + id, "hash-" + id,
+                        exclusionSource});
+    }
+
+    // The same two rows, whichever version they were written at
+    private static void assertMigratedRows(SupportSQLiteDatabase db) {
+        try (Cursor cursor = db.query("SELECT id, amount_paise, type, exclusion_source FROM transactions ORDER BY id")) {
+            assertTrue(cursor.moveToNext());
+            assertEquals(1, cursor.getLong(0));
+            assertEquals(12050, cursor.getLong(1));
+            assertEquals(TransactionType.CODE_DEBIT, cursor.getInt(2));
+            assertEquals(ExclusionSource.MANUAL.code, cursor.getInt(3));
+            assertTrue(cursor.moveToNext());
+            assertEquals(2, cursor.getLong(0));
+            assertEquals(7, cursor.getLong(1));
+            assertEquals(TransactionType.CODE_CREDIT, cursor.getInt(2));
+            assertEquals(ExclusionSource.NONE.code, cursor.getInt(3));
+            assertFalse(cursor.moveToNext());
+        }
+
+        // The SMS body survives, compressed, and is searchable
+        try (Cursor cursor = db.query("SELECT transaction_id, body_deflated FROM transaction_sms")) {
+            assertTrue(cursor.moveToNext());
+            assertEquals(1, cursor.getLong(0));
+            assertEquals(SMS_BODY, SmsBodyCodec.decode(cursor.getBlob(1)));
+            assertFalse(cursor.moveToNext());
+        }
+        assertEquals(1, queryLong(db, "SELECT docid FROM transaction_sms_fts WHERE transaction_sms_fts MATCH 'coffee'"));
+        assertEquals(2, queryLong(db, "SELECT COUNT(*) FROM transactions_fts WHERE transactions_fts MATCH 'coffee'"));
+
+        // Rebuilt from the migrated rows
+        assertEquals(12050, queryLong(db, "SELECT sum_paise FROM daily_rollups WHERE type = " +
+                TransactionType.CODE_DEBIT));
+
+        // transaction_sms still references transactions, not a table renamed away during a rebuild
+        try (Cursor cursor = db.query("PRAGMA foreign_key_list(transaction_sms)")) {
+            assertTrue(cursor.moveToNext());
+            assertEquals("transactions", cursor.getString(cursor.getColumnIndexOrThrow("table")));
+        }
+        try (Cursor cursor = db.query("PRAGMA foreign_key_check")) {
+            assertFalse(cursor.moveToNext());
+        }
+        db.execSQL("PRAGMA foreign_keys = ON");
+        db.execSQL("DELETE FROM transactions WHERE id = 1");
+        assertEquals(0, queryLong(db, "SELECT COUNT(*) FROM transaction_sms"));
+    }
+
+    private static long queryLong(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            assertTrue(sql, cursor.moveToFirst());
+            return cursor.getLong(0);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.expensetracker.database;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.utils.AppExecutors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures how long the main screen's month read takes while an SMS import is writing, against
+ * the same read with the database idle. The database is built like the app's: WAL, the read
+ * lane as Room's query executor and the open pragmas. The import commits one SMS at a time on
+ * the write lane, as the SMS receiver does, while reads run on the read lane. Latencies are
+ * logged under the ReadWhileImportBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class ReadWhileImportBenchmark {
+    private static final String TAG = "ReadWhileImportBenchmark";
+    private static final String TEST_DB = "read-while-import-benchmark";
+    private static final int EXISTING_ROWS = 20_000;
+    private static final int IMPORTED_ROWS = 5_000;
+    private static final int IDLE_READS = 50;
+
+    private static final long START = 1640995200000L;  // 2022-01-01
+    private static final long ROW_INTERVAL = 3_600_000L;
+    private static final long MONTH = 30 * 24 * 3_600_000L;
+
+    // Generous, to catch reads queueing behind the import rather than to track small changes
+    private static final long MAX_P95_MILLIS = 500;
+
+    private Context context;
+    private TransactionDatabase database;
+
+    @Before
+    public void createDatabase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        database = TransactionDatabase.builder(context, TEST_DB).build();
+
+        List<Transaction> existing = new ArrayList<>(EXISTING_ROWS);
+        for (int i = 0; i < EXISTING_ROWS; i++) {
+            existing.add(newTransaction(i, START + i * ROW_INTERVAL));
+        }
+        database.transactionDao().insertAll(existing);
+    }
+
+    @After
+    public void deleteDatabase() {
+        database.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void monthReadWhileImporting() {
+        // The last month of the existing history, which the imported rows also land in
+        long monthEnd = START + EXISTING_ROWS * ROW_INTERVAL;
+        long monthStart = monthEnd - MONTH;
+
+        List<Long> idle = new ArrayList<>();
+        for (int i = 0; i < IDLE_READS; i++) {
+            idle.add(timeRead(monthStart, monthEnd));
+        }
+
+        TransactionDao dao = database.transactionDao();
+        long importStart = SystemClock.elapsedRealtime();
+        CompletableFuture<Void> importing = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < IMPORTED_ROWS; i++) {
+                dao.insert(newTransaction(EXISTING_ROWS + i, monthStart + i * MONTH / IMPORTED_ROWS));
+            }
+        }, AppExecutors.get().diskWrite());
+
+        List<Long> busy = new ArrayList<>();
+        while (!importing.isDone()) {
+            busy.add(timeRead(monthStart, monthEnd));
+        }
+        importing.join();
+        long importMillis = SystemClock.elapsedRealtime() - importStart;
+
+        Log.i(TAG, "Idle: " + summary(idle) + "; while importing " + IMPORTED_ROWS + " rows in " +
+                importMillis + " ms: " + summary(busy));
+        assertFalse("No read finished while the import was writing", busy.isEmpty());
+        assertTrue("Reads while importing: " + summary(busy), percentile(busy, 95) < MAX_P95_MILLIS);
+    }
+
+    // The main screen's month load: its rows and its totals, from submission on the read lane to result
+    private long timeRead(long monthStart, long monthEnd) {
+        long begin = SystemClock.elapsedRealtime();
+        CompletableFuture.runAsync(() -> {
+            database.transactionDao().getNonExcludedTransactionsBetweenDatesSync(monthStart, monthEnd);
+            database.transactionAggregateDao().getNonExcludedTotalsBetweenDates(monthStart, monthEnd);
+        }, AppExecutors.get().diskRead()).join();
+        return SystemClock.elapsedRealtime() - begin;
+    }
+
+    private static Transaction newTransaction(int i, long date) {
+        Transaction transaction = new Transaction(i % 2 == 0 ? "HDFC" : "SBI", i % 5 == 0 ? "CREDIT" : "DEBIT",
+                (i % 10000) / 100.0, date, "Merchant " + (i % 500));
+        transaction.setMessageHash("hash-" + i);
+        transaction.setCategory(i % 4 == 0 ? "Food" : "Shopping");
+        if (i % 3 == 0) {
+            transaction.setOriginalSms("Rs " + i + ".00 debited from A/c XX1234 at MERCHANT " + (i % 500));
+        }
+        return transaction;
+    }
+
+    private static long percentile(List<Long> millis, int percent) {
+        List<Long> sorted = new ArrayList<>(millis);
+        Collections.sort(sorted);
+        return sorted.get(Math.min(sorted.size() - 1, sorted.size() * percent / 100));
+    }
+
+    private static String summary(List<Long> millis) {
+        return millis.size() + " reads, median " + percentile(millis, 50) + " ms, p95 " +
+                percentile(millis, 95) + " ms";
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.expensetracker.database;
+
+import android.app.Instrumentation;
+import android.database.Cursor;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.models.TransactionSms;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs EXPLAIN QUERY PLAN for the statements {@link TransactionDao} executes against the current
+ * schema and fails if one reads a table without an index, or sorts its result in a temporary
+ * B-tree instead of reading it in index order.
+ *
+ * Room keeps @Query out of the runtime annotations, so the statements are captured instead:
+ * every DAO method is called once on Room's generated implementation, with placeholder
+ * arguments, and a query callback records the SQL it runs. A new DAO method is covered without
+ * editing this test. Inserts are not checked, they have no plan to speak of, and the @RawQuery
+ * method is skipped: its SQL comes from TransactionSearchFilter.
+ *
+ * This is an instrumented test rather than a JVM one because the plans depend on the device's
+ * SQLite version and Room's generated code needs Android's SQLite; the project has no
+ * Robolectric to stand in for it.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TransactionQueryPlanTest {
+    // The row the placeholder arguments point at, recreated before each call
+    private static final long ROW_ID = 1;
+
+    private final Set<String> statements = Collections.synchronizedSet(new LinkedHashSet<>());
+    private TransactionDatabase database;
+    private int hashes;
+
+    @Before
+    public void createDatabase() {
+        database = Room.inMemoryDatabaseBuilder(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(), TransactionDatabase.class)
+                .allowMainThreadQueries()
+                // Synchronous, so a LiveData query has run by the time observeForever returns
+                .setQueryExecutor(Runnable::run)
+                .setQueryCallback((sql, args) -> statements.add(sql.trim()), Runnable::run)
+                .build();
+        SmsSearchSchema.create(database.getOpenHelper().getWritableDatabase());
+    }
+
+    @After
+    public void closeDatabase() {
+        database.close();
+    }
+
+    @Test
+    public void transactionQueriesUseIndexes() throws Exception {
+        TransactionDao dao = database.transactionDao();
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        for (Method method : TransactionDao.class.getMethods()) {
+            if (method.getParameterCount() == 1 && method.getParameterTypes()[0] == SupportSQLiteQuery.class) {
+                continue;
+            }
+            db.execSQL("INSERT OR IGNORE INTO transactions (id, bank, type, amount_paise, date, messageHash) " +
+                    "VALUES (?, 'HDFC', 1, 100, 0, 'row')", new Object[]{ROW_ID});
+            Object[] args = new Object[method.getParameterCount()];
+            Type[] types = method.getGenericParameterTypes();
+            for (int i = 0; i < args.length; i++) {
+                args[i] = argument(types[i]);
+            }
+            try {
+                Object result = method.invoke(dao, args);
+                if (result instanceof LiveData) {
+                    observeOnce(result);
+                }
+            } catch (InvocationTargetException e) {
+                throw new AssertionError("Calling " + method.getName() + " failed", e.getCause());
+            }
+        }
+
+        List<String> checked = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+        synchronized (statements) {
+            for (String sql : statements) {
+                // Room's own bookkeeping and transaction control come through the callback too
+                String verb = sql.split("\\s", 2)[0].toUpperCase();
+                if (sql.contains("room_") || !(verb.equals("SELECT") || verb.equals("UPDATE")
+                        || verb.equals("DELETE"))) {
+                    continue;
+                }
+                checked.add(sql);
+                try (Cursor cursor = db.query("EXPLAIN QUERY PLAN " + sql)) {
+                    int detailColumn = cursor.getColumnIndexOrThrow("detail");
+                    while (cursor.moveToNext()) {
+                        // Older SQLite versions print "SCAN TABLE transactions" rather than "SCAN transactions"
+                        String detail = cursor.getString(detailColumn);
+                        boolean fullScan = detail.startsWith("SCAN") && !detail.contains("CONSTANT ROW")
+                                && !detail.contains("INDEX");
+                        if (fullScan || detail.contains("TEMP B-TREE")) {
+                            failures.add(sql + "\n    " + detail);
+                        }
+                    }
+                }
+            }
+        }
+        // Guards against the callback silently capturing nothing
+        assertTrue("Captured only " + checked, checked.size() >= 20);
+        assertTrue("Queries without a usable index:\n" + String.join("\n", failures), failures.isEmpty());
+    }
+
+    // A placeholder for a DAO parameter; ids point at ROW_ID
+    private Object argument(Type type) {
+        Class<?> raw = (Class<?>) (type instanceof ParameterizedType
+                ? ((ParameterizedType) type).getRawType() : type);
+        if (raw == long.class || raw == Long.class) return ROW_ID;
+        if (raw == int.class || raw == Integer.class) return 1;
+        if (raw == double.class || raw == Double.class) return 1.0;
+        if (raw == boolean.class || raw == Boolean.class) return false;
+        if (raw == String.class) return "HDFC";
+        if (raw.isEnum()) return raw.getEnumConstants()[0];
+        if (raw == List.class) {
+            return Collections.singletonList(argument(((ParameterizedType) type).getActualTypeArguments()[0]));
+        }
+        if (raw == Transaction.class) {
+            Transaction transaction = new Transaction("HDFC", "DEBIT", 1.0, 0, "Placeholder");
+            transaction.setMessageHash("hash-" + hashes++);
+            return transaction;
+        }
+        if (raw == TransactionSms.class) {
+            return new TransactionSms(ROW_ID, SmsBodyCodec.encode("Placeholder"));
+        }
+        throw new AssertionError("No placeholder for a DAO parameter of type " + type);
+    }
+
+    // LiveData queries only run while observed
+    @SuppressWarnings("unchecked")
+    private static void observeOnce(Object result) {
+        LiveData<Object> liveData = (LiveData<Object>) result;
+        Observer<Object> observer = value -> { };
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> liveData.observeForever(observer));
+        instrumentation.runOnMainSync(() -> liveData.removeObserver(observer));
+    }
+}
@@ -18,15 +18,18 @@ import com.example.expensetracker.adapters.TransactionAdapter;
 import com.example.expensetracker.database.TransactionDao;
 import com.example.expensetracker.database.TransactionDatabase;
 import com.example.expensetracker.dialogs.TransactionEditDialog;
+import com.example.expensetracker.models.ExclusionReason;
 import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.repository.TransactionUpdateQueue;
+import com.example.expensetracker.utils.AppExecutors;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.chip.Chip;
 import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * Activity for reviewing all automatically excluded transactions
@@ -42,6 +45,7 @@ public class ExcludedTransactionsActivity extends AppCompatActivity {
     private ChipGroup filterChips;
     private TransactionAdapter adapter;
     private ExecutorService executorService;
+    private TransactionUpdateQueue updateQueue;
     private int currentFilter = FILTER_ALL;
 
     @Override
@@ -82,8 +86,9 @@ public class ExcludedTransactionsActivity extends AppCompatActivity {
         // Set up include all button with menu options
         includeAllFab.setOnClickListener(v -> showActionMenu());
 
-        // Initialize executor service
-        executorService = Executors.newSingleThreadExecutor();
+        // Mostly writes; the serial write lane also keeps each reload behind the edit it follows
+        executorService = AppExecutors.get().newWriteScope();
+        updateQueue = TransactionUpdateQueue.getInstance(this);
 
         // Load transactions with current filter
         loadTransactions();
@@ -170,7 +175,8 @@ public class ExcludedTransactionsActivity extends AppCompatActivity {
     }
 
     private void loadTransactions() {
-        executorService.execute(() -> {
+        // Show edits still waiting in the write-behind queue
+        updateQueue.flush().thenRunAsync(() -> {
             TransactionDao dao = TransactionDatabase.getInstance(this).transactionDao();
             List<Transaction> transactions;
 
@@ -197,7 +203,7 @@ public class ExcludedTransactionsActivity extends AppCompatActivity {
                     adapter.setTransactions(transactions);
                 }
             });
-        });
+        }, executorService);
     }
 
     private void showTransactionEditDialog(Transaction transaction) {
@@ -207,21 +213,13 @@ public class ExcludedTransactionsActivity extends AppCompatActivity {
     }
 
     private void updateTransaction(Transaction transaction) {
-        executorService.execute(() -> {
-            TransactionDao dao = TransactionDatabase.getInstance(this).transactionDao();
-            dao.update(transaction);
-
+        updateQueue.replace(transaction);
+        updateQueue.flushNow(() -> {
             // If transaction is no longer excluded, we may need to remove it from the list
             if (!transaction.isExcludedFromTotal()) {
-                runOnUiThread(() -> {
-                    Toast.makeText(this, "Transaction included in totals", Toast.LENGTH_SHORT).show();
-                    loadTransactions();
-                });
-            } else {
-                runOnUiThread(() -> {
-                    loadTransactions();
-                });
+                Toast.makeText(this, "Transaction included in totals", Toast.LENGTH_SHORT).show();
             }
+            loadTransactions();
         });
     }
 
@@ -305,9 +303,7 @@ public class ExcludedTransactionsActivity extends AppCompatActivity {
                         // Remove [DUPLICATE] tag
                         String desc = transaction.getDescription()
                                 .replace("[DUPLICATE]", "").trim();
-                        transaction.setDescription(desc);
-                        transaction.setExcludedFromTotal(false);
-                        dao.update(transaction);
+                        includeTransaction(transaction, desc);
                         count++;
                     }
                     break;
@@ -315,8 +311,7 @@ public class ExcludedTransactionsActivity extends AppCompatActivity {
                 case FILTER_UNKNOWN_SOURCE:
                     List<Transaction> unknown = dao.getUnknownSourceExcludedTransactionsSync();
                     for (Transaction transaction : unknown) {
-                        transaction.setExcludedFromTotal(false);
-                        dao.update(transaction);
+                        updateQueue.updateExcludedStatus(transaction.getId(), false);
                         count++;
                     }
                     break;
@@ -329,16 +324,15 @@ public class ExcludedTransactionsActivity extends AppCompatActivity {
                         String desc = transaction.getDescription()
                                 .replace("[DUPLICATE]", "")
                                 .replace("[AUTO-EXCLUDED]", "").trim();
-                        transaction.setDescription(desc);
-                        transaction.setExcludedFromTotal(false);
-                        dao.update(transaction);
+                        includeTransaction(transaction, desc);
                         count++;
                     }
                     break;
             }
 
+            // All of the above in one commit
             final int updateCount = count;
-            runOnUiThread(() -> {
+            updateQueue.flushNow(() -> {
                 Toast.makeText(this,
                         updateCount + " transactions included in totals",
                         Toast.LENGTH_SHORT).show();
@@ -372,39 +366,41 @@ public class ExcludedTransactionsActivity extends AppCompatActivity {
                 .show();
     }
 
+    // Queue an include that also clears the exclusion reason and legacy description tags
+    private void includeTransaction(Transaction transaction, String description) {
+        if (!description.equals(transaction.getDescription())) {
+            updateQueue.updateDescription(transaction.getId(), description);
+        }
+        updateQueue.updateExclusion(transaction.getId(), false, null, ExclusionReason.NONE);
+    }
+
     private void deleteAllTransactions() {
         executorService.execute(() -> {
             TransactionDao dao = TransactionDatabase.getInstance(this).transactionDao();
-            int count = 0;
+            List<Transaction> toDelete;
 
             switch (currentFilter) {
                 case FILTER_DUPLICATES:
-                    List<Transaction> duplicates = dao.getDuplicateTransactionsSync();
-                    for (Transaction transaction : duplicates) {
-                        dao.deleteTransactionById(transaction.getId());
-                        count++;
-                    }
+                    toDelete = dao.getDuplicateTransactionsSync();
                     break;
 
                 case FILTER_UNKNOWN_SOURCE:
-                    List<Transaction> unknown = dao.getUnknownSourceExcludedTransactionsSync();
-                    for (Transaction transaction : unknown) {
-                        dao.deleteTransactionById(transaction.getId());
-                        count++;
-                    }
+                    toDelete = dao.getUnknownSourceExcludedTransactionsSync();
                     break;
 
                 case FILTER_ALL:
                 default:
-                    List<Transaction> all = dao.getAllAutomaticallyExcludedTransactionsSync();
-                    for (Transaction transaction : all) {
-                        dao.deleteTransactionById(transaction.getId());
-                        count++;
-                    }
+                    toDelete = dao.getAllAutomaticallyExcludedTransactionsSync();
                     break;
             }
 
-            final int deleteCount = count;
+            // One bulk delete instead of a transaction per row
+            List<Long> ids = new ArrayList<>(toDelete.size());
+            for (Transaction transaction : toDelete) {
+                ids.add(transaction.getId());
+            }
+            int deleteCount = dao.deleteTransactionsByIds(ids);
+
             runOnUiThread(() -> {
                 Toast.makeText(this,
                         deleteCount + " transactions deleted permanently",
@@ -51,17 +51,22 @@ import android.widget.Toast;
 
 import com.example.expensetracker.adapters.DateGroupedTransactionAdapter;
 import com.example.expensetracker.adapters.TransactionAdapter;
+import com.example.expensetracker.database.TransactionAggregateDao;
 import com.example.expensetracker.database.TransactionDatabase;
 import com.example.expensetracker.database.TransactionDao;
 import com.example.expensetracker.dialogs.CategorySelectionDialog;
 import com.example.expensetracker.dialogs.TransactionEditDialog;
+import com.example.expensetracker.models.ExclusionSource;
 import com.example.expensetracker.models.Transaction;
 import com.example.expensetracker.receivers.EnhancedSMSReceiver;
 import com.example.expensetracker.ui.ChartMarkerView;
 import com.example.expensetracker.ui.QuickEntryFragment;
+import com.example.expensetracker.utils.AppExecutors;
+import com.example.expensetracker.utils.LatestRequest;
 import com.example.expensetracker.utils.SmartLoadingStrategy;
 import com.example.expensetracker.utils.SwipeToExcludeCallback;
 import com.example.expensetracker.viewmodel.TransactionViewModel;
+import com.example.expensetracker.utils.Money;
 import com.example.expensetracker.utils.PreferencesManager;
 import com.github.mikephil.charting.charts.LineChart;
 import com.github.mikephil.charting.components.XAxis;
@@ -99,9 +104,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class MainActivity extends AppCompatActivity implements QuickEntryFragment.OnTransactionAddedListener {
     private static final int SMS_PERMISSION_REQUEST_CODE = 123;
@@ -158,7 +161,12 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
     private Handler tqlHandler = new Handler();
     private Runnable pendingTQLRunnable;
     private Runnable pendingTQLSuggestionRunnable;
-    private volatile boolean isTQLProcessing = false;
+    // A new TQL query supersedes the one still running instead of being skipped
+    private final LatestRequest tqlRequests = new LatestRequest();
+
+    // Search-as-you-type debounce; the list load itself is superseded by SmartLoadingStrategy
+    private static final long SEARCH_DEBOUNCE_TIME_MS = 300;
+    private Runnable pendingSearchRunnable;
 
     private enum ViewMode {
         LIST,              // Individual transactions with pagination
@@ -176,8 +184,18 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        // Initialize ExecutorService
-        executorService = Executors.newSingleThreadExecutor();
+        // Reads and parsing for this screen; shut down with the activity
+        executorService = AppExecutors.get().newReadScope();
+
+        // Time zone changes are handled when the database opens. The full check aggregates
+        // every transaction and holds up the write lane, so it only runs in debug builds
+        if (BuildConfig.DEBUG) {
+            AppExecutors.get().diskWrite().execute(() -> {
+                if (TransactionDatabase.getInstance(this).dailyRollupDao().verifyOrRebuild()) {
+                    Log.w(TAG, "Daily rollups had drifted from the transactions and have been rebuilt");
+                }
+            });
+        }
 
         // Initialize basic views and setup
         preferencesManager = new PreferencesManager(this);
@@ -474,11 +492,15 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
             if (filterIndicatorContainer != null && !currentFilterState.isAnyFilterActive()) {
                 filterIndicatorContainer.setVisibility(View.GONE);
             }
-            // Clear any pending TQL queries
+            // Clear any pending TQL queries, and drop the result of one still running
             if (pendingTQLRunnable != null) {
                 tqlHandler.removeCallbacks(pendingTQLRunnable);
                 pendingTQLRunnable = null;
             }
+            tqlRequests.cancel();
+            if (loadingIndicator != null) {
+                loadingIndicator.setVisibility(View.GONE);
+            }
             return;
         }
 
@@ -491,12 +513,7 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
         
         // Create new debounced runnable
         pendingTQLRunnable = () -> {
-            // Check if already processing
-            if (isTQLProcessing) {
-                Log.d(TAG, "TQL query already in progress, skipping: " + queryText);
-                return;
-            }
-            
+            LatestRequest.Request request = tqlRequests.next();
             Log.d(TAG, "Executing TQL query: " + queryText);
             
             // Show loading state
@@ -506,7 +523,9 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
 
             // Process in background thread
             executorService.execute(() -> {
-                isTQLProcessing = true;
+                if (!request.isCurrent()) {
+                    return;
+                }
             try {
                 // Parse the natural language query - use dynamic parser for time expressions
                 TQLQuery tqlQuery;
@@ -537,23 +556,21 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
                 Log.d(TAG, "TQL Result type: " + (result.isTransactionResult() ? "Transaction" : result.isAggregateResult() ? "Aggregate" : "Group"));
                 Log.d(TAG, "Date range: " + fromDate + " to " + toDate);
 
-                // Update UI on main thread
-                runOnUiThread(() -> {
+                // Update UI on main thread, unless a newer query has started
+                request.postIfCurrent(() -> {
                     updateTQLResults(result);
                     if (loadingIndicator != null) {
                         loadingIndicator.setVisibility(View.GONE);
                     }
-                    isTQLProcessing = false;
                 });
 
             } catch (Exception e) {
                 Log.e(TAG, "TQL Query error", e);
-                runOnUiThread(() -> {
+                request.postIfCurrent(() -> {
                     showTQLError("Error processing query: " + e.getMessage());
                     if (loadingIndicator != null) {
                         loadingIndicator.setVisibility(View.GONE);
                     }
-                    isTQLProcessing = false;
                 });
             }
             });
@@ -1031,8 +1048,9 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
     private void showCategorySelectionDialog(Transaction transaction, View categoryView) {
         CategorySelectionDialog dialog = new CategorySelectionDialog(transaction);
 
-        dialog.setOnCategorySelectedListener((updatedTransaction, categoryName, isCustom) -> {
-            // Update the transaction category
+        dialog.setOnCategorySelectedListener((selectedTransaction, categoryName, isCustom) -> {
+            // Update the category on a copy; the cached row stays as the list shows it
+            Transaction updatedTransaction = selectedTransaction.copy();
             updatedTransaction.setCategory(categoryName);
 
             // Update in the database
@@ -1056,9 +1074,9 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
         // Observe budget changes
         viewModel.getBudget().observe(this, budget -> {
             if (budget > 0) {
-                viewModel.getTransactionsBetweenDates(fromDate, toDate, transactions -> {
-                    if (transactions != null) {
-                        updateSummaryWithBudget(transactions, budget);
+                viewModel.getNonExcludedTotals(fromDate, toDate, totals -> {
+                    if (totals != null) {
+                        updateSummaryWithTotals(totals.debitPaise, totals.creditPaise, budget);
                     } else {
                         resetBudgetUI(budget);
                     }
@@ -1076,20 +1094,23 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
         // Store previous excluded state to detect changes
         boolean wasExcluded = transaction.isExcludedFromTotal();
 
-        // Set the transaction as excluded
-        transaction.setExcludedFromTotal(true);
+        // Edit a copy: the row is shared with the list, which only rebinds rows that differ
+        Transaction excluded = transaction.copy();
+        excluded.setExcludedFromTotal(true);
 
         // Set exclusion source if changed
         if (!wasExcluded) {
             // Newly excluded - mark as manual
-            transaction.setExclusionSource("MANUAL");
+            excluded.setExclusionSource(ExclusionSource.MANUAL);
         }
 
         // Update the transaction in the database
-        viewModel.updateTransaction(transaction);
+        viewModel.updateTransactionExclusion(transaction.getId(), true,
+                wasExcluded ? null : ExclusionSource.MANUAL);
 
         // Refresh the view to remove excluded transaction and update summary
         if (smartLoadingStrategy != null) {
+            smartLoadingStrategy.updateTransactionInAdapters(excluded);
             smartLoadingStrategy.updateFilterState(currentFilterState);
             smartLoadingStrategy.refreshData(fromDate, toDate);
         }
@@ -1102,12 +1123,14 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
                 )
                 .setAction("UNDO", v -> {
                     // Undo the exclusion
-                    transaction.setExcludedFromTotal(false);
-                    transaction.setExclusionSource("NONE");
-                    viewModel.updateTransaction(transaction);
+                    Transaction restored = excluded.copy();
+                    restored.setExcludedFromTotal(false);
+                    restored.setExclusionSource(ExclusionSource.NONE);
+                    viewModel.updateTransactionExclusion(transaction.getId(), false, ExclusionSource.NONE);
 
                     // Refresh the view to show restored transaction and update summary
                     if (smartLoadingStrategy != null) {
+                        smartLoadingStrategy.updateTransactionInAdapters(restored);
                         smartLoadingStrategy.updateFilterState(currentFilterState);
                         smartLoadingStrategy.refreshData(fromDate, toDate);
                     }
@@ -1151,8 +1174,7 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
     }
 
     public void deleteTransaction(Transaction transaction) {
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-        executorService.execute(() -> {
+        AppExecutors.get().diskWrite().execute(() -> {
             TransactionDao dao = TransactionDatabase.getInstance(this).transactionDao();
             dao.deleteTransactionById(transaction.getId());
 
@@ -1165,7 +1187,6 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
                 }
             });
         });
-        executorService.shutdown();
     }
 
     /**
@@ -1262,8 +1283,12 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
                         tqlHandler.postDelayed(pendingTQLSuggestionRunnable, TQL_SUGGESTION_DEBOUNCE_TIME_MS);
                     }
                     
-                    // Apply normal search filter
-                    filterTransactions(searchText);
+                    // Apply normal search filter once typing pauses
+                    if (pendingSearchRunnable != null) {
+                        tqlHandler.removeCallbacks(pendingSearchRunnable);
+                    }
+                    pendingSearchRunnable = () -> filterTransactions(searchText);
+                    tqlHandler.postDelayed(pendingSearchRunnable, SEARCH_DEBOUNCE_TIME_MS);
                 }
                 // Note: TQL queries will only execute when user presses search button
             }
@@ -1358,6 +1383,12 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
     }
 
     private void filterTransactions(String query) {
+        // Runs now, so drop a debounced search still waiting
+        if (pendingSearchRunnable != null) {
+            tqlHandler.removeCallbacks(pendingSearchRunnable);
+            pendingSearchRunnable = null;
+        }
+
         // Update filter state
         currentFilterState.searchQuery = query;
 
@@ -1890,18 +1921,11 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
 
         final double finalCurrentBudget = currentBudget;
 
-        viewModel.getTransactionsBetweenDates(startDate, endDate, transactions -> {
-            if (transactions == null) return;
-
-            double totalExpenses = 0;
-            for (Transaction transaction : transactions) {
-                if ("DEBIT".equals(transaction.getType()) && !transaction.isExcludedFromTotal()) {
-                    totalExpenses += transaction.getAmount();
-                }
-            }
+        viewModel.getNonExcludedTotals(startDate, endDate, totals -> {
+            if (totals == null) return;
 
             // Update UI with current expenses
-            double spent = totalExpenses;
+            double spent = Money.toRupees(totals.debitPaise);
             double remaining = finalCurrentBudget - spent;
             int progressPercentage = finalCurrentBudget > 0 ? (int)((spent / finalCurrentBudget) * 100) : 0;
 
@@ -2388,13 +2412,13 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
             loadingIndicator.setVisibility(View.VISIBLE);
         }
 
-        // Get transactions for the selected month
+        // Get daily spending totals for the selected month
         executorService.execute(() -> {
-            List<Transaction> chartTransactions = TransactionDatabase.getInstance(this)
-                    .transactionDao()
-                    .getTransactionsBetweenDatesSyncAscending(monthStartDate, monthEndDate);
+            List<TransactionAggregateDao.DailyTotal> dailyTotals = TransactionDatabase.getInstance(this)
+                    .transactionAggregateDao()
+                    .getDailyDebitTotals(monthStartDate, monthEndDate);
 
-            updateChartWithTransactions(chartTransactions, spendingLineChart);
+            updateChartWithDailyTotals(dailyTotals, spendingLineChart);
         });
     }
 
@@ -2418,53 +2442,27 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
             loadingIndicator.setVisibility(View.VISIBLE);
         }
 
-        // Get transactions for chart date range
+        // Get daily spending totals for chart date range
         executorService.execute(() -> {
-            List<Transaction> chartTransactions = TransactionDatabase.getInstance(this)
-                    .transactionDao()
-                    .getTransactionsBetweenDatesSyncAscending(chartStartDate, chartEndDate);
+            List<TransactionAggregateDao.DailyTotal> dailyTotals = TransactionDatabase.getInstance(this)
+                    .transactionAggregateDao()
+                    .getDailyDebitTotals(chartStartDate, chartEndDate);
 
-            updateChartWithTransactions(chartTransactions, spendingLineChart);
+            updateChartWithDailyTotals(dailyTotals, spendingLineChart);
         });
     }
 
-    // Common method for updating chart with transactions
-    private void updateChartWithTransactions(List<Transaction> chartTransactions, LineChart spendingLineChart) {
-        // Group transactions by day
-        Map<Long, Float> dailySpending = new TreeMap<>();
-        SimpleDateFormat dateKeyFormat = new SimpleDateFormat("yyyyMMdd", Locale.getDefault());
+    // Common method for updating chart with per-day spending totals
+    private void updateChartWithDailyTotals(List<TransactionAggregateDao.DailyTotal> dailyTotals, LineChart spendingLineChart) {
         SimpleDateFormat dateLabelFormat = new SimpleDateFormat("dd MMM", Locale.getDefault());
         List<String> dateLabels = new ArrayList<>();
 
-        // Process transactions
-        for (Transaction transaction : chartTransactions) {
-            if ("DEBIT".equals(transaction.getType()) && !transaction.isExcludedFromTotal()) {
-                // Get day key by stripping time component
-                Calendar cal = Calendar.getInstance();
-                cal.setTimeInMillis(transaction.getDate());
-                cal.set(Calendar.HOUR_OF_DAY, 0);
-                cal.set(Calendar.MINUTE, 0);
-                cal.set(Calendar.SECOND, 0);
-                cal.set(Calendar.MILLISECOND, 0);
-                long dayKey = cal.getTimeInMillis();
-
-                // Add to daily total
-                float currentAmount = dailySpending.getOrDefault(dayKey, 0f);
-                dailySpending.put(dayKey, currentAmount + (float)transaction.getAmount());
-
-                // Add date label if not already present
-                String label = dateLabelFormat.format(new Date(dayKey));
-                if (!dateLabels.contains(label)) {
-                    dateLabels.add(label);
-                }
-            }
-        }
-
         // Create chart entries
         List<Entry> entries = new ArrayList<>();
         int index = 0;
-        for (Map.Entry<Long, Float> entry : dailySpending.entrySet()) {
-            entries.add(new Entry(index++, entry.getValue()));
+        for (TransactionAggregateDao.DailyTotal day : dailyTotals) {
+            entries.add(new Entry(index++, (float) Money.toRupees(day.totalPaise)));
+            dateLabels.add(dateLabelFormat.format(new Date(day.dayStart)));
         }
 
         // Hide loading indicator
@@ -2593,48 +2591,41 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
     }
 
     public void updateSummary(List<Transaction> transactions) {
-        double totalDebits = 0;
-        double totalCredits = 0;
+        long debitPaise = 0;
+        long creditPaise = 0;
 
         for (Transaction transaction : transactions) {
             // Only include transactions that are not excluded from totals
             if (!transaction.isExcludedFromTotal()) {
-                if ("DEBIT".equals(transaction.getType())) {
-                    totalDebits += transaction.getAmount();
-                } else if ("CREDIT".equals(transaction.getType())) {
-                    totalCredits += transaction.getAmount();
+                if (transaction.isDebit()) {
+                    debitPaise += transaction.getAmountPaise();
+                } else if (transaction.isCredit()) {
+                    creditPaise += transaction.getAmountPaise();
                 }
             }
         }
 
         if (totalDebitsText != null) {
-            totalDebitsText.setText(String.format(Locale.getDefault(), "₹%.2f", totalDebits));
+            totalDebitsText.setText(Money.format(debitPaise));
         }
 
         if (totalCreditsText != null) {
-            totalCreditsText.setText(String.format(Locale.getDefault(), "₹%.2f", totalCredits));
+            totalCreditsText.setText(Money.format(creditPaise));
         }
 
         // Also update balance display
         if (balanceText != null) {
-            double balance = totalCredits - totalDebits;
-            balanceText.setText(String.format(Locale.getDefault(), "₹%.2f", balance));
+            balanceText.setText(Money.format(creditPaise - debitPaise));
         }
     }
 
-    public void updateSummaryWithBudget(List<Transaction> transactions, double budget) {
-        // Calculate total debits
-        double totalDebits = 0;
-        double totalCredits = 0;
-        for (Transaction transaction : transactions) {
-            if (!transaction.isExcludedFromTotal()) {
-                if ("DEBIT".equals(transaction.getType())) {
-                    totalDebits += transaction.getAmount();
-                } else if ("CREDIT".equals(transaction.getType())) {
-                    totalCredits += transaction.getAmount();
-                }
-            }
-        }
+    /**
+     * Update the summary card from already computed totals, e.g. when only
+     * the first page of the list is loaded and the totals come from SQL
+     */
+    public void updateSummaryWithTotals(long debitPaise, long creditPaise, double budget) {
+        double totalDebits = Money.toRupees(debitPaise);
+        double totalCredits = Money.toRupees(creditPaise);
 
         // Update basic summary
         if (totalDebitsText != null) {
@@ -3230,10 +3221,15 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // Shutdown the ExecutorService
+        // Drop queued reads for this screen; the shared lanes keep running
         if (executorService != null) {
-            executorService.shutdown();
+            executorService.shutdownNow();
+        }
+        if (smartLoadingStrategy != null) {
+            smartLoadingStrategy.cancelPendingLoads();
         }
+        tqlRequests.cancel();
+        AppExecutors.get().logStats();
         
         // Clean up TQL handlers to prevent memory leaks
         if (tqlHandler != null) {
@@ -3243,6 +3239,9 @@ public class MainActivity extends AppCompatActivity implements QuickEntryFragmen
             if (pendingTQLSuggestionRunnable != null) {
                 tqlHandler.removeCallbacks(pendingTQLSuggestionRunnable);
             }
+            if (pendingSearchRunnable != null) {
+                tqlHandler.removeCallbacks(pendingSearchRunnable);
+            }
         }
     }
 
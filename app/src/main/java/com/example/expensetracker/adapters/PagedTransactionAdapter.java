@@ -0,0 +1,118 @@
+package com.example.expensetracker.adapters;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.example.expensetracker.R;
+import com.example.expensetracker.models.Transaction;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Paging 3 version of {@link TransactionAdapter} for the main transaction list.
+ * Rows are loaded page by page from a Room PagingSource, so only the visible window
+ * (plus prefetch) is held in memory regardless of the date range size.
+ */
+public class PagedTransactionAdapter extends PagingDataAdapter<Transaction, TransactionAdapter.TransactionViewHolder>
+        implements TransactionLookup {
+
+    public static final DiffUtil.ItemCallback<Transaction> DIFF_CALLBACK = new DiffUtil.ItemCallback<Transaction>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Transaction oldItem, @NonNull Transaction newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Transaction oldItem, @NonNull Transaction newItem) {
+            return oldItem.getAmountPaise() == newItem.getAmountPaise() &&
+                    oldItem.getDate() == newItem.getDate() &&
+                    oldItem.isExcludedFromTotal() == newItem.isExcludedFromTotal() &&
+                    oldItem.isOtherDebit() == newItem.isOtherDebit() &&
+                    oldItem.getTransactionType() == newItem.getTransactionType() &&
+                    Objects.equals(oldItem.getBank(), newItem.getBank()) &&
+                    Objects.equals(oldItem.getDescription(), newItem.getDescription()) &&
+                    Objects.equals(oldItem.getCategory(), newItem.getCategory()) &&
+                    Objects.equals(oldItem.getNote(), newItem.getNote());
+        }
+
+        // Category, note and exclusion edits rebind only their views; anything else rebinds the row
+        @Override
+        public Object getChangePayload(@NonNull Transaction oldItem, @NonNull Transaction newItem) {
+            if (oldItem.getAmountPaise() != newItem.getAmountPaise() ||
+                    oldItem.getDate() != newItem.getDate() ||
+                    oldItem.getTransactionType() != newItem.getTransactionType() ||
+                    !Objects.equals(oldItem.getBank(), newItem.getBank()) ||
+                    !Objects.equals(oldItem.getDescription(), newItem.getDescription())) {
+                return null;
+            }
+
+            int changes = 0;
+            if (!Objects.equals(oldItem.getCategory(), newItem.getCategory())) {
+                changes |= TransactionAdapter.PAYLOAD_CATEGORY;
+            }
+            if (!Objects.equals(oldItem.getNote(), newItem.getNote())) {
+                changes |= TransactionAdapter.PAYLOAD_NOTE;
+            }
+            if (oldItem.isExcludedFromTotal() != newItem.isExcludedFromTotal() ||
+                    oldItem.isOtherDebit() != newItem.isOtherDebit()) {
+                changes |= TransactionAdapter.PAYLOAD_EXCLUSION;
+            }
+            return changes != 0 ? changes : null;
+        }
+    };
+
+    private final TransactionAdapter.ClickListeners clickListeners = new TransactionAdapter.ClickListeners();
+
+    public PagedTransactionAdapter() {
+        super(DIFF_CALLBACK);
+    }
+
+    public void setOnTransactionClickListener(TransactionAdapter.OnTransactionClickListener listener) {
+        clickListeners.click = listener;
+    }
+
+    public void setOnTransactionLongClickListener(TransactionAdapter.OnTransactionLongClickListener listener) {
+        clickListeners.longClick = listener;
+    }
+
+    @NonNull
+    @Override
+    public TransactionAdapter.TransactionViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View itemView = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_transaction, parent, false);
+        return new TransactionAdapter.TransactionViewHolder(itemView, this, clickListeners);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull TransactionAdapter.TransactionViewHolder holder, int position) {
+        Transaction current = getItem(position);
+        if (current != null) {
+            holder.bind(current);
+        } else {
+            holder.bindPlaceholder();
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull TransactionAdapter.TransactionViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        Transaction current = getItem(position);
+        if (current != null) {
+            holder.bind(current, payloads);
+        } else {
+            holder.bindPlaceholder();
+        }
+    }
+
+    @Override
+    public Transaction getTransactionAt(int position) {
+        // peek() reads the loaded item without triggering another page load
+        return peek(position);
+    }
+}
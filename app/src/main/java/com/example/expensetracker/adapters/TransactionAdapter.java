@@ -12,9 +12,13 @@ import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.FragmentActivity;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.expensetracker.R;
 import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.utils.AppExecutors;
 import com.example.expensetracker.viewmodel.CategoryViewModel;
 import com.google.android.material.chip.Chip;
 import java.text.SimpleDateFormat;
@@ -24,12 +28,39 @@ import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.TransactionViewHolder> {
+/**
+ * List adapter for transactions. New lists are diffed against the shown one on the compute
+ * lane with {@link PagedTransactionAdapter#DIFF_CALLBACK}, so only changed rows rebind, and a
+ * change to just the category, note or exclusion rebinds only those views, see the PAYLOAD_*
+ * constants.
+ */
+public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.TransactionViewHolder>
+        implements TransactionLookup {
+    // Change payloads, OR-ed together, for rows where nothing else changed
+    public static final int PAYLOAD_CATEGORY = 1;
+    public static final int PAYLOAD_NOTE = 1 << 1;
+    public static final int PAYLOAD_EXCLUSION = 1 << 2;
+
+    private final AsyncListDiffer<Transaction> differ = new AsyncListDiffer<>(
+            new AdapterListUpdateCallback(this),
+            new AsyncDifferConfig.Builder<>(PagedTransactionAdapter.DIFF_CALLBACK)
+                    .setBackgroundThreadExecutor(AppExecutors.get().compute())
+                    .build());
+    // The latest list submitted; the differ's current list catches up once diffed
     private List<Transaction> transactions = new ArrayList<>();
-    private OnTransactionClickListener listener;
+    private final ClickListeners clickListeners = new ClickListeners();
     // Add a field for the category click listener
     private OnCategoryClickListener categoryClickListener;
 
+    /**
+     * Row click listeners, shared by reference with the view holders so they can be set
+     * after the holders were created
+     */
+    public static class ClickListeners {
+        OnTransactionClickListener click;
+        OnTransactionLongClickListener longClick;
+    }
+
     // Interface for click handling
     public interface OnTransactionClickListener {
         void onTransactionClick(Transaction transaction);
@@ -42,14 +73,12 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
 
     // Set click listener
     public void setOnTransactionClickListener(OnTransactionClickListener listener) {
-        this.listener = listener;
+        clickListeners.click = listener;
     }
 
-    private OnTransactionLongClickListener longClickListener;
-
     // Set long-click listener
     public void setOnTransactionLongClickListener(OnTransactionLongClickListener listener) {
-        this.longClickListener = listener;
+        clickListeners.longClick = listener;
     }
 
     // Add a new listener interface for category clicks
@@ -62,23 +91,75 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
     public TransactionViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View itemView = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_transaction, parent, false);
-        return new TransactionViewHolder(itemView);
+        return new TransactionViewHolder(itemView, this, clickListeners);
+    }
+
+    public TransactionAdapter() {
+        setHasStableIds(true);
     }
 
     @Override
     public void onBindViewHolder(@NonNull TransactionViewHolder holder, int position) {
-        Transaction current = transactions.get(position);
-        holder.bind(current);
+        holder.attach(this, clickListeners);
+        holder.bind(differ.getCurrentList().get(position));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull TransactionViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        holder.attach(this, clickListeners);
+        holder.bind(differ.getCurrentList().get(position), payloads);
     }
 
     @Override
     public int getItemCount() {
-        return transactions.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getId();
+    }
+
+    @Override
+    public Transaction getTransactionAt(int position) {
+        return differ.getCurrentList().get(position);
     }
 
+    /**
+     * Show a new list; rows are diffed by id off the main thread. The list is copied, so
+     * the caller may keep modifying it.
+     */
     public void setTransactions(List<Transaction> transactions) {
-        this.transactions = transactions;
-        notifyDataSetChanged();
+        submit(new ArrayList<>(transactions));
+    }
+
+    /**
+     * Show an edited transaction in place of the one with the same id, rebinding only its row.
+     * Pass an edited {@link Transaction#copy()}: the shown row is the diff's old side.
+     */
+    public void updateTransaction(Transaction updated) {
+        int latest = indexOf(transactions, updated.getId());
+        if (latest < 0) {
+            return;
+        }
+        List<Transaction> list = new ArrayList<>(transactions);
+        list.set(latest, updated);
+        submit(list);
+    }
+
+    private void submit(List<Transaction> list) {
+        transactions = list;
+        differ.submitList(list);
+    }
+
+    private static int indexOf(List<Transaction> list, long transactionId) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).getId() == transactionId) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     // Add a method to set the category click listener
@@ -86,7 +167,7 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
         this.categoryClickListener = listener;
     }
 
-    public class TransactionViewHolder extends RecyclerView.ViewHolder {
+    public static class TransactionViewHolder extends RecyclerView.ViewHolder {
         private TextView dateText;
         private TextView timeText;
         private TextView bankText;
@@ -98,9 +179,13 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
         private TextView excludedHintText;
         private TextView noteText;
         private TextView noteExpandToggle;
+        private TransactionLookup lookup;
+        private ClickListeners listeners;
 
-        public TransactionViewHolder(@NonNull View itemView) {
+        public TransactionViewHolder(@NonNull View itemView, TransactionLookup lookup,
+                                     ClickListeners listeners) {
             super(itemView);
+            attach(lookup, listeners);
             dateText = itemView.findViewById(R.id.dateText);
             timeText = itemView.findViewById(R.id.timeText);
             bankText = itemView.findViewById(R.id.bankText);
@@ -118,22 +203,58 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
             // Set click listener
             itemView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
-                if (position != RecyclerView.NO_POSITION && listener != null) {
-                    listener.onTransactionClick(transactions.get(position));
+                if (position != RecyclerView.NO_POSITION && this.listeners.click != null) {
+                    Transaction transaction = this.lookup.getTransactionAt(position);
+                    if (transaction != null) {
+                        this.listeners.click.onTransactionClick(transaction);
+                    }
                 }
             });
 
             // Set long-click listener
             itemView.setOnLongClickListener(v -> {
                 int position = getAdapterPosition();
-                if (position != RecyclerView.NO_POSITION && longClickListener != null) {
-                    longClickListener.onTransactionLongClick(transactions.get(position));
-                    return true;
+                if (position != RecyclerView.NO_POSITION && this.listeners.longClick != null) {
+                    Transaction transaction = this.lookup.getTransactionAt(position);
+                    if (transaction != null) {
+                        this.listeners.longClick.onTransactionLongClick(transaction);
+                        return true;
+                    }
                 }
                 return false;
             });
         }
 
+        /**
+         * Point clicks at the adapter binding this holder, which changes when nested lists
+         * share a RecycledViewPool
+         */
+        void attach(TransactionLookup lookup, ClickListeners listeners) {
+            this.lookup = lookup;
+            this.listeners = listeners;
+        }
+
+        /**
+         * Blank the row while a paged list placeholder waits for its data
+         */
+        void bindPlaceholder() {
+            dateText.setText("");
+            timeText.setText("");
+            bankText.setText("");
+            typeChip.setText("");
+            amountText.setText("");
+            descriptionText.setText("");
+            categoryIndicator.setVisibility(View.GONE);
+            if (otherBankIndicator != null) {
+                otherBankIndicator.setVisibility(View.GONE);
+            }
+            if (excludedHintText != null) {
+                excludedHintText.setVisibility(View.GONE);
+            }
+            noteText.setVisibility(View.GONE);
+            noteExpandToggle.setVisibility(View.GONE);
+        }
+
         // In TransactionAdapter.java, update the bind method to add visual indicators for manually excluded transactions
 
         void bind(Transaction transaction) {
@@ -147,7 +268,7 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
             bankText.setText(transaction.getBank());
 
             typeChip.setText(transaction.getType());
-            if ("CREDIT".equals(transaction.getType())) {
+            if (transaction.isCredit()) {
                 typeChip.setChipBackgroundColorResource(R.color.green_light);
                 typeChip.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.green_dark));
                 amountText.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.green));
@@ -160,6 +281,43 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
             // Set description
             descriptionText.setText(transaction.getDescription());
 
+            bindCategory(transaction);
+            bindExclusion(transaction);
+
+            amountText.setText(String.format(Locale.getDefault(), "₹%.2f", transaction.getAmount()));
+
+            bindNote(transaction);
+        }
+
+        /**
+         * Bind a row, or only the views named by the change payloads when there are any
+         */
+        void bind(Transaction transaction, List<Object> payloads) {
+            int changes = 0;
+            for (Object payload : payloads) {
+                if (!(payload instanceof Integer)) {
+                    changes = 0;
+                    break;
+                }
+                changes |= (Integer) payload;
+            }
+            if (changes == 0) {
+                bind(transaction);
+                return;
+            }
+
+            if ((changes & PAYLOAD_CATEGORY) != 0) {
+                bindCategory(transaction);
+            }
+            if ((changes & PAYLOAD_EXCLUSION) != 0) {
+                bindExclusion(transaction);
+            }
+            if ((changes & PAYLOAD_NOTE) != 0) {
+                bindNote(transaction);
+            }
+        }
+
+        private void bindCategory(Transaction transaction) {
             // Apply category coloring
             if (transaction.getCategory() != null && !transaction.getCategory().isEmpty()) {
                 categoryIndicator.setVisibility(View.VISIBLE);
@@ -181,7 +339,9 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
                     categoryColorIndicator.setVisibility(View.INVISIBLE);
                 }
             }
+        }
 
+        private void bindExclusion(Transaction transaction) {
             // Handle excluded transactions - differentiate between manually excluded and auto-excluded
             if (transaction.isExcludedFromTotal()) {
                 if (!transaction.isOtherDebit()) {
@@ -248,15 +408,15 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
                 descriptionText.setTypeface(descriptionText.getTypeface(), Typeface.NORMAL);
 
                 // Set color based on transaction type
-                if ("CREDIT".equals(transaction.getType())) {
+                if (transaction.isCredit()) {
                     amountText.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.green));
                 } else {
                     amountText.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.red));
                 }
             }
+        }
 
-            amountText.setText(String.format(Locale.getDefault(), "₹%.2f", transaction.getAmount()));
-
+        private void bindNote(Transaction transaction) {
             // Handle note display
             if (transaction.getNote() != null && !transaction.getNote().trim().isEmpty()) {
                 noteText.setVisibility(View.VISIBLE);
@@ -361,15 +521,13 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
     }
 
     public void addTransactions(List<Transaction> newTransactions) {
-        int startPosition = this.transactions.size();
-        this.transactions.addAll(newTransactions);
-        notifyItemRangeInserted(startPosition, newTransactions.size());
+        List<Transaction> list = new ArrayList<>(transactions);
+        list.addAll(newTransactions);
+        submit(list);
     }
 
     public void clearTransactions() {
-        int size = this.transactions.size();
-        this.transactions.clear();
-        notifyItemRangeRemoved(0, size);
+        submit(new ArrayList<>());
     }
 
     /**
@@ -377,6 +535,6 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
      * @return The OnTransactionClickListener
      */
     public OnTransactionClickListener getOnTransactionClickListener() {
-        return this.listener;
+        return clickListeners.click;
     }
 }
\ No newline at end of file
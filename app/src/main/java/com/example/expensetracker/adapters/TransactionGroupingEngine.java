@@ -0,0 +1,304 @@
+package com.example.expensetracker.adapters;
+
+import com.example.expensetracker.adapters.DateGroupedTransactionAdapter.DateGroup;
+import com.example.expensetracker.models.Transaction;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Builds the groups shown by {@link DateGroupedTransactionAdapter}, off the main thread.
+ *
+ * Day, week and month keys are integer arithmetic on the local epoch day of each
+ * transaction, so grouping allocates no Calendar or formatter per row; labels are formatted
+ * once per group. The result is a list of immutable {@link DateGroup}s, in display order,
+ * that the adapter binds as is. Each group keeps its transactions in the order they were
+ * passed in, so pass them already sorted, e.g. from RangeSnapshot#rows(BitSet, int).
+ *
+ * Calls are serialized, since the date formats are shared between them.
+ */
+public final class TransactionGroupingEngine {
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    // Amount range boundaries for GROUP_BY_AMOUNT_RANGE, in paise
+    private static final long[] AMOUNT_RANGES_PAISE = {
+            0, 10000, 50000, 100000, 500000, 1000000, Long.MAX_VALUE
+    };
+    private static final String[] AMOUNT_RANGE_LABELS = {
+            "₹0-₹100", "₹100-₹500", "₹500-₹1,000",
+            "₹1,000-₹5,000", "₹5,000-₹10,000", "₹10,000+"
+    };
+
+    private final SimpleDateFormat dayLabelFormat = new SimpleDateFormat("EEE, MMM d, yyyy", Locale.getDefault());
+    private final SimpleDateFormat weekLabelFormat = new SimpleDateFormat("MMM d", Locale.getDefault());
+    private final SimpleDateFormat monthLabelFormat = new SimpleDateFormat("MMMM yyyy", Locale.getDefault());
+    private final Date formatDate = new Date();
+    private final int firstDayOfWeek = Calendar.getInstance().getFirstDayOfWeek();
+    private TimeZone timeZone;
+
+    /**
+     * Group transactions and order the groups for a grouping mode and main screen sort option
+     * @param groupingMode One of the DateGroupedTransactionAdapter.GROUP_BY_* constants
+     */
+    public synchronized List<DateGroup> group(List<Transaction> transactions, int groupingMode, int sortOption) {
+        if (transactions.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Picked up per call so a time zone change regroups correctly
+        timeZone = TimeZone.getDefault();
+        dayLabelFormat.setTimeZone(timeZone);
+        weekLabelFormat.setTimeZone(timeZone);
+        monthLabelFormat.setTimeZone(timeZone);
+
+        List<DateGroup> groups;
+        switch (groupingMode) {
+            case DateGroupedTransactionAdapter.GROUP_BY_WEEK:
+            case DateGroupedTransactionAdapter.GROUP_BY_MONTH:
+            case DateGroupedTransactionAdapter.GROUP_BY_DAY:
+                groups = groupByPeriod(transactions, groupingMode);
+                break;
+            case DateGroupedTransactionAdapter.GROUP_BY_AMOUNT_RANGE:
+                groups = groupByAmountRange(transactions);
+                break;
+            case DateGroupedTransactionAdapter.GROUP_BY_CATEGORY:
+            case DateGroupedTransactionAdapter.GROUP_BY_MERCHANT:
+            case DateGroupedTransactionAdapter.GROUP_BY_BANK:
+                groups = groupByName(transactions, groupingMode);
+                break;
+            default:
+                groups = groupByPeriod(transactions, DateGroupedTransactionAdapter.GROUP_BY_DAY);
+                break;
+        }
+
+        sortGroups(groups, sortOption);
+        return Collections.unmodifiableList(groups);
+    }
+
+    // Day, week or month groups, newest first
+    private List<DateGroup> groupByPeriod(List<Transaction> transactions, int groupingMode) {
+        Map<Long, Builder> builders = new HashMap<>();
+        Builder last = null;
+        for (Transaction transaction : transactions) {
+            long day = localEpochDay(transaction.getDate());
+            long key;
+            if (groupingMode == DateGroupedTransactionAdapter.GROUP_BY_WEEK) {
+                key = day - Math.floorMod(dayOfWeek(day) - firstDayOfWeek, 7);
+            } else if (groupingMode == DateGroupedTransactionAdapter.GROUP_BY_MONTH) {
+                key = monthIndex(day);
+            } else {
+                key = day;
+            }
+
+            // Rows usually arrive date ordered, so most lookups hit the previous group
+            if (last == null || last.order != key) {
+                last = builders.get(key);
+                if (last == null) {
+                    last = new Builder(key);
+                    builders.put(key, last);
+                }
+            }
+            last.add(transaction);
+        }
+
+        List<Builder> ordered = new ArrayList<>(builders.values());
+        Collections.sort(ordered, (a, b) -> Long.compare(b.order, a.order));
+
+        List<DateGroup> groups = new ArrayList<>(ordered.size());
+        for (Builder builder : ordered) {
+            String key;
+            String label;
+            if (groupingMode == DateGroupedTransactionAdapter.GROUP_BY_WEEK) {
+                key = "week:" + builder.order;
+                label = weekLabel(builder.oldest, builder.newest);
+            } else if (groupingMode == DateGroupedTransactionAdapter.GROUP_BY_MONTH) {
+                key = "month:" + builder.order;
+                label = format(monthLabelFormat, builder.newest);
+            } else {
+                key = "day:" + builder.order;
+                label = format(dayLabelFormat, builder.newest);
+            }
+            groups.add(new DateGroup(key, label, builder.transactions, builder.newest));
+        }
+        return groups;
+    }
+
+    // Amount range groups, smallest range first; negative amounts fall in no range
+    private List<DateGroup> groupByAmountRange(List<Transaction> transactions) {
+        Builder[] builders = new Builder[AMOUNT_RANGE_LABELS.length];
+        for (Transaction transaction : transactions) {
+            long amountPaise = transaction.getAmountPaise();
+            for (int i = 0; i < builders.length; i++) {
+                if (amountPaise >= AMOUNT_RANGES_PAISE[i] && amountPaise < AMOUNT_RANGES_PAISE[i + 1]) {
+                    if (builders[i] == null) {
+                        builders[i] = new Builder(i);
+                    }
+                    builders[i].add(transaction);
+                    break;
+                }
+            }
+        }
+
+        List<DateGroup> groups = new ArrayList<>();
+        for (int i = 0; i < builders.length; i++) {
+            if (builders[i] != null) {
+                groups.add(new DateGroup("range:" + i, AMOUNT_RANGE_LABELS[i],
+                        builders[i].transactions, builders[i].newest));
+            }
+        }
+        return groups;
+    }
+
+    // Category, merchant or bank groups, highest total first
+    private List<DateGroup> groupByName(List<Transaction> transactions, int groupingMode) {
+        Map<String, Builder> builders = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            String name = nameOf(transaction, groupingMode);
+            Builder builder = builders.get(name);
+            if (builder == null) {
+                builder = new Builder(0);
+                builders.put(name, builder);
+            }
+            builder.add(transaction);
+        }
+
+        List<DateGroup> groups = new ArrayList<>(builders.size());
+        for (Map.Entry<String, Builder> entry : builders.entrySet()) {
+            Builder builder = entry.getValue();
+            groups.add(new DateGroup(groupingMode + ":" + entry.getKey(), entry.getKey(),
+                    builder.transactions, builder.newest));
+        }
+        Collections.sort(groups, (a, b) -> Long.compare(b.getTotalPaise(), a.getTotalPaise()));
+        return groups;
+    }
+
+    private static String nameOf(Transaction transaction, int groupingMode) {
+        String name;
+        switch (groupingMode) {
+            case DateGroupedTransactionAdapter.GROUP_BY_CATEGORY:
+                name = transaction.getCategory();
+                return name == null || name.isEmpty() ? "Uncategorized" : name;
+            case DateGroupedTransactionAdapter.GROUP_BY_MERCHANT:
+                name = transaction.getMerchantName();
+                return name == null || name.isEmpty()
+                        ? extractMerchantFromDescription(transaction.getDescription()) : name;
+            case DateGroupedTransactionAdapter.GROUP_BY_BANK:
+            default:
+                name = transaction.getBank();
+                return name == null || name.isEmpty() ? "Unknown Bank" : name;
+        }
+    }
+
+    /**
+     * Helper to extract a merchant name from a transaction description
+     */
+    private static String extractMerchantFromDescription(String description) {
+        if (description == null || description.isEmpty()) {
+            return "Unknown Merchant";
+        }
+
+        // Try to extract first few words as merchant name
+        String[] words = description.split("\\s+");
+        if (words.length > 0) {
+            StringBuilder merchantBuilder = new StringBuilder();
+            // Take up to first 3 words
+            int wordCount = Math.min(3, words.length);
+            for (int i = 0; i < wordCount; i++) {
+                if (merchantBuilder.length() > 0) {
+                    merchantBuilder.append(" ");
+                }
+                merchantBuilder.append(words[i]);
+            }
+            return merchantBuilder.toString();
+        } else {
+            return "Unknown Merchant";
+        }
+    }
+
+    // Reorder the groups for a sort option; option 0 keeps each grouping's own order
+    private static void sortGroups(List<DateGroup> groups, int sortOption) {
+        switch (sortOption) {
+            case 1: // Date (oldest first) - reverse the default group order
+                Collections.reverse(groups);
+                break;
+            case 2: // Amount (highest first)
+                Collections.sort(groups, (a, b) -> Long.compare(b.getTotalPaise(), a.getTotalPaise()));
+                break;
+            case 3: // Amount (lowest first)
+                Collections.sort(groups, (a, b) -> Long.compare(a.getTotalPaise(), b.getTotalPaise()));
+                break;
+            case 4: // Description (A-Z) - sort by group name
+                Collections.sort(groups, (a, b) -> a.getLabel().compareToIgnoreCase(b.getLabel()));
+                break;
+            case 5: // Description (Z-A) - sort by group name reversed
+                Collections.sort(groups, (a, b) -> b.getLabel().compareToIgnoreCase(a.getLabel()));
+                break;
+        }
+    }
+
+    // "Week of May 1 - May 7, 2023", with both years when the week spans two
+    private String weekLabel(long firstDay, long lastDay) {
+        long firstYear = Math.floorDiv(monthIndex(localEpochDay(firstDay)), 12);
+        long lastYear = Math.floorDiv(monthIndex(localEpochDay(lastDay)), 12);
+        String startDayStr = format(weekLabelFormat, firstDay);
+        String endDayStr = format(weekLabelFormat, lastDay) + ", " + lastYear;
+        if (firstYear != lastYear) {
+            startDayStr += ", " + firstYear;
+        }
+        return "Week of " + startDayStr + " - " + endDayStr;
+    }
+
+    private String format(SimpleDateFormat format, long millis) {
+        formatDate.setTime(millis);
+        return format.format(formatDate);
+    }
+
+    // Days since 1970-01-01 in the local time zone
+    private long localEpochDay(long millis) {
+        return Math.floorDiv(millis + timeZone.getOffset(millis), DAY_MS);
+    }
+
+    // Calendar.SUNDAY (1) to Calendar.SATURDAY (7); 1970-01-01 was a Thursday
+    private static int dayOfWeek(long epochDay) {
+        return (int) Math.floorMod(epochDay + 4, 7L) + 1;
+    }
+
+    // Year * 12 + zero-based month of an epoch day, in the proleptic Gregorian calendar
+    private static long monthIndex(long epochDay) {
+        long z = epochDay + 719468; // Days since 0000-03-01
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153; // 0 = March
+        long month = shiftedMonth < 10 ? shiftedMonth + 2 : shiftedMonth - 10; // 0 = January
+        long year = yearOfEra + era * 400 + (month < 2 ? 1 : 0);
+        return year * 12 + month;
+    }
+
+    // Transactions of one group as they are collected
+    private static final class Builder {
+        final long order;
+        final List<Transaction> transactions = new ArrayList<>();
+        long newest = Long.MIN_VALUE;
+        long oldest = Long.MAX_VALUE;
+
+        Builder(long order) {
+            this.order = order;
+        }
+
+        void add(Transaction transaction) {
+            transactions.add(transaction);
+            newest = Math.max(newest, transaction.getDate());
+            oldest = Math.min(oldest, transaction.getDate());
+        }
+    }
+}
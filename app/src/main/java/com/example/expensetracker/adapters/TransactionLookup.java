@@ -0,0 +1,14 @@
+package com.example.expensetracker.adapters;
+
+import com.example.expensetracker.models.Transaction;
+
+/**
+ * Resolves the transaction shown at an adapter position. Implemented by both the list
+ * and the paged adapter so view holders and swipe handling work with either.
+ */
+public interface TransactionLookup {
+    /**
+     * @return The transaction at the position, or null for a paged placeholder
+     */
+    Transaction getTransactionAt(int position);
+}
@@ -0,0 +1,137 @@
+package com.example.expensetracker.database;
+
+import android.database.Cursor;
+import android.os.CancellationSignal;
+
+import androidx.sqlite.db.SimpleSQLiteQuery;
+
+import com.example.expensetracker.models.Transaction;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link TransactionSearchFilter} queries that stop as soon as their CancellationSignal is
+ * cancelled, so a superseded search-as-you-type query doesn't run to completion. Room DAO
+ * methods can't take a CancellationSignal, so the filtering query selects only ids through
+ * RoomDatabase#query and the matching rows are then loaded by primary key.
+ *
+ * Both methods throw android.os.OperationCanceledException once cancelled.
+ */
+public final class CancellableSearch {
+    // Weight of a hit in each transactions_fts column: description, merchant_name, category, bank, note
+    private static final double[] TEXT_COLUMN_WEIGHTS = {2.0, 2.0, 1.0, 0.5, 1.0};
+    // A hit in the SMS body counts for less than one in the fields the user sees
+    private static final double[] SMS_COLUMN_WEIGHTS = {0.5};
+
+    private CancellableSearch() {
+    }
+
+    /**
+     * Transactions matching the filter, in the filter's sort order, or best match first when
+     * the filter is {@link TransactionSearchFilter#isRankedByRelevance() ranked}
+     */
+    public static List<Transaction> search(TransactionDatabase database, TransactionSearchFilter filter,
+                                           CancellationSignal signal) {
+        List<Long> ids = new ArrayList<>();
+        try (Cursor cursor = database.query(filter.buildSearchIdsQuery(), signal)) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+        }
+
+        if (filter.isRankedByRelevance() && ids.size() > 1) {
+            Map<Long, Double> scores = new HashMap<>(ids.size() * 2);
+            for (Long id : ids) {
+                scores.put(id, 0.0);
+            }
+            String match = filter.toRankingMatchQuery();
+            addScores(database, "transactions_fts", match, TEXT_COLUMN_WEIGHTS, scores, signal);
+            addScores(database, SmsSearchSchema.TABLE, match, SMS_COLUMN_WEIGHTS, scores, signal);
+
+            // The sort is stable, so rows scoring the same keep the filter's order
+            ids.sort(Comparator.comparing((Long id) -> scores.get(id)).reversed());
+        }
+
+        // Loading by primary key is cheap, the filtering above is what cancellation saves
+        signal.throwIfCanceled();
+        return database.transactionDao().getTransactionsByIds(ids);
+    }
+
+    /**
+     * Ids of the transactions in a date range that search text matches, by the same
+     * definition as the filter's, see {@link TransactionSearchFilter#buildMatchingIdsQuery}
+     */
+    public static List<Long> matchingIds(TransactionDatabase database, String searchText,
+                                         long startDate, long endDate, CancellationSignal signal) {
+        List<Long> ids = new ArrayList<>();
+        try (Cursor cursor = database.query(
+                TransactionSearchFilter.buildMatchingIdsQuery(searchText, startDate, endDate), signal)) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Add each row's score in one full-text table to its entry in scores; rows that aren't in
+     * scores are not part of the result and are skipped. A hit counts more in a heavier column
+     * and for a rarer word, as in tf-idf, from matchinfo's 'pcnx' counts: the number of words
+     * and columns, the number of rows, then for each word and column the hits in this row, the
+     * hits in all rows and the rows with a hit.
+     */
+    private static void addScores(TransactionDatabase database, String table, String match,
+                                  double[] columnWeights, Map<Long, Double> scores,
+                                  CancellationSignal signal) {
+        String sql = "SELECT docid, matchinfo(" + table + ", 'pcnx') FROM " + table +
+                " WHERE " + table + " MATCH ?";
+        try (Cursor cursor = database.query(new SimpleSQLiteQuery(sql, new Object[]{match}), signal)) {
+            while (cursor.moveToNext()) {
+                long id = cursor.getLong(0);
+                Double score = scores.get(id);
+                if (score == null) continue;
+
+                // matchinfo is an array of 32-bit integers in the machine's byte order
+                IntBuffer info = ByteBuffer.wrap(cursor.getBlob(1)).order(ByteOrder.nativeOrder()).asIntBuffer();
+                int phrases = info.get(0);
+                int columns = info.get(1);
+                int rows = info.get(2);
+                for (int phrase = 0; phrase < phrases; phrase++) {
+                    for (int column = 0; column < columns; column++) {
+                        int at = 3 + 3 * (phrase * columns + column);
+                        int hits = info.get(at);
+                        if (hits == 0) continue;
+                        double weight = column < columnWeights.length ? columnWeights[column] : 1.0;
+                        double rarity = Math.log(1.0 + (double) rows / Math.max(1, info.get(at + 2)));
+                        score += weight * hits * rarity;
+                    }
+                }
+                scores.put(id, score);
+            }
+        }
+    }
+
+    /**
+     * Count and totals for the filter, see {@link TransactionSearchFilter#buildTotalsQuery()}
+     */
+    public static TransactionAggregateDao.AmountTotals totals(TransactionDatabase database,
+                                                              TransactionSearchFilter filter,
+                                                              CancellationSignal signal) {
+        TransactionAggregateDao.AmountTotals totals = new TransactionAggregateDao.AmountTotals();
+        try (Cursor cursor = database.query(filter.buildTotalsQuery(), signal)) {
+            if (cursor.moveToFirst()) {
+                totals.transactionCount = cursor.getInt(cursor.getColumnIndexOrThrow("transactionCount"));
+                totals.debitPaise = cursor.getLong(cursor.getColumnIndexOrThrow("debitPaise"));
+                totals.creditPaise = cursor.getLong(cursor.getColumnIndexOrThrow("creditPaise"));
+            }
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.expensetracker.database;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import com.example.expensetracker.models.ChangedMonth;
+
+import java.util.List;
+
+/**
+ * Reads the months recorded by {@link ChangedMonthSchema#createTriggers}. Read-only: a month
+ * keeps one row whose version the triggers raise on every write, so nothing has to be cleared.
+ */
+@Dao
+public interface ChangedMonthDao {
+
+    /**
+     * The months written since the change with the given version, newest version last
+     */
+    @Query("SELECT month, version FROM changed_months WHERE version > :afterVersion ORDER BY version")
+    List<ChangedMonth> getChangedSince(long afterVersion);
+}
@@ -0,0 +1,44 @@
+package com.example.expensetracker.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Triggers that record in changed_months every local month touched by a write to
+ * transactions, so cached months can be evicted one by one. Each write gives its months a
+ * version one above the highest in the table; writes are serialized, so versions grow in
+ * commit order and a reader that has seen a version has seen every write before it.
+ * Months are year * 12 + zero-based month, like {@code Calendar.YEAR * 12 + Calendar.MONTH}.
+ */
+final class ChangedMonthSchema {
+    private ChangedMonthSchema() {
+    }
+
+    /**
+     * Create the triggers. Safe to call on every open.
+     */
+    static void createTriggers(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS changed_months_AFTER_INSERT " +
+                "AFTER INSERT ON transactions BEGIN " + record("NEW") + " END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS changed_months_AFTER_DELETE " +
+                "AFTER DELETE ON transactions BEGIN " + record("OLD") + " END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS changed_months_AFTER_UPDATE " +
+                "AFTER UPDATE ON transactions BEGIN " + record("OLD") + " " + record("NEW") + " END");
+    }
+
+    /**
+     * Drop the triggers, so that {@link #createTriggers} installs the current ones
+     */
+    static void dropTriggers(SupportSQLiteDatabase database) {
+        database.execSQL("DROP TRIGGER IF EXISTS changed_months_AFTER_INSERT");
+        database.execSQL("DROP TRIGGER IF EXISTS changed_months_AFTER_DELETE");
+        database.execSQL("DROP TRIGGER IF EXISTS changed_months_AFTER_UPDATE");
+    }
+
+    private static String record(String row) {
+        String localTime = row + ".date / 1000, 'unixepoch', 'localtime'";
+        return "INSERT OR REPLACE INTO changed_months (month, version) VALUES (" +
+                "CAST(strftime('%Y', " + localTime + ") AS INTEGER) * 12 + " +
+                "CAST(strftime('%m', " + localTime + ") AS INTEGER) - 1, " +
+                "(SELECT IFNULL(MAX(version), 0) + 1 FROM changed_months));";
+    }
+}
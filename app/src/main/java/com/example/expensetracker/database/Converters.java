@@ -0,0 +1,43 @@
+package com.example.expensetracker.database;
+
+import androidx.room.TypeConverter;
+
+import com.example.expensetracker.models.ExclusionReason;
+import com.example.expensetracker.models.ExclusionSource;
+import com.example.expensetracker.models.TransactionType;
+
+/**
+ * Stores the small fixed vocabularies of the transactions table as integer codes
+ * instead of repeating their names as TEXT on every row.
+ */
+public class Converters {
+    @TypeConverter
+    public static Integer fromTransactionType(TransactionType type) {
+        return type == null ? null : type.code;
+    }
+
+    @TypeConverter
+    public static TransactionType toTransactionType(Integer code) {
+        return TransactionType.fromCode(code);
+    }
+
+    @TypeConverter
+    public static Integer fromExclusionSource(ExclusionSource source) {
+        return source == null ? null : source.code;
+    }
+
+    @TypeConverter
+    public static ExclusionSource toExclusionSource(Integer code) {
+        return ExclusionSource.fromCode(code);
+    }
+
+    @TypeConverter
+    public static Integer fromExclusionReason(ExclusionReason reason) {
+        return reason == null ? null : reason.code;
+    }
+
+    @TypeConverter
+    public static ExclusionReason toExclusionReason(Integer code) {
+        return ExclusionReason.fromCode(code);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.expensetracker.database;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+/**
+ * Maintenance of the daily_rollups table. Day-to-day updates are done by triggers,
+ * see {@link DailyRollupSchema#createTriggers}; this DAO checks and rebuilds the table.
+ */
+@Dao
+public interface DailyRollupDao {
+
+    @Query("DELETE FROM daily_rollups")
+    void deleteAll();
+
+    @Query(DailyRollupSchema.INSERT_FROM_TRANSACTIONS)
+    void insertFromTransactions();
+
+    /**
+     * @return Number of rollup keys whose sum or count differ from the transactions table
+     */
+    @Query(DailyRollupSchema.COUNT_MISMATCHES)
+    int countMismatches();
+
+    // Recompute every rollup from the transactions table
+    @Transaction
+    default void rebuild() {
+        deleteAll();
+        insertFromTransactions();
+    }
+
+    /**
+     * Rebuild the rollups if they have drifted from the transactions table. Aggregates every
+     * transaction, so it is meant for debugging the triggers; time zone changes are handled
+     * on open, see {@link DailyRollupSchema#rebuildIfZoneChanged}
+     * @return true if a rebuild was needed
+     */
+    @Transaction
+    default boolean verifyOrRebuild() {
+        if (countMismatches() == 0) {
+            return false;
+        }
+        rebuild();
+        return true;
+    }
+}
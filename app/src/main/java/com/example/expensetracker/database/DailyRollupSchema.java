@@ -0,0 +1,164 @@
+package com.example.expensetracker.database;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.Calendar;
+
+/**
+ * SQL shared by the daily_rollups triggers, the migration and the rollup DAOs.
+ * Rollup days are local midnights computed by SQLite with the device time zone,
+ * the same way {@link DayWindow} computes them in Java.
+ */
+final class DailyRollupSchema {
+    private static final String DAY_PREFIX = "CAST(strftime('%s', ";
+    private static final String DAY_SUFFIX = " / 1000, 'unixepoch', 'localtime', 'start of day', 'utc') AS INTEGER) * 1000";
+
+    // Local midnight (millis) of a transaction's date
+    static final String DAY_OF_DATE = DAY_PREFIX + "date" + DAY_SUFFIX;
+
+    static final String INSERT_FROM_TRANSACTIONS = "INSERT INTO daily_rollups " +
+            "(day, category, bank, type, excluded, sum_paise, count) " +
+            "SELECT " + DAY_OF_DATE + ", COALESCE(category, ''), COALESCE(bank, ''), COALESCE(type, 0), " +
+            "is_excluded_from_total, SUM(amount_paise), COUNT(*) " +
+            "FROM transactions GROUP BY 1, 2, 3, 4, 5";
+
+    // Keys where the rollups disagree with a fresh aggregation of the transactions.
+    // Aggregates every transaction, so it is a debugging check, not something to run on startup
+    static final String COUNT_MISMATCHES = "SELECT COUNT(*) FROM (" +
+            "SELECT day FROM (" +
+            "SELECT day, category, bank, type, excluded, sum_paise, count FROM daily_rollups " +
+            "UNION ALL " +
+            "SELECT " + DAY_OF_DATE + ", COALESCE(category, ''), COALESCE(bank, ''), COALESCE(type, 0), " +
+            "is_excluded_from_total, -amount_paise, -1 FROM transactions) " +
+            "GROUP BY day, category, bank, type, excluded " +
+            "HAVING SUM(sum_paise) != 0 OR SUM(count) != 0)";
+
+    /**
+     * Rollup rows for the whole days in [:firstDay, :endDay) plus the raw transactions
+     * of the partial days at either end of [:startDate, :endDate], with rollup columns
+     */
+    static final String RANGE_SOURCE = "(" +
+            "SELECT day, category, bank, type, excluded, sum_paise, count FROM daily_rollups " +
+            "WHERE day >= :firstDay AND day < :endDay " +
+            "UNION ALL " +
+            "SELECT " + DAY_OF_DATE + ", COALESCE(category, ''), COALESCE(bank, ''), COALESCE(type, 0), " +
+            "is_excluded_from_total, amount_paise, 1 FROM transactions " +
+            "WHERE date BETWEEN :startDate AND :endDate AND (date < :firstDay OR date >= :endDay))";
+
+    private DailyRollupSchema() {
+    }
+
+    /**
+     * Create the triggers that keep daily_rollups in sync with transactions.
+     * Safe to call on every open.
+     */
+    static void createTriggers(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS daily_rollups_AFTER_INSERT " +
+                "AFTER INSERT ON transactions BEGIN " + add("NEW") + " END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS daily_rollups_AFTER_DELETE " +
+                "AFTER DELETE ON transactions BEGIN " + remove("OLD") + " END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS daily_rollups_AFTER_UPDATE " +
+                "AFTER UPDATE OF date, amount_paise, category, bank, type, is_excluded_from_total ON transactions " +
+                "BEGIN " + remove("OLD") + " " + add("NEW") + " END");
+    }
+
+    /**
+     * Rebuild the rollups if the device time zone changed since they were built: rollup days
+     * are local midnights, so they move with the zone. Costs one single-row read when the
+     * zone is unchanged. Safe to call on every open.
+     * @param zone Current time zone id, e.g. {@code TimeZone.getDefault().getID()}
+     * @return true if the rollups were rebuilt
+     */
+    static boolean rebuildIfZoneChanged(SupportSQLiteDatabase database, String zone) {
+        // Not an entity: one row that is only read here, next to the data it describes
+        database.execSQL("CREATE TABLE IF NOT EXISTS daily_rollups_zone (" +
+                "id INTEGER PRIMARY KEY NOT NULL, zone TEXT NOT NULL)");
+        try (Cursor cursor = database.query("SELECT zone FROM daily_rollups_zone WHERE id = 0")) {
+            if (cursor.moveToFirst() && zone.equals(cursor.getString(0))) {
+                return false;
+            }
+        }
+
+        database.beginTransaction();
+        try {
+            database.execSQL("DELETE FROM daily_rollups");
+            database.execSQL(INSERT_FROM_TRANSACTIONS);
+            database.execSQL("INSERT OR REPLACE INTO daily_rollups_zone (id, zone) VALUES (0, ?)",
+                    new Object[]{zone});
+            database.setTransactionSuccessful();
+        } finally {
+            database.endTransaction();
+        }
+        return true;
+    }
+
+    private static String add(String row) {
+        return "INSERT OR IGNORE INTO daily_rollups (day, category, bank, type, excluded, sum_paise, count) " +
+                "VALUES (" + DAY_PREFIX + row + ".date" + DAY_SUFFIX + ", COALESCE(" + row + ".category, ''), " +
+                "COALESCE(" + row + ".bank, ''), COALESCE(" + row + ".type, 0), " +
+                row + ".is_excluded_from_total, 0, 0); " +
+                "UPDATE daily_rollups SET sum_paise = sum_paise + " + row + ".amount_paise, " +
+                "count = count + 1 WHERE " + key(row) + ";";
+    }
+
+    private static String remove(String row) {
+        return "UPDATE daily_rollups SET sum_paise = sum_paise - " + row + ".amount_paise, " +
+                "count = count - 1 WHERE " + key(row) + "; " +
+                "DELETE FROM daily_rollups WHERE " + key(row) + " AND count <= 0;";
+    }
+
+    private static String key(String row) {
+        return "day = " + DAY_PREFIX + row + ".date" + DAY_SUFFIX +
+                " AND category = COALESCE(" + row + ".category, '')" +
+                " AND bank = COALESCE(" + row + ".bank, '')" +
+                " AND type = COALESCE(" + row + ".type, 0)" +
+                " AND excluded = " + row + ".is_excluded_from_total";
+    }
+
+    /**
+     * The whole local days inside a date range, as [firstDay, endDay).
+     * Queries read these days from daily_rollups and only the partial days at
+     * the edges of the range from transactions.
+     */
+    static final class DayWindow {
+        final long firstDay;
+        final long endDay;
+
+        private DayWindow(long firstDay, long endDay) {
+            this.firstDay = firstDay;
+            this.endDay = endDay;
+        }
+
+        static DayWindow within(long startDate, long endDate) {
+            Calendar cal = Calendar.getInstance();
+
+            // First midnight at or after the start
+            cal.setTimeInMillis(startDate);
+            truncateToDay(cal);
+            if (cal.getTimeInMillis() < startDate) {
+                cal.add(Calendar.DAY_OF_MONTH, 1);
+            }
+            long firstDay = cal.getTimeInMillis();
+
+            // Last midnight at or before the end of the range; the day before it is the last whole day
+            cal.setTimeInMillis(endDate == Long.MAX_VALUE ? endDate : endDate + 1);
+            truncateToDay(cal);
+            long endDay = cal.getTimeInMillis();
+
+            if (endDay <= firstDay) {
+                // No whole day in the range, read everything from transactions
+                return new DayWindow(Long.MAX_VALUE, Long.MAX_VALUE);
+            }
+            return new DayWindow(firstDay, endDay);
+        }
+
+        private static void truncateToDay(Calendar cal) {
+            cal.set(Calendar.HOUR_OF_DAY, 0);
+            cal.set(Calendar.MINUTE, 0);
+            cal.set(Calendar.SECOND, 0);
+            cal.set(Calendar.MILLISECOND, 0);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.expensetracker.database;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.expensetracker.models.ExclusionReason;
+import com.example.expensetracker.models.ExclusionSource;
+import com.example.expensetracker.models.TransactionType;
+
+/**
+ * Name tables for the integer codes stored by {@link Converters}, so the codes can be
+ * translated in SQL (migrations, debugging with a plain SQLite shell).
+ * The enums are the source of truth; the tables are refreshed from them on every open.
+ */
+final class LookupTables {
+    private LookupTables() {
+    }
+
+    static void create(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TABLE IF NOT EXISTS transaction_types (" +
+                "code INTEGER PRIMARY KEY NOT NULL, name TEXT NOT NULL)");
+        for (TransactionType type : TransactionType.values()) {
+            database.execSQL("INSERT OR REPLACE INTO transaction_types (code, name) VALUES (?, ?)",
+                    new Object[]{type.code, type.name()});
+        }
+
+        database.execSQL("CREATE TABLE IF NOT EXISTS exclusion_sources (" +
+                "code INTEGER PRIMARY KEY NOT NULL, name TEXT NOT NULL)");
+        for (ExclusionSource source : ExclusionSource.values()) {
+            database.execSQL("INSERT OR REPLACE INTO exclusion_sources (code, name) VALUES (?, ?)",
+                    new Object[]{source.code, source.name()});
+        }
+
+        database.execSQL("CREATE TABLE IF NOT EXISTS exclusion_reasons (" +
+                "code INTEGER PRIMARY KEY NOT NULL, name TEXT NOT NULL)");
+        for (ExclusionReason reason : ExclusionReason.values()) {
+            database.execSQL("INSERT OR REPLACE INTO exclusion_reasons (code, name) VALUES (?, ?)",
+                    new Object[]{reason.code, reason.name()});
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.expensetracker.database;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.expensetracker.models.ExclusionReason;
+import com.example.expensetracker.models.ExclusionSource;
+import com.example.expensetracker.models.PendingTransactionUpdate;
+
+/**
+ * The journal of {@link PendingTransactionUpdate}s. Updates to the same transaction merge
+ * into one row, newer fields replacing older ones, and {@link #applyAll()} writes every
+ * journaled field to the transactions table with one UPDATE.
+ */
+@Dao
+public interface PendingTransactionUpdateDao {
+
+    /**
+     * Merge the set fields of an update into the journal row of its transaction
+     */
+    default void merge(PendingTransactionUpdate update) {
+        long id = update.getTransactionId();
+        insertIfMissing(id);
+        if (update.isCategorySet()) {
+            setCategory(id, update.getCategory());
+        }
+        if (update.isNoteSet()) {
+            setNote(id, update.getNote());
+        }
+        if (update.getDescription() != null) {
+            setDescription(id, update.getDescription());
+        }
+        if (update.getExcludedFromTotal() != null) {
+            setExcludedFromTotal(id, update.getExcludedFromTotal());
+        }
+        if (update.getExclusionSource() != null) {
+            setExclusionSource(id, update.getExclusionSource());
+        }
+        if (update.getExclusionReason() != null) {
+            setExclusionReason(id, update.getExclusionReason());
+        }
+    }
+
+    /**
+     * Apply and clear the journal
+     * @return Number of transactions updated
+     */
+    @Transaction
+    default int applyAll() {
+        int count = count();
+        if (count == 0) {
+            return 0;
+        }
+        applyJournal();
+        clear();
+        return count;
+    }
+
+    @Query("INSERT OR IGNORE INTO pending_transaction_updates (transaction_id) VALUES (:transactionId)")
+    void insertIfMissing(long transactionId);
+
+    @Query("UPDATE pending_transaction_updates SET category = :category, category_set = 1 " +
+            "WHERE transaction_id = :transactionId")
+    void setCategory(long transactionId, String category);
+
+    @Query("UPDATE pending_transaction_updates SET note = :note, note_set = 1 " +
+            "WHERE transaction_id = :transactionId")
+    void setNote(long transactionId, String note);
+
+    @Query("UPDATE pending_transaction_updates SET description = :description " +
+            "WHERE transaction_id = :transactionId")
+    void setDescription(long transactionId, String description);
+
+    @Query("UPDATE pending_transaction_updates SET is_excluded_from_total = :excluded " +
+            "WHERE transaction_id = :transactionId")
+    void setExcludedFromTotal(long transactionId, boolean excluded);
+
+    @Query("UPDATE pending_transaction_updates SET exclusion_source = :source " +
+            "WHERE transaction_id = :transactionId")
+    void setExclusionSource(long transactionId, ExclusionSource source);
+
+    @Query("UPDATE pending_transaction_updates SET exclusion_reason = :reason " +
+            "WHERE transaction_id = :transactionId")
+    void setExclusionReason(long transactionId, ExclusionReason reason);
+
+    // Drop the journaled fields of a transaction that is being overwritten as a whole
+    @Query("DELETE FROM pending_transaction_updates WHERE transaction_id = :transactionId")
+    void delete(long transactionId);
+
+    @Query("SELECT COUNT(*) FROM pending_transaction_updates")
+    int count();
+
+    @Query("DELETE FROM pending_transaction_updates")
+    void clear();
+
+    // One statement, so every journaled transaction is updated once and its FTS, rollup and
+    // changed-month triggers fire once. SQLite before 3.33 has no UPDATE ... FROM, so each
+    // column reads its journal row by primary key; a column the journal leaves unset keeps its value
+    @Query("UPDATE transactions SET " +
+            "category = CASE (SELECT p.category_set FROM pending_transaction_updates p " +
+            "WHERE p.transaction_id = transactions.id) WHEN 1 THEN (SELECT p.category " +
+            "FROM pending_transaction_updates p WHERE p.transaction_id = transactions.id) ELSE category END, " +
+            "note = CASE (SELECT p.note_set FROM pending_transaction_updates p " +
+            "WHERE p.transaction_id = transactions.id) WHEN 1 THEN (SELECT p.note " +
+            "FROM pending_transaction_updates p WHERE p.transaction_id = transactions.id) ELSE note END, " +
+            "description = COALESCE((SELECT p.description FROM pending_transaction_updates p " +
+            "WHERE p.transaction_id = transactions.id), description), " +
+            "is_excluded_from_total = COALESCE((SELECT p.is_excluded_from_total FROM pending_transaction_updates p " +
+            "WHERE p.transaction_id = transactions.id), is_excluded_from_total), " +
+            "exclusion_source = COALESCE((SELECT p.exclusion_source FROM pending_transaction_updates p " +
+            "WHERE p.transaction_id = transactions.id), exclusion_source), " +
+            "exclusion_reason = COALESCE((SELECT p.exclusion_reason FROM pending_transaction_updates p " +
+            "WHERE p.transaction_id = transactions.id), exclusion_reason) " +
+            "WHERE id IN (SELECT transaction_id FROM pending_transaction_updates)")
+    void applyJournal();
+}
@@ -0,0 +1,94 @@
+package com.example.expensetracker.database;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses SMS bodies for the transaction_sms table. Bank SMS are short, so plain
+ * deflate barely helps; a preset dictionary of phrases that recur across bank messages
+ * lets even a single message back-reference them.
+ * Stored format: one byte dictionary version, then a zlib stream.
+ */
+public final class SmsBodyCodec {
+    private static final byte DICTIONARY_VERSION = 1;
+
+    // Common bank SMS phrases, picked by hand from the formats the parser handles rather than
+    // trained on a corpus of messages, which the app does not have. Deflate favours matches near
+    // the end of the dictionary, so the most frequent phrases come last. Never edit in place:
+    // add a new version instead.
+    private static final byte[] DICTIONARY_V1 = (
+            "Dear Customer, Thank you for banking with us. Download the app. " +
+            "If not done by you, call our helpline immediately or SMS BLOCK to " +
+            "Do not share your OTP, PIN or CVV with anyone. T&C apply. " +
+            "NEFT IMPS RTGS NACH ECS ATM POS EMI auto-debit mandate standing instruction " +
+            "Credit Card ending Debit Card ending XX Total Due Min Due payment received " +
+            "HDFC Bank SBI ICICI Bank Axis Bank Kotak Bank Yes Bank PNB Bank of Baroda " +
+            "has been credited with INR Info: towards by transfer from VPA @upi @ybl @okaxis @paytm " +
+            "UPI Ref No. Ref no Txn ID transaction of on date at Avl Bal Available Balance: INR " +
+            "Rs. debited from A/c XX on - Avl Bal: Rs. credited to your A/c XX on " +
+            "Your A/c XX is debited for Rs. Your a/c no. XXXXXXXX is debited for INR "
+    ).getBytes(StandardCharsets.UTF_8);
+
+    private SmsBodyCodec() {
+    }
+
+    public static byte[] encode(String body) {
+        byte[] input = body.getBytes(StandardCharsets.UTF_8);
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setDictionary(DICTIONARY_V1);
+            deflater.setInput(input);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + 16);
+            out.write(DICTIONARY_VERSION);
+            byte[] buffer = new byte[512];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @return The SMS text, or null if the data is empty or cannot be decoded
+     */
+    public static String decode(byte[] data) {
+        if (data == null || data.length < 2 || data[0] != DICTIONARY_VERSION) {
+            return null;
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, 1, data.length - 1);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 3);
+            byte[] buffer = new byte[512];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(DICTIONARY_V1);
+                    } else if (inflater.needsInput()) {
+                        // Truncated data
+                        return null;
+                    }
+                }
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            android.util.Log.e("SmsBodyCodec", "Error decoding SMS body", e);
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+}
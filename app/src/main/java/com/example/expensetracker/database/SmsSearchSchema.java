@@ -0,0 +1,43 @@
+package com.example.expensetracker.database;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Full-text index of the SMS bodies. transaction_sms stores them compressed, which SQLite
+ * cannot tokenize, so {@link TransactionDao#insert} indexes the decoded body next to the
+ * compressed one. The table is contentless: it holds the index but not another copy of the text.
+ *
+ * SQLite rejects DELETE on a contentless FTS4 table, so neither the delete path nor a trigger
+ * can remove a deleted transaction's body and it stays in the index under its id. It matches
+ * no transaction as long as that id is never reused: ids are AUTOINCREMENT, and
+ * TransactionDatabase#rebuildTransactionsTable carries the counter over to the rebuilt table.
+ * Room cannot declare a contentless table, so it is created here.
+ */
+final class SmsSearchSchema {
+    static final String TABLE = "transaction_sms_fts";
+
+    private SmsSearchSchema() {
+    }
+
+    /**
+     * Create the index table. Safe to call on every open.
+     */
+    static void create(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE + " USING FTS4(" +
+                "body, tokenize=unicode61, content=\"\", prefix=\"2,3\")");
+    }
+
+    /**
+     * Index the bodies already stored in transaction_sms
+     */
+    static void indexExisting(SupportSQLiteDatabase database) {
+        try (Cursor cursor = database.query("SELECT transaction_id, body_deflated FROM transaction_sms")) {
+            while (cursor.moveToNext()) {
+                database.execSQL("INSERT INTO " + TABLE + " (docid, body) VALUES (?, ?)",
+                        new Object[]{cursor.getLong(0), SmsBodyCodec.decode(cursor.getBlob(1))});
+            }
+        }
+    }
+}
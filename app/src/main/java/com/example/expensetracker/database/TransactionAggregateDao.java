@@ -0,0 +1,105 @@
+package com.example.expensetracker.database;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.RawQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import com.example.expensetracker.models.TransactionType;
+
+import java.util.List;
+
+/**
+ * Summary queries over the transactions table. Sums and counts are computed by SQLite
+ * from the daily_rollups table, so summaries, charts and widgets read about one row per day
+ * instead of every transaction in the range. Totals skip rows excluded from totals,
+ * matching the summary card.
+ */
+@Dao
+public interface TransactionAggregateDao {
+
+    // Debit and credit totals of the non-excluded transactions in a date range
+    default AmountTotals getNonExcludedTotalsBetweenDates(long startDate, long endDate) {
+        DailyRollupSchema.DayWindow days = DailyRollupSchema.DayWindow.within(startDate, endDate);
+        return getNonExcludedTotals(startDate, endDate, days.firstDay, days.endDay);
+    }
+
+    // Spending per category, largest first
+    default List<CategoryTotal> getDebitTotalsByCategory(long startDate, long endDate) {
+        DailyRollupSchema.DayWindow days = DailyRollupSchema.DayWindow.within(startDate, endDate);
+        return getDebitTotalsByCategory(startDate, endDate, days.firstDay, days.endDay);
+    }
+
+    // Spending per local calendar day, oldest day first
+    default List<DailyTotal> getDailyDebitTotals(long startDate, long endDate) {
+        DailyRollupSchema.DayWindow days = DailyRollupSchema.DayWindow.within(startDate, endDate);
+        return getDailyDebitTotals(startDate, endDate, days.firstDay, days.endDay);
+    }
+
+    // Debit and credit totals per bank
+    default List<BankTotal> getTotalsByBank(long startDate, long endDate) {
+        DailyRollupSchema.DayWindow days = DailyRollupSchema.DayWindow.within(startDate, endDate);
+        return getTotalsByBank(startDate, endDate, days.firstDay, days.endDay);
+    }
+
+    /**
+     * Count and totals for a {@link TransactionSearchFilter#buildTotalsQuery()} query
+     */
+    @RawQuery
+    AmountTotals getTotalsWithFilterSync(SupportSQLiteQuery query);
+
+    // The queries below read whole days in [firstDay, endDay) from daily_rollups
+    // and the partial days at the edges of [startDate, endDate] from transactions
+
+    @Query("SELECT COALESCE(SUM(count), 0) AS transactionCount, " +
+            "COALESCE(SUM(CASE WHEN type = " + TransactionType.CODE_DEBIT + " THEN sum_paise END), 0) AS debitPaise, " +
+            "COALESCE(SUM(CASE WHEN type = " + TransactionType.CODE_CREDIT + " THEN sum_paise END), 0) AS creditPaise " +
+            "FROM " + DailyRollupSchema.RANGE_SOURCE + " WHERE excluded = 0")
+    AmountTotals getNonExcludedTotals(long startDate, long endDate, long firstDay, long endDay);
+
+    @Query("SELECT NULLIF(category, '') AS category, SUM(sum_paise) AS totalPaise, " +
+            "SUM(count) AS transactionCount " +
+            "FROM " + DailyRollupSchema.RANGE_SOURCE + " WHERE type = " + TransactionType.CODE_DEBIT + " AND excluded = 0 " +
+            "GROUP BY category ORDER BY totalPaise DESC")
+    List<CategoryTotal> getDebitTotalsByCategory(long startDate, long endDate, long firstDay, long endDay);
+
+    @Query("SELECT day AS dayStart, SUM(sum_paise) AS totalPaise, SUM(count) AS transactionCount " +
+            "FROM " + DailyRollupSchema.RANGE_SOURCE + " WHERE type = " + TransactionType.CODE_DEBIT + " AND excluded = 0 " +
+            "GROUP BY day ORDER BY day ASC")
+    List<DailyTotal> getDailyDebitTotals(long startDate, long endDate, long firstDay, long endDay);
+
+    @Query("SELECT NULLIF(bank, '') AS bank, SUM(count) AS transactionCount, " +
+            "COALESCE(SUM(CASE WHEN type = " + TransactionType.CODE_DEBIT + " THEN sum_paise END), 0) AS debitPaise, " +
+            "COALESCE(SUM(CASE WHEN type = " + TransactionType.CODE_CREDIT + " THEN sum_paise END), 0) AS creditPaise " +
+            "FROM " + DailyRollupSchema.RANGE_SOURCE + " WHERE excluded = 0 " +
+            "GROUP BY bank ORDER BY debitPaise DESC")
+    List<BankTotal> getTotalsByBank(long startDate, long endDate, long firstDay, long endDay);
+
+    // Statistics classes; amounts are whole paise, see Money
+
+    class AmountTotals {
+        public int transactionCount;
+        public long debitPaise;
+        public long creditPaise;
+    }
+
+    class CategoryTotal {
+        public String category;
+        public long totalPaise;
+        public int transactionCount;
+    }
+
+    // One day of spending; dayStart is local midnight in millis
+    class DailyTotal {
+        public long dayStart;
+        public long totalPaise;
+        public int transactionCount;
+    }
+
+    class BankTotal {
+        public String bank;
+        public int transactionCount;
+        public long debitPaise;
+        public long creditPaise;
+    }
+}
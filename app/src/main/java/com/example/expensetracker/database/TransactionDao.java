@@ -3,23 +3,73 @@ package com.example.expensetracker.database;
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.RawQuery;
+import androidx.room.SkipQueryVerification;
 import androidx.room.Update;
 import androidx.sqlite.db.SupportSQLiteQuery;
 
+import com.example.expensetracker.models.ExclusionReason;
 import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.models.TransactionSms;
+import com.example.expensetracker.models.TransactionType;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Dao
 public interface TransactionDao {
+    // Id lists are split into chunks this size to stay under SQLite's default limit of 999 bound variables
+    int IDS_PER_QUERY = 500;
+
     // Basic CRUD operations
     @Insert
-    void insert(Transaction transaction);
+    long insertRow(Transaction transaction);
+
+    // Insert a transaction and its compressed SMS body, if any
+    @androidx.room.Transaction
+    default void insert(Transaction transaction) {
+        long id = insertRow(transaction);
+        transaction.setId(id);
+        if (transaction.getOriginalSms() != null) {
+            insertSms(new TransactionSms(id, SmsBodyCodec.encode(transaction.getOriginalSms())));
+            indexSmsBody(id, transaction.getOriginalSms());
+        }
+    }
+
+    // Insert transactions in one database transaction
+    @androidx.room.Transaction
+    default List<Long> insertAll(List<Transaction> transactions) {
+        List<Long> ids = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            insert(transaction);
+            ids.add(transaction.getId());
+        }
+        return ids;
+    }
 
     @Update
     void update(Transaction transaction);
 
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertSms(TransactionSms sms);
+
+    // The compressed body cannot be searched, so the text goes into its own index.
+    // The table is created outside Room, see SmsSearchSchema, so Room cannot verify this query
+    @SkipQueryVerification
+    @Query("INSERT INTO transaction_sms_fts (docid, body) VALUES (:transactionId, :body)")
+    void indexSmsBody(long transactionId, String body);
+
+    @Query("SELECT body_deflated FROM transaction_sms WHERE transaction_id = :transactionId")
+    byte[] getSmsDeflated(long transactionId);
+
+    // The SMS body is only loaded on demand, e.g. by TransactionEditDialog
+    default String getOriginalSms(long transactionId) {
+        return SmsBodyCodec.decode(getSmsDeflated(transactionId));
+    }
+
     // New method to update a transaction's category
     @Query("UPDATE transactions SET category = :category WHERE id = :transactionId")
     void updateCategory(long transactionId, String category);
@@ -60,14 +110,14 @@ public interface TransactionDao {
 
     // Type based queries
     @Query("SELECT * FROM transactions WHERE type = :type")
-    LiveData<List<Transaction>> getTransactionsByType(String type);
+    LiveData<List<Transaction>> getTransactionsByType(TransactionType type);
 
     // Duplicate prevention
     @Query("SELECT EXISTS(SELECT 1 FROM transactions WHERE messageHash = :hash LIMIT 1)")
     boolean hasTransaction(String hash);
 
     @Query("SELECT * FROM transactions WHERE bank = :bank AND type = :type")
-    List<Transaction> getTransactionsByBankAndTypeSync(String bank, String type);
+    List<Transaction> getTransactionsByBankAndTypeSync(String bank, TransactionType type);
 
     @Query("SELECT * FROM transactions WHERE messageHash = :hash LIMIT 1")
     Transaction getTransactionByHash(String hash);
@@ -76,13 +126,7 @@ public interface TransactionDao {
     boolean hasAnyTransactions();
 
     @Query("SELECT * FROM transactions WHERE type = :type")
-    List<Transaction> getTransactionsByTypeSync(String type);
-
-    // Statistics class for category totals
-    static class CategoryTotal {
-        public String category;
-        public double total;
-    }
+    List<Transaction> getTransactionsByTypeSync(TransactionType type);
 
     /**
      * Same as above but returns results synchronously
@@ -91,19 +135,31 @@ public interface TransactionDao {
     List<Transaction> searchTransactionsWithFilterSync(SupportSQLiteQuery query);
 
     /**
-     * Simple text search across multiple fields
-     * @param query Text to search for
-     * @return LiveData list of matching transactions
+     * Get transactions by id, in the order of the ids; ids without a row are skipped
      */
-    @Query("SELECT * FROM transactions WHERE " +
-            "description LIKE '%' || :query || '%' OR " +
-            "merchant_name LIKE '%' || :query || '%' OR " +
-            "category LIKE '%' || :query || '%' OR " +
-            "bank LIKE '%' || :query || '%' OR " +
-            "original_sms LIKE '%' || :query || '%' OR " +
-            "note LIKE '%' || :query || '%' " +
-            "ORDER BY date DESC")
-    List<Transaction> searchTransactions(String query);
+    default List<Transaction> getTransactionsByIds(List<Long> ids) {
+        Map<Long, Transaction> rows = new HashMap<>(ids.size() * 2);
+        for (int start = 0; start < ids.size(); start += IDS_PER_QUERY) {
+            for (Transaction transaction : getTransactionsByIdsSync(
+                    ids.subList(start, Math.min(start + IDS_PER_QUERY, ids.size())))) {
+                rows.put(transaction.getId(), transaction);
+            }
+        }
+
+        // IN (...) returns rows in table order
+        List<Transaction> results = new ArrayList<>(rows.size());
+        for (Long id : ids) {
+            Transaction transaction = rows.get(id);
+            if (transaction != null) {
+                results.add(transaction);
+            }
+        }
+        return results;
+    }
+
+    // At most IDS_PER_QUERY ids, use getTransactionsByIds
+    @Query("SELECT * FROM transactions WHERE id IN (:ids)")
+    List<Transaction> getTransactionsByIdsSync(List<Long> ids);
 
     /**
      * Get count of auto-excluded transactions from OTHER banks
@@ -132,34 +188,27 @@ public interface TransactionDao {
      * Get all automatically excluded transactions (both duplicates and others)
      */
     @Query("SELECT * FROM transactions WHERE is_excluded_from_total = 1 AND " +
-            "(is_other_debit = 1 OR description LIKE '%[DUPLICATE]%' OR description LIKE '%[AUTO-EXCLUDED]%') " +
-            "ORDER BY date DESC")
+            "(is_other_debit = 1 OR exclusion_reason IN (" + ExclusionReason.CODE_DUPLICATE + ", " +
+            ExclusionReason.CODE_AUTO_EXCLUDED + ")) ORDER BY date DESC")
     List<Transaction> getAllAutomaticallyExcludedTransactionsSync();
 
     /**
      * Get all duplicate transactions specifically
      */
-    @Query("SELECT * FROM transactions WHERE description LIKE '%[DUPLICATE]%' ORDER BY date DESC")
+    @Query("SELECT * FROM transactions WHERE exclusion_reason = " + ExclusionReason.CODE_DUPLICATE +
+            " ORDER BY date DESC")
     List<Transaction> getDuplicateTransactionsSync();
 
     /**
      * Get all excluded transactions from unknown sources (non-duplicates)
      */
     @Query("SELECT * FROM transactions WHERE is_excluded_from_total = 1 AND is_other_debit = 1 " +
-            "AND description NOT LIKE '%[DUPLICATE]%' ORDER BY date DESC")
+            "AND exclusion_reason != " + ExclusionReason.CODE_DUPLICATE + " ORDER BY date DESC")
     List<Transaction> getUnknownSourceExcludedTransactionsSync();
 
-    @Query("SELECT * FROM transactions WHERE date BETWEEN :startDate AND :endDate ORDER BY date DESC LIMIT :limit OFFSET :offset")
-    List<Transaction> getTransactionsBetweenDatesPaginatedSync(long startDate, long endDate, int limit, int offset);
-
-    // Updated query to exclude ALL excluded transactions (both auto and manual)
-    @Query("SELECT * FROM transactions WHERE date BETWEEN :startDate AND :endDate AND is_excluded_from_total = 0 ORDER BY date DESC LIMIT :limit OFFSET :offset")
-    List<Transaction> getNonExcludedTransactionsBetweenDatesPaginatedSync(long startDate, long endDate, int limit, int offset);
-
-    // New query to get only manually excluded transactions
-    @Query("SELECT * FROM transactions WHERE date BETWEEN :startDate AND :endDate AND is_excluded_from_total = 1 AND is_other_debit = 0 ORDER BY date DESC LIMIT :limit OFFSET :offset")
-    List<Transaction> getManuallyExcludedTransactionsPaginatedSync(long startDate, long endDate, int limit, int offset);
-
+    @Query("SELECT COUNT(*) FROM transactions WHERE date BETWEEN :startDate AND :endDate " +
+            "AND is_excluded_from_total = 1 AND is_other_debit = 0")
+    int getManuallyExcludedTransactionCountBetweenDates(long startDate, long endDate);
 
     @Query("SELECT COUNT(*) FROM transactions WHERE date BETWEEN :startDate AND :endDate")
     int getTransactionCountBetweenDates(long startDate, long endDate);
@@ -184,4 +233,21 @@ public interface TransactionDao {
      */
     @Query("DELETE FROM transactions WHERE id = :transactionId")
     void deleteTransactionById(long transactionId);
+
+    /**
+     * Delete transactions by id in one database transaction
+     * @return Number of transactions deleted
+     */
+    @androidx.room.Transaction
+    default int deleteTransactionsByIds(List<Long> ids) {
+        int deleted = 0;
+        for (int start = 0; start < ids.size(); start += IDS_PER_QUERY) {
+            deleted += deleteTransactionsByIdsChunk(ids.subList(start, Math.min(start + IDS_PER_QUERY, ids.size())));
+        }
+        return deleted;
+    }
+
+    // At most IDS_PER_QUERY ids, use deleteTransactionsByIds
+    @Query("DELETE FROM transactions WHERE id IN (:ids)")
+    int deleteTransactionsByIdsChunk(List<Long> ids);
 }
\ No newline at end of file
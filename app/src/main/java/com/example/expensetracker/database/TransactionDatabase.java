@@ -1,22 +1,46 @@
 package com.example.expensetracker.database;
 
+import com.example.expensetracker.models.ChangedMonth;
 import com.example.expensetracker.models.CustomCategory;
+import com.example.expensetracker.models.DailyRollup;
+import com.example.expensetracker.models.ExclusionReason;
 import com.example.expensetracker.models.ExclusionPattern;
+import com.example.expensetracker.models.PendingTransactionUpdate;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.TypeConverters;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.models.TransactionFts;
+import com.example.expensetracker.models.TransactionSms;
+import com.example.expensetracker.utils.AppExecutors;
 
-@Database(entities = {Transaction.class, ExclusionPattern.class, CustomCategory.class},
-        version = 7, exportSchema = false)
+import java.util.TimeZone;
+
+@Database(entities = {Transaction.class, TransactionFts.class, TransactionSms.class, DailyRollup.class,
+        ExclusionPattern.class, CustomCategory.class, ChangedMonth.class, PendingTransactionUpdate.class},
+        version = 20, exportSchema = true)
+@TypeConverters(Converters.class)
 public abstract class TransactionDatabase extends RoomDatabase {
+    private static final String TAG = "TransactionDatabase";
     private static TransactionDatabase instance;
+
+    // Page cache of the connection running the statement, in KiB (negative = size, not pages)
+    private static final int CACHE_SIZE_KIB = 8 * 1024;
     public abstract TransactionDao transactionDao();
+    public abstract TransactionAggregateDao transactionAggregateDao();
+    public abstract DailyRollupDao dailyRollupDao();
+    public abstract ChangedMonthDao changedMonthDao();
+    public abstract PendingTransactionUpdateDao pendingTransactionUpdateDao();
     public abstract ExclusionPatternDao exclusionPatternDao();
     public abstract CustomCategoryDao customCategoryDao();
 
@@ -78,17 +102,398 @@ public abstract class TransactionDatabase extends RoomDatabase {
         }
     };
 
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Composite indexes so the date range queries with exclusion/bank/type
+            // filters are served by an index instead of a full table scan
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_transactions_is_excluded_from_total_date " +
+                    "ON transactions (is_excluded_from_total, date)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_transactions_is_other_debit_is_excluded_from_total_date " +
+                    "ON transactions (is_other_debit, is_excluded_from_total, date)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_transactions_bank_type_date " +
+                    "ON transactions (bank, type, date)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_transactions_type_date " +
+                    "ON transactions (type, date)");
+            database.execSQL("ANALYZE transactions");
+        }
+    };
+
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // External-content FTS4 index over the searchable text columns.
+            // Table and trigger definitions must match what Room generates for TransactionFts.
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `transactions_fts` USING FTS4(" +
+                    "`description` TEXT, `merchant_name` TEXT, `category` TEXT, `bank` TEXT, " +
+                    "`original_sms` TEXT, `note` TEXT, " +
+                    "tokenize=unicode61, content=`transactions`, prefix=`2,3`)");
+
+            String columns = "`description`, `merchant_name`, `category`, `bank`, `original_sms`, `note`";
+            String newValues = "NEW.`description`, NEW.`merchant_name`, NEW.`category`, NEW.`bank`, " +
+                    "NEW.`original_sms`, NEW.`note`";
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_BEFORE_UPDATE " +
+                    "BEFORE UPDATE ON `transactions` BEGIN DELETE FROM `transactions_fts` " +
+                    "WHERE `docid`=OLD.`rowid`; END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_BEFORE_DELETE " +
+                    "BEFORE DELETE ON `transactions` BEGIN DELETE FROM `transactions_fts` " +
+                    "WHERE `docid`=OLD.`rowid`; END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_AFTER_UPDATE " +
+                    "AFTER UPDATE ON `transactions` BEGIN INSERT INTO `transactions_fts`(`docid`, " + columns + ") " +
+                    "VALUES (NEW.`rowid`, " + newValues + "); END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_AFTER_INSERT " +
+                    "AFTER INSERT ON `transactions` BEGIN INSERT INTO `transactions_fts`(`docid`, " + columns + ") " +
+                    "VALUES (NEW.`rowid`, " + newValues + "); END");
+
+            // Index the existing history
+            database.execSQL("INSERT INTO transactions_fts(transactions_fts) VALUES('rebuild')");
+        }
+    };
+
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Per-day sums kept in sync by triggers, so long-range summaries read one row per day
+            database.execSQL("CREATE TABLE IF NOT EXISTS `daily_rollups` (" +
+                    "`day` INTEGER NOT NULL, `category` TEXT NOT NULL, `bank` TEXT NOT NULL, " +
+                    "`type` TEXT NOT NULL, `excluded` INTEGER NOT NULL, " +
+                    "`sum_paise` INTEGER NOT NULL, `count` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`day`, `category`, `bank`, `type`, `excluded`))");
+            // The triggers and the backfill read amount_paise, so they are created by MIGRATION_11_12
+        }
+    };
+
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Move original_sms out of the transactions rows into the compressed transaction_sms table.
+            // SQLite on older Android cannot drop a column, so the transactions table is rebuilt
+            // once the bodies are copied out.
+            database.execSQL("CREATE TABLE IF NOT EXISTS `transaction_sms` (" +
+                    "`transaction_id` INTEGER NOT NULL, `body_deflated` BLOB, PRIMARY KEY(`transaction_id`), " +
+                    "FOREIGN KEY(`transaction_id`) REFERENCES `transactions`(`id`) " +
+                    "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            try (Cursor cursor = database.query(
+                    "SELECT id, original_sms FROM transactions WHERE original_sms IS NOT NULL")) {
+                while (cursor.moveToNext()) {
+                    ContentValues values = new ContentValues();
+                    values.put("transaction_id", cursor.getLong(0));
+                    values.put("body_deflated", SmsBodyCodec.encode(cursor.getString(1)));
+                    database.insert("transaction_sms", SQLiteDatabase.CONFLICT_REPLACE, values);
+                }
+            }
+
+            String columns = "`id`, `bank`, `type`, `amount`, `date`, `description`, `messageHash`, " +
+                    "`category`, `merchant_name`, `is_other_debit`, `is_recurring`, `recurring_frequency`, " +
+                    "`group_key`, `is_excluded_from_total`, `exclusion_source`, `note`";
+            rebuildTransactionsTable(database,
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `bank` TEXT, `type` TEXT, " +
+                    "`amount` REAL NOT NULL, `date` INTEGER NOT NULL, `description` TEXT, `messageHash` TEXT, " +
+                    "`category` TEXT, `merchant_name` TEXT, `is_other_debit` INTEGER NOT NULL DEFAULT 0, " +
+                    "`is_recurring` INTEGER NOT NULL DEFAULT 0, `recurring_frequency` INTEGER, `group_key` TEXT, " +
+                    "`is_excluded_from_total` INTEGER NOT NULL DEFAULT 0, `exclusion_source` TEXT, `note` TEXT",
+                    columns, columns);
+            // Rollup triggers are created by MIGRATION_11_12
+        }
+    };
+
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Store amounts as whole paise instead of REAL rupees so sums and comparisons are exact.
+            // The column type changes, so the transactions table is rebuilt.
+            String columns = "`id`, `bank`, `type`, `date`, `description`, `messageHash`, " +
+                    "`category`, `merchant_name`, `is_other_debit`, `is_recurring`, `recurring_frequency`, " +
+                    "`group_key`, `is_excluded_from_total`, `exclusion_source`, `note`";
+            rebuildTransactionsTable(database,
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `bank` TEXT, `type` TEXT, " +
+                    "`amount_paise` INTEGER NOT NULL, `date` INTEGER NOT NULL, `description` TEXT, `messageHash` TEXT, " +
+                    "`category` TEXT, `merchant_name` TEXT, `is_other_debit` INTEGER NOT NULL DEFAULT 0, " +
+                    "`is_recurring` INTEGER NOT NULL DEFAULT 0, `recurring_frequency` INTEGER, `group_key` TEXT, " +
+                    "`is_excluded_from_total` INTEGER NOT NULL DEFAULT 0, `exclusion_source` TEXT, `note` TEXT",
+                    columns + ", `amount_paise`",
+                    columns + ", CAST(ROUND(`amount` * 100) AS INTEGER)");
+            DailyRollupSchema.createTriggers(database);
+
+            // Roll up the existing history from the exact amounts
+            database.execSQL("DELETE FROM daily_rollups");
+            database.execSQL(DailyRollupSchema.INSERT_FROM_TRANSACTIONS);
+        }
+    };
+
+    static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Store type and exclusion_source as integer codes (see Converters) instead of TEXT.
+            // The column types change, so the transactions table is rebuilt; names are
+            // translated through the lookup tables.
+            LookupTables.create(database);
+            String columns = "`id`, `bank`, `amount_paise`, `date`, `description`, `messageHash`, " +
+                    "`category`, `merchant_name`, `is_other_debit`, `is_recurring`, `recurring_frequency`, " +
+                    "`group_key`, `is_excluded_from_total`, `note`";
+            rebuildTransactionsTable(database,
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `bank` TEXT, `type` INTEGER, " +
+                    "`amount_paise` INTEGER NOT NULL, `date` INTEGER NOT NULL, `description` TEXT, `messageHash` TEXT, " +
+                    "`category` TEXT, `merchant_name` TEXT, `is_other_debit` INTEGER NOT NULL DEFAULT 0, " +
+                    "`is_recurring` INTEGER NOT NULL DEFAULT 0, `recurring_frequency` INTEGER, `group_key` TEXT, " +
+                    "`is_excluded_from_total` INTEGER NOT NULL DEFAULT 0, `exclusion_source` INTEGER, `note` TEXT",
+                    columns + ", `type`, `exclusion_source`",
+                    columns + ", " +
+                    "(SELECT code FROM transaction_types WHERE name = UPPER(transactions.type)), " +
+                    "(SELECT code FROM exclusion_sources WHERE name = transactions.exclusion_source)");
+
+            // daily_rollups keys on the type code now; it is derived data, so rebuild it
+            database.execSQL("DROP TABLE IF EXISTS daily_rollups");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `daily_rollups` (" +
+                    "`day` INTEGER NOT NULL, `category` TEXT NOT NULL, `bank` TEXT NOT NULL, " +
+                    "`type` INTEGER NOT NULL, `excluded` INTEGER NOT NULL, " +
+                    "`sum_paise` INTEGER NOT NULL, `count` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`day`, `category`, `bank`, `type`, `excluded`))");
+            DailyRollupSchema.createTriggers(database);
+            database.execSQL(DailyRollupSchema.INSERT_FROM_TRANSACTIONS);
+        }
+    };
+
+    static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Indexed exclusion_reason column instead of LIKE scans for tags in the description
+            database.execSQL("ALTER TABLE transactions ADD COLUMN exclusion_reason INTEGER DEFAULT 0");
+            database.execSQL("UPDATE transactions SET exclusion_reason = " + ExclusionReason.CODE_DUPLICATE +
+                    " WHERE description LIKE '%[DUPLICATE]%'");
+            database.execSQL("UPDATE transactions SET exclusion_reason = " + ExclusionReason.CODE_AUTO_EXCLUDED +
+                    " WHERE description LIKE '%[AUTO-EXCLUDED]%' AND exclusion_reason = " + ExclusionReason.CODE_NONE);
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_transactions_exclusion_reason_date " +
+                    "ON transactions (exclusion_reason, date)");
+        }
+    };
+
+    static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Local time-of-day and weekday stored per row, so time-of-day filters use an index
+            database.execSQL("ALTER TABLE transactions ADD COLUMN local_minute_of_day INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE transactions ADD COLUMN local_day_of_week INTEGER NOT NULL DEFAULT 0");
+            String localTime = "date / 1000, 'unixepoch', 'localtime'";
+            database.execSQL("UPDATE transactions SET " +
+                    "local_minute_of_day = CAST(strftime('%H', " + localTime + ") AS INTEGER) * 60 + " +
+                    "CAST(strftime('%M', " + localTime + ") AS INTEGER), " +
+                    "local_day_of_week = CAST(strftime('%w', " + localTime + ") AS INTEGER)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_transactions_local_minute_of_day " +
+                    "ON transactions (local_minute_of_day)");
+        }
+    };
+
+    static final Migration MIGRATION_15_16 = new Migration(15, 16) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Months touched by writes, read by the in-memory month cache; triggers are created on open
+            database.execSQL("CREATE TABLE IF NOT EXISTS `changed_months` (" +
+                    "`month` INTEGER NOT NULL, PRIMARY KEY(`month`))");
+        }
+    };
+
+    static final Migration MIGRATION_16_17 = new Migration(16, 17) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Journal of field updates not yet applied to transactions, see TransactionUpdateQueue
+            database.execSQL("CREATE TABLE IF NOT EXISTS `pending_transaction_updates` (" +
+                    "`transaction_id` INTEGER NOT NULL, `category` TEXT, " +
+                    "`category_set` INTEGER NOT NULL DEFAULT 0, `note` TEXT, " +
+                    "`note_set` INTEGER NOT NULL DEFAULT 0, `description` TEXT, " +
+                    "`is_excluded_from_total` INTEGER, `exclusion_source` INTEGER, " +
+                    "`exclusion_reason` INTEGER, PRIMARY KEY(`transaction_id`))");
+        }
+    };
+
+    static final Migration MIGRATION_17_18 = new Migration(17, 18) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // SMS bodies left transactions_fts when they were moved into transaction_sms;
+            // index them again, decoded, in their own contentless table
+            SmsSearchSchema.create(database);
+            SmsSearchSchema.indexExisting(database);
+        }
+    };
+
+    static final Migration MIGRATION_18_19 = new Migration(18, 19) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Changed months get a version instead of being deleted once read, so the month
+            // cache only reads the table. The months recorded so far are version 0; a new
+            // process starts with an empty cache, so they need no eviction
+            database.execSQL("ALTER TABLE changed_months ADD COLUMN `version` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_changed_months_version` " +
+                    "ON `changed_months` (`version`)");
+            ChangedMonthSchema.dropTriggers(database);
+            ChangedMonthSchema.createTriggers(database);
+        }
+    };
+
+    static final Migration MIGRATION_19_20 = new Migration(19, 20) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+            // Amount sorts of the paged list; rowid is the implicit last column, so the index
+            // also orders equal amounts by id
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_transactions_amount_paise` " +
+                    "ON `transactions` (`amount_paise`)");
+        }
+    };
+
+    // Every migration, in order; also run by the migration tests
+    static final Migration[] ALL_MIGRATIONS = {
+            MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7,
+            MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11,
+            MIGRATION_11_12, MIGRATION_12_13, MIGRATION_13_14,
+            MIGRATION_14_15, MIGRATION_15_16, MIGRATION_16_17, MIGRATION_17_18,
+            MIGRATION_18_19, MIGRATION_19_20
+    };
+
+    /**
+     * Rebuild the transactions table with new column definitions, copying every row through
+     * selectColumns, which are evaluated against the current table.
+     *
+     * The new table is created under a temporary name and renamed once the old one is dropped.
+     * Renaming the old table away instead would, from SQLite 3.26 on, also rewrite the foreign key
+     * of transaction_sms to follow it to the temporary name. Foreign keys are not enforced while
+     * Room migrates, so dropping the old table does not cascade into transaction_sms.
+     *
+     * The AUTOINCREMENT counter is carried over. The copy alone would only raise the new table's to
+     * the highest id left, handing the ids of deleted rows out again, and the SMS index still
+     * holds the text of deleted transactions under their ids, see {@link SmsSearchSchema}.
+     */
+    private static void rebuildTransactionsTable(SupportSQLiteDatabase database, String columnDefinitions,
+                                                 String insertColumns, String selectColumns) {
+        dropTransactionsDependents(database);
+        database.execSQL("DROP TABLE IF EXISTS transactions_new");
+        database.execSQL("CREATE TABLE `transactions_new` (" + columnDefinitions + ")");
+        database.execSQL("INSERT INTO transactions_new (" + insertColumns + ") " +
+                "SELECT " + selectColumns + " FROM transactions");
+        long sequence = 0;
+        try (Cursor cursor = database.query("SELECT seq FROM sqlite_sequence WHERE name = 'transactions'")) {
+            if (cursor.moveToFirst()) {
+                sequence = cursor.getLong(0);
+            }
+        }
+        database.execSQL("DROP TABLE transactions");
+        database.execSQL("ALTER TABLE transactions_new RENAME TO transactions");
+        database.execSQL("DELETE FROM sqlite_sequence WHERE name = 'transactions'");
+        database.execSQL("INSERT INTO sqlite_sequence (name, seq) " +
+                "SELECT 'transactions', MAX(?, IFNULL(MAX(id), 0)) FROM transactions", new Object[]{sequence});
+        createTransactionsDependents(database);
+    }
+
+    // Triggers and the FTS index attached to the transactions table, dropped before a table rebuild
+    private static void dropTransactionsDependents(SupportSQLiteDatabase database) {
+        String[] triggers = {
+                "room_fts_content_sync_transactions_fts_BEFORE_UPDATE",
+                "room_fts_content_sync_transactions_fts_BEFORE_DELETE",
+                "room_fts_content_sync_transactions_fts_AFTER_UPDATE",
+                "room_fts_content_sync_transactions_fts_AFTER_INSERT",
+                "daily_rollups_AFTER_INSERT",
+                "daily_rollups_AFTER_DELETE",
+                "daily_rollups_AFTER_UPDATE",
+                "changed_months_AFTER_INSERT",
+                "changed_months_AFTER_DELETE",
+                "changed_months_AFTER_UPDATE"
+        };
+        for (String trigger : triggers) {
+            database.execSQL("DROP TRIGGER IF EXISTS " + trigger);
+        }
+        database.execSQL("DROP TABLE IF EXISTS transactions_fts");
+    }
+
+    // Indexes, FTS index and FTS sync triggers for a rebuilt transactions table
+    private static void createTransactionsDependents(SupportSQLiteDatabase database) {
+        // Indexes went with the old table
+        database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_transactions_messageHash` ON `transactions` (`messageHash`)");
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_transactions_date` ON `transactions` (`date`)");
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_transactions_category` ON `transactions` (`category`)");
+        database.execSQL("CREATE INDEX IF NOT EXISTS index_transactions_is_excluded_from_total_date " +
+                "ON transactions (is_excluded_from_total, date)");
+        database.execSQL("CREATE INDEX IF NOT EXISTS index_transactions_is_other_debit_is_excluded_from_total_date " +
+                "ON transactions (is_other_debit, is_excluded_from_total, date)");
+        database.execSQL("CREATE INDEX IF NOT EXISTS index_transactions_bank_type_date " +
+                "ON transactions (bank, type, date)");
+        database.execSQL("CREATE INDEX IF NOT EXISTS index_transactions_type_date " +
+                "ON transactions (type, date)");
+
+        // Full-text index without the SMS body, which is no longer stored as text; bodies are
+        // indexed separately, see SmsSearchSchema
+        database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `transactions_fts` USING FTS4(" +
+                "`description` TEXT, `merchant_name` TEXT, `category` TEXT, `bank` TEXT, `note` TEXT, " +
+                "tokenize=unicode61, content=`transactions`, prefix=`2,3`)");
+        String ftsColumns = "`description`, `merchant_name`, `category`, `bank`, `note`";
+        String newValues = "NEW.`description`, NEW.`merchant_name`, NEW.`category`, NEW.`bank`, NEW.`note`";
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_BEFORE_UPDATE " +
+                "BEFORE UPDATE ON `transactions` BEGIN DELETE FROM `transactions_fts` " +
+                "WHERE `docid`=OLD.`rowid`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_BEFORE_DELETE " +
+                "BEFORE DELETE ON `transactions` BEGIN DELETE FROM `transactions_fts` " +
+                "WHERE `docid`=OLD.`rowid`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_AFTER_UPDATE " +
+                "AFTER UPDATE ON `transactions` BEGIN INSERT INTO `transactions_fts`(`docid`, " + ftsColumns + ") " +
+                "VALUES (NEW.`rowid`, " + newValues + "); END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_transactions_fts_AFTER_INSERT " +
+                "AFTER INSERT ON `transactions` BEGIN INSERT INTO `transactions_fts`(`docid`, " + ftsColumns + ") " +
+                "VALUES (NEW.`rowid`, " + newValues + "); END");
+        database.execSQL("INSERT INTO transactions_fts(transactions_fts) VALUES('rebuild')");
+    }
+
+    private static final RoomDatabase.Callback OPEN_CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(SupportSQLiteDatabase database) {
+            // With WAL, NORMAL only syncs at checkpoints: a crash can lose the last commits but
+            // never corrupts the database, and per-SMS commits during an import stop waiting on fsync
+            database.execSQL("PRAGMA synchronous = NORMAL");
+            database.execSQL("PRAGMA cache_size = -" + CACHE_SIZE_KIB);
+
+            // Room does not create triggers for plain entities or tables it does not declare, so make
+            // sure the triggers, lookup tables and SMS index exist on fresh and destructively migrated
+            // databases too
+            DailyRollupSchema.createTriggers(database);
+            ChangedMonthSchema.createTriggers(database);
+            LookupTables.create(database);
+            SmsSearchSchema.create(database);
+
+            // Rollup days are local midnights; recompute them only when the time zone changed
+            if (DailyRollupSchema.rebuildIfZoneChanged(database, TimeZone.getDefault().getID())) {
+                Log.d(TAG, "Daily rollups rebuilt for time zone " + TimeZone.getDefault().getID());
+            }
+
+            // Migrations that move data out of a table (e.g. MIGRATION_10_11) leave free pages behind;
+            // VACUUM cannot run inside the migration transaction, so shrink the file here
+            try (Cursor freePages = database.query("PRAGMA freelist_count");
+                 Cursor pages = database.query("PRAGMA page_count")) {
+                if (freePages.moveToFirst() && pages.moveToFirst()
+                        && freePages.getLong(0) * 4 > pages.getLong(0)) {
+                    database.execSQL("VACUUM");
+                }
+            }
+        }
+    };
+
     public static synchronized TransactionDatabase getInstance(Context context) {
         if (instance == null) {
-            instance = Room.databaseBuilder(
-                            context.getApplicationContext(),
-                            TransactionDatabase.class,
-                            "transaction_database"
-                    )
-                    .addMigrations(MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7) // Add the new migration
-                    .fallbackToDestructiveMigration()
-                    .build();
+            instance = builder(context, "transaction_database").build();
         }
         return instance;
     }
+
+    // The app's configuration; ReadWhileImportBenchmark builds its own database from it
+    static RoomDatabase.Builder<TransactionDatabase> builder(Context context, String name) {
+        return Room.databaseBuilder(context.getApplicationContext(), TransactionDatabase.class, name)
+                .addMigrations(ALL_MIGRATIONS)
+                .addCallback(OPEN_CALLBACK)
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                // LiveData and invalidation queries run on the app's read lane, which WAL lets
+                // proceed while an import is writing
+                .setQueryExecutor(AppExecutors.get().diskRead())
+                // Transactions Room runs itself go on the write lane with the app's other writes,
+                // instead of taking a read thread while they wait for SQLite's single write lock
+                .setTransactionExecutor(AppExecutors.get().diskWrite())
+                // Versions before 3 predate the migrations and cannot be upgraded. Any other
+                // missing migration must fail loudly instead of wiping the user's history
+                .fallbackToDestructiveMigrationFrom(1, 2);
+    }
 }
\ No newline at end of file
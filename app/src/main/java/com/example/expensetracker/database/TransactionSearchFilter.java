@@ -3,10 +3,19 @@ package com.example.expensetracker.database;
 import androidx.sqlite.db.SimpleSQLiteQuery;
 import androidx.sqlite.db.SupportSQLiteQuery;
 
+import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.models.TransactionType;
+import com.example.expensetracker.utils.Money;
+
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
 public class TransactionSearchFilter {
+    // A search word that can also match an amount, e.g. "120" or "120.5"
+    private static final Pattern AMOUNT_WORD = Pattern.compile("\\d+(\\.\\d*)?");
+
     private String searchText;
     private String bank;
     private String type;
@@ -17,7 +26,10 @@ public class TransactionSearchFilter {
     private Long endDate;
     private Boolean excludedFromTotal;
     private Boolean isRecurring;
+    private Boolean isOtherDebit;
     private String merchantName;
+    private int sortOption = 0; // Same options as the main screen sort menu
+    private boolean rankedByRelevance;
     
     // Time-of-day filtering
     private String timeOfDayOperator; // "after", "before"
@@ -80,6 +92,25 @@ public class TransactionSearchFilter {
             return this;
         }
 
+        public Builder isOtherDebit(Boolean otherDebit) {
+            filter.isOtherDebit = otherDebit;
+            return this;
+        }
+
+        public Builder sortOption(int sortOption) {
+            filter.sortOption = sortOption;
+            return this;
+        }
+
+        /**
+         * Put the rows matching the search text best first, see {@link CancellableSearch#search};
+         * the sort option then only orders rows that score the same
+         */
+        public Builder rankByRelevance(boolean ranked) {
+            filter.rankedByRelevance = ranked;
+            return this;
+        }
+
         public Builder merchantName(String merchantName) {
             filter.merchantName = merchantName;
             return this;
@@ -107,43 +138,141 @@ public class TransactionSearchFilter {
 
     // Build a query based on the filter parameters
     public SupportSQLiteQuery buildSearchQuery() {
-        android.util.Log.d("TransactionSearchFilter", "=== BUILDING SEARCH QUERY ===");
-        
         StringBuilder queryBuilder = new StringBuilder();
         List<Object> args = new ArrayList<>();
 
         queryBuilder.append("SELECT * FROM transactions WHERE 1=1");
-        
-        android.util.Log.d("TransactionSearchFilter", "Filter parameters:");
-        android.util.Log.d("TransactionSearchFilter", "  searchText: " + searchText);
-        android.util.Log.d("TransactionSearchFilter", "  startDate: " + startDate);
-        android.util.Log.d("TransactionSearchFilter", "  endDate: " + endDate);
-        android.util.Log.d("TransactionSearchFilter", "  bank: " + bank);
-        android.util.Log.d("TransactionSearchFilter", "  category: " + category);
-
-        // Add search text filter (searches across multiple columns)
-        if (searchText != null && !searchText.isEmpty()) {
-            queryBuilder.append(" AND (");
-            queryBuilder.append("description LIKE ?");
-            args.add("%" + searchText + "%");
+        appendConditions(queryBuilder, args);
+        queryBuilder.append(" ORDER BY ").append(orderByClause());
+
+        return new SimpleSQLiteQuery(queryBuilder.toString(), args.toArray());
+    }
+
+    /**
+     * Same as {@link #buildSearchQuery()} but only selecting the ids, in the same order
+     */
+    public SupportSQLiteQuery buildSearchIdsQuery() {
+        StringBuilder queryBuilder = new StringBuilder();
+        List<Object> args = new ArrayList<>();
 
-            queryBuilder.append(" OR merchant_name LIKE ?");
-            args.add("%" + searchText + "%");
+        queryBuilder.append("SELECT id FROM transactions WHERE 1=1");
+        appendConditions(queryBuilder, args);
+        queryBuilder.append(" ORDER BY ").append(orderByClause());
 
-            queryBuilder.append(" OR category LIKE ?");
-            args.add("%" + searchText + "%");
+        return new SimpleSQLiteQuery(queryBuilder.toString(), args.toArray());
+    }
+
+    /**
+     * Build a query returning the match count and the debit/credit totals of the
+     * non-excluded matches, for {@link TransactionAggregateDao#getTotalsWithFilterSync}
+     */
+    public SupportSQLiteQuery buildTotalsQuery() {
+        StringBuilder queryBuilder = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+
+        queryBuilder.append("SELECT COUNT(*) AS transactionCount, " +
+                "COALESCE(SUM(CASE WHEN type = " + TransactionType.CODE_DEBIT + " AND is_excluded_from_total = 0 THEN amount_paise END), 0) AS debitPaise, " +
+                "COALESCE(SUM(CASE WHEN type = " + TransactionType.CODE_CREDIT + " AND is_excluded_from_total = 0 THEN amount_paise END), 0) AS creditPaise " +
+                "FROM transactions WHERE 1=1");
+        appendConditions(queryBuilder, args);
+
+        return new SimpleSQLiteQuery(queryBuilder.toString(), args.toArray());
+    }
+
+    /**
+     * Keyset page of the rows {@link #buildSearchQuery()} returns. Seeks from a row's position,
+     * (sort key, id), instead of skipping an offset, so a page costs the same at any depth.
+     * @param key Sort key of the boundary row, see {@link #sortKeyOf}; null to start at the first row
+     * @param id Id of the boundary row
+     * @param inclusive Whether the boundary row itself is part of the page
+     * @param backward Return the rows before the boundary, nearest first, instead of the rows after it
+     */
+    public SupportSQLiteQuery buildPageQuery(Object key, long id, boolean inclusive, boolean backward, int limit) {
+        StringBuilder queryBuilder = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+
+        queryBuilder.append("SELECT * FROM transactions WHERE 1=1");
+        appendConditions(queryBuilder, args);
+
+        // Walking backward through a descending order is walking forward through an ascending one
+        boolean descending = sortDescending() != backward;
+        if (key != null) {
+            String column = sortColumn();
+            String past = descending ? "<" : ">";
+            // Row values are not available before SQLite 3.15, so the comparison is spelled out. For
+            // the date and amount sorts the redundant bound on the sort column alone gives SQLite an
+            // index range to seek into, when it reads the sort column's index rather than a filter's.
+            // The description sorts order by an expression Room cannot index, so each of their pages
+            // sorts the filtered rows; the bound still drops the rows already paged past before that
+            // sort, which an offset would have to sort and then skip
+            queryBuilder.append(" AND ").append(column).append(' ').append(past).append("= ?")
+                    .append(" AND (").append(column).append(' ').append(past).append(" ?")
+                    .append(" OR (").append(column).append(" = ? AND id ").append(past)
+                    .append(inclusive ? "= ?))" : " ?))");
+            args.add(key);
+            args.add(key);
+            args.add(key);
+            args.add(id);
+        }
 
-            queryBuilder.append(" OR bank LIKE ?");
-            args.add("%" + searchText + "%");
+        queryBuilder.append(" ORDER BY ").append(orderByClause(descending));
+        queryBuilder.append(" LIMIT ?");
+        args.add(limit);
 
-            queryBuilder.append(" OR original_sms LIKE ?");
-            args.add("%" + searchText + "%");
+        return new SimpleSQLiteQuery(queryBuilder.toString(), args.toArray());
+    }
 
-            queryBuilder.append(" OR note LIKE ?");
-            args.add("%" + searchText + "%");
+    /**
+     * Value of the sort column for a row, the key half of a keyset position
+     */
+    public Object sortKeyOf(Transaction transaction) {
+        switch (sortOption) {
+            case 2:
+            case 3:
+                return transaction.getAmountPaise();
+            case 4:
+            case 5:
+                return transaction.getDescription() != null ? transaction.getDescription() : "";
+            default:
+                return transaction.getDate();
+        }
+    }
 
-            queryBuilder.append(")");
+    // Column the selected sort option orders by; rows with equal values are ordered by id
+    private String sortColumn() {
+        switch (sortOption) {
+            case 2: // Amount (highest first)
+            case 3: // Amount (lowest first)
+                return "amount_paise";
+            case 4: // Description (A-Z)
+            case 5: // Description (Z-A)
+                // NULL as '' so every row has a key to seek past
+                return "IFNULL(description, '') COLLATE NOCASE";
+            case 0: // Date (newest first)
+            case 1: // Date (oldest first)
+            default:
+                return "date";
         }
+    }
+
+    private boolean sortDescending() {
+        return sortOption == 0 || sortOption == 2 || sortOption == 5;
+    }
+
+    // ORDER BY for the selected sort option, with id as tie-breaker so paging is stable
+    private String orderByClause() {
+        return orderByClause(sortDescending());
+    }
+
+    private String orderByClause(boolean descending) {
+        String direction = descending ? " DESC" : " ASC";
+        return sortColumn() + direction + ", id" + direction;
+    }
+
+    // Append the WHERE conditions shared by the row and totals queries
+    private void appendConditions(StringBuilder queryBuilder, List<Object> args) {
+        appendSearchTextCondition(queryBuilder, args);
+
 
         // Add specific filters
         if (bank != null && !bank.isEmpty() && !bank.equals("All Banks")) {
@@ -152,8 +281,10 @@ public class TransactionSearchFilter {
         }
 
         if (type != null && !type.isEmpty() && !type.equals("All Types")) {
+            // Stored as a code; an unknown name matches nothing
+            TransactionType transactionType = TransactionType.fromName(type);
             queryBuilder.append(" AND type = ?");
-            args.add(type);
+            args.add(transactionType != null ? transactionType.code : -1);
         }
 
         if (category != null && !category.isEmpty()) {
@@ -162,29 +293,23 @@ public class TransactionSearchFilter {
         }
 
         if (minAmount != null) {
-            queryBuilder.append(" AND amount >= ?");
-            args.add(minAmount);
+            queryBuilder.append(" AND amount_paise >= ?");
+            args.add(Money.toPaise(minAmount));
         }
 
         if (maxAmount != null) {
-            queryBuilder.append(" AND amount <= ?");
-            args.add(maxAmount);
+            queryBuilder.append(" AND amount_paise <= ?");
+            args.add(Money.toPaise(maxAmount));
         }
 
         if (startDate != null) {
             queryBuilder.append(" AND date >= ?");
             args.add(startDate);
-            android.util.Log.d("TransactionSearchFilter", "Added startDate filter: date >= " + startDate);
-            android.util.Log.d("TransactionSearchFilter", "  Date formatted: " + 
-                new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss", java.util.Locale.getDefault()).format(new java.util.Date(startDate)));
         }
 
         if (endDate != null) {
             queryBuilder.append(" AND date <= ?");
             args.add(endDate);
-            android.util.Log.d("TransactionSearchFilter", "Added endDate filter: date <= " + endDate);
-            android.util.Log.d("TransactionSearchFilter", "  Date formatted: " + 
-                new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss", java.util.Locale.getDefault()).format(new java.util.Date(endDate)));
         }
 
         if (excludedFromTotal != null) {
@@ -197,72 +322,162 @@ public class TransactionSearchFilter {
             args.add(isRecurring ? 1 : 0);
         }
 
-        if (merchantName != null && !merchantName.isEmpty()) {
-            queryBuilder.append(" AND merchant_name LIKE ?");
-            args.add("%" + merchantName + "%");
+        if (isOtherDebit != null) {
+            queryBuilder.append(" AND is_other_debit = ?");
+            args.add(isOtherDebit ? 1 : 0);
+        }
+
+        String merchantMatch = toFtsMatchQuery(merchantName, "merchant_name");
+        if (merchantMatch != null) {
+            queryBuilder.append(" AND id IN (SELECT rowid FROM transactions_fts WHERE transactions_fts MATCH ?)");
+            args.add(merchantMatch);
         }
         
-        // Handle time-of-day filtering
+        // Handle time-of-day filtering, on the stored local_minute_of_day column
         if (timeOfDayOperator != null && timeOfDayHour != null && timeOfDayMinute != null) {
-            android.util.Log.d("TransactionSearchFilter", "*** ADDING TIME-OF-DAY FILTER ***");
-            android.util.Log.d("TransactionSearchFilter", "Filter: " + timeOfDayOperator + " " + timeOfDayHour + ":" + String.format("%02d", timeOfDayMinute));
-            
-            // Simpler approach: just extract hour and compare (ignoring minutes for now to test)
-            String hourExtractSql = "CAST(strftime('%H', datetime(date/1000, 'unixepoch', 'localtime')) AS INTEGER)";
-            
+            int minuteOfDay = timeOfDayHour * 60 + timeOfDayMinute;
             switch (timeOfDayOperator.toLowerCase()) {
                 case "after":
                 case "since":
-                    queryBuilder.append(" AND ").append(hourExtractSql).append(" >= ?");
-                    args.add(timeOfDayHour);
-                    android.util.Log.d("TransactionSearchFilter", "Added AFTER hour filter: hour >= " + timeOfDayHour);
-                    android.util.Log.d("TransactionSearchFilter", "SQL fragment: " + hourExtractSql + " >= " + timeOfDayHour);
+                    queryBuilder.append(" AND local_minute_of_day >= ?");
+                    args.add(minuteOfDay);
                     break;
                 case "before":
                 case "until":
-                    queryBuilder.append(" AND ").append(hourExtractSql).append(" < ?");
-                    args.add(timeOfDayHour);
-                    android.util.Log.d("TransactionSearchFilter", "Added BEFORE hour filter: hour < " + timeOfDayHour);
-                    android.util.Log.d("TransactionSearchFilter", "SQL fragment: " + hourExtractSql + " < " + timeOfDayHour);
+                    queryBuilder.append(" AND local_minute_of_day < ?");
+                    args.add(minuteOfDay);
                     break;
             }
         }
         
         // Handle time range-of-day filtering
         if (startTimeHour != null && startTimeMinute != null && endTimeHour != null && endTimeMinute != null) {
-            android.util.Log.d("TransactionSearchFilter", "*** ADDING TIME-RANGE-OF-DAY FILTER ***");
-            android.util.Log.d("TransactionSearchFilter", "Time range: " + startTimeHour + ":" + String.format("%02d", startTimeMinute) + 
-                              " to " + endTimeHour + ":" + String.format("%02d", endTimeMinute));
-            
-            // Extract hour and minute from timestamp and check if it falls within the range
-            String hourExtractSql = "CAST(strftime('%H', datetime(date/1000, 'unixepoch', 'localtime')) AS INTEGER)";
-            String minuteExtractSql = "CAST(strftime('%M', datetime(date/1000, 'unixepoch', 'localtime')) AS INTEGER)";
-            
-            // Convert times to total minutes for easier comparison
             int startTotalMinutes = startTimeHour * 60 + startTimeMinute;
             int endTotalMinutes = endTimeHour * 60 + endTimeMinute;
-            
-            // Create SQL for total minutes: hour * 60 + minute
-            String totalMinutesSql = "(" + hourExtractSql + " * 60 + " + minuteExtractSql + ")";
-            
-            queryBuilder.append(" AND ").append(totalMinutesSql).append(" >= ? AND ").append(totalMinutesSql).append(" <= ?");
+
+            if (startTotalMinutes <= endTotalMinutes) {
+                queryBuilder.append(" AND local_minute_of_day BETWEEN ? AND ?");
+            } else {
+                // Range wraps past midnight, e.g. 10pm to 2am
+                queryBuilder.append(" AND (local_minute_of_day >= ? OR local_minute_of_day <= ?)");
+            }
             args.add(startTotalMinutes);
             args.add(endTotalMinutes);
-            
-            android.util.Log.d("TransactionSearchFilter", "Added time range filter: " + startTotalMinutes + " <= minutes <= " + endTotalMinutes);
-            android.util.Log.d("TransactionSearchFilter", "SQL fragment: " + totalMinutesSql + " BETWEEN " + startTotalMinutes + " AND " + endTotalMinutes);
         }
 
-        // Add order by date (most recent first)
-        queryBuilder.append(" ORDER BY date DESC");
+    }
+
+    /**
+     * The search text condition, the one definition of which rows search text matches: the
+     * paged list, the search screen and the grouped view (through {@link #buildMatchingIdsQuery})
+     * all use it. Every whitespace-separated word must match. A word matches when each of its
+     * tokens starts a word of the description, merchant, category, bank or note, or of the SMS
+     * body, which has its own full-text index because it is stored compressed. A word made of
+     * digits, optionally with a decimal point, also matches when the amount written with two
+     * decimals starts with it, so "120" and "120.5" both match 120.50.
+     */
+    private void appendSearchTextCondition(StringBuilder queryBuilder, List<Object> args) {
+        if (searchText == null) {
+            return;
+        }
+
+        for (String word : searchText.trim().split("\\s+")) {
+            List<String> terms = toFtsTerms(word);
+            if (terms.isEmpty()) continue;
 
-        android.util.Log.d("TransactionSearchFilter", "Final SQL query: " + queryBuilder.toString());
-        android.util.Log.d("TransactionSearchFilter", "Query args count: " + args.size());
-        for (int i = 0; i < args.size(); i++) {
-            android.util.Log.d("TransactionSearchFilter", "  Arg " + i + ": " + args.get(i) + " (" + args.get(i).getClass().getSimpleName() + ")");
+            queryBuilder.append(" AND (");
+            for (int i = 0; i < terms.size(); i++) {
+                if (i > 0) queryBuilder.append(" AND ");
+                queryBuilder.append("(id IN (SELECT rowid FROM transactions_fts WHERE transactions_fts MATCH ?)" +
+                        " OR id IN (SELECT rowid FROM " + SmsSearchSchema.TABLE + " WHERE " +
+                        SmsSearchSchema.TABLE + " MATCH ?))");
+                args.add(terms.get(i));
+                args.add(terms.get(i));
+            }
+            if (AMOUNT_WORD.matcher(word).matches()) {
+                // Formatted from the integer paise, so there's no floating point rounding
+                queryBuilder.append(" OR printf('%d.%02d', amount_paise / 100, amount_paise % 100) LIKE ?");
+                args.add(word + '%');
+            }
+            queryBuilder.append(')');
         }
-        android.util.Log.d("TransactionSearchFilter", "=== QUERY BUILD COMPLETE ===");
+    }
+
+    /**
+     * Ids of the rows in a date range that search text matches, see
+     * {@link #appendSearchTextCondition}; for filtering rows already in memory
+     */
+    public static SupportSQLiteQuery buildMatchingIdsQuery(String searchText, long startDate, long endDate) {
+        return new Builder()
+                .searchText(searchText)
+                .dateRange(startDate, endDate)
+                .build()
+                .buildMatchingIdsQuery();
+    }
+
+    private SupportSQLiteQuery buildMatchingIdsQuery() {
+        StringBuilder queryBuilder = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+
+        // Unordered, the caller maps the ids to its own rows
+        queryBuilder.append("SELECT id FROM transactions WHERE 1=1");
+        appendConditions(queryBuilder, args);
 
         return new SimpleSQLiteQuery(queryBuilder.toString(), args.toArray());
     }
-}
\ No newline at end of file
+
+    /**
+     * Whether results should be ranked by how well they match the search text, which only
+     * applies when there is search text
+     */
+    public boolean isRankedByRelevance() {
+        return rankedByRelevance && !toFtsTerms(searchText).isEmpty();
+    }
+
+    /**
+     * The search words as one MATCH expression matching a row with any of them, e.g.
+     * "swig* OR 500*", for scoring the rows the filter matched
+     */
+    String toRankingMatchQuery() {
+        return String.join(" OR ", toFtsTerms(searchText));
+    }
+
+    /**
+     * Convert free text into an FTS prefix query, e.g. "swig 500" becomes "swig* 500*".
+     * Tokens are split the same way the unicode61 tokenizer splits them and lower-cased,
+     * so user input can never be read as FTS operators.
+     * @return The MATCH expression, or null if the text has no searchable tokens
+     */
+    public static String toFtsMatchQuery(String text) {
+        return toFtsMatchQuery(text, null);
+    }
+
+    /**
+     * Same as {@link #toFtsMatchQuery(String)} but restricted to a single indexed column
+     */
+    public static String toFtsMatchQuery(String text, String column) {
+        StringBuilder match = new StringBuilder();
+        for (String term : toFtsTerms(text)) {
+            if (match.length() > 0) match.append(' ');
+            if (column != null) match.append(column).append(':');
+            match.append(term);
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    /**
+     * The prefix terms of {@link #toFtsMatchQuery(String)} one by one, e.g. "swig*" and "500*"
+     */
+    static List<String> toFtsTerms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.trim().isEmpty()) {
+            return terms;
+        }
+
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) continue;
+            terms.add(token + '*');
+        }
+        return terms;
+    }
+}
@@ -25,9 +25,11 @@ import androidx.lifecycle.ViewModelProvider;
 
 import com.example.expensetracker.R;
 import com.example.expensetracker.models.CustomCategory;
+import com.example.expensetracker.models.ExclusionSource;
 import com.example.expensetracker.models.Transaction;
 import com.example.expensetracker.ocr.CameraCaptureActivity;
 import com.example.expensetracker.ocr.OCRResultsActivity;
+import com.example.expensetracker.repository.TransactionRepository;
 import com.example.expensetracker.viewmodel.CategoryViewModel;
 import com.example.expensetracker.viewmodel.ExclusionPatternViewModel;
 import com.google.android.material.button.MaterialButton;
@@ -68,7 +70,8 @@ public class TransactionEditDialog extends DialogFragment {
     }
 
     public TransactionEditDialog(Transaction transaction) {
-        this.transaction = transaction;
+        // The row passed in is the one the list shows; edits go to a copy so the list sees a change
+        this.transaction = transaction.copy();
     }
 
     public void setOnTransactionEditListener(OnTransactionEditListener listener) {
@@ -117,14 +120,18 @@ public class TransactionEditDialog extends DialogFragment {
         // Add a button to view original SMS
         MaterialButton viewSmsButton = view.findViewById(R.id.viewSmsButton);
 
-        // Show or hide button based on whether original SMS is available
-        if (transaction.getOriginalSms() != null && !transaction.getOriginalSms().isEmpty()) {
-            viewSmsButton.setVisibility(View.VISIBLE);
-            viewSmsButton.setOnClickListener(v -> {
-                showOriginalSmsDialog(transaction.getOriginalSms());
-            });
+        // Show or hide button based on whether original SMS is available.
+        // The SMS body is stored separately, so fetch it for this transaction only
+        viewSmsButton.setVisibility(View.GONE);
+        if (transaction.getOriginalSms() != null) {
+            bindViewSmsButton(viewSmsButton, transaction.getOriginalSms());
         } else {
-            viewSmsButton.setVisibility(View.GONE);
+            new TransactionRepository(requireActivity().getApplication())
+                    .getOriginalSms(transaction.getId(), sms -> {
+                        if (isAdded()) {
+                            bindViewSmsButton(viewSmsButton, sms);
+                        }
+                    });
         }
 
         // Initialize category ViewModel
@@ -190,10 +197,10 @@ public class TransactionEditDialog extends DialogFragment {
             // Set exclusion source if changed
             if (!wasExcluded && nowExcluded) {
                 // Newly excluded - mark as manual
-                transaction.setExclusionSource("MANUAL");
+                transaction.setExclusionSource(ExclusionSource.MANUAL);
             } else if (wasExcluded && !nowExcluded) {
                 // No longer excluded - reset source
-                transaction.setExclusionSource("NONE");
+                transaction.setExclusionSource(ExclusionSource.NONE);
             }
 
             // NEW: Create exclusion pattern if option is selected
@@ -212,6 +219,15 @@ public class TransactionEditDialog extends DialogFragment {
         return builder.create();
     }
 
+    private void bindViewSmsButton(MaterialButton viewSmsButton, String smsText) {
+        if (smsText != null && !smsText.isEmpty()) {
+            viewSmsButton.setVisibility(View.VISIBLE);
+            viewSmsButton.setOnClickListener(v -> {
+                showOriginalSmsDialog(smsText);
+            });
+        }
+    }
+
     private void showOriginalSmsDialog(String smsText) {
         AlertDialog.Builder builder = new AlertDialog.Builder(requireActivity());
         builder.setTitle("Original SMS Message");
@@ -11,10 +11,10 @@ import androidx.lifecycle.LiveData;
 import com.example.expensetracker.database.CustomCategoryDao;
 import com.example.expensetracker.database.TransactionDatabase;
 import com.example.expensetracker.models.CustomCategory;
+import com.example.expensetracker.utils.AppExecutors;
 
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class CategoryViewModel extends AndroidViewModel {
     private CustomCategoryDao categoryDao;
@@ -25,7 +25,7 @@ public class CategoryViewModel extends AndroidViewModel {
         super(application);
         categoryDao = TransactionDatabase.getInstance(application).customCategoryDao();
         allCustomCategories = categoryDao.getAllCategories();
-        executorService = Executors.newSingleThreadExecutor();
+        executorService = AppExecutors.get().newWriteScope();
     }
 
     public LiveData<List<CustomCategory>> getAllCustomCategories() {
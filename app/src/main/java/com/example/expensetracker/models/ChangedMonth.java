@@ -0,0 +1,33 @@
+package com.example.expensetracker.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * A local calendar month whose transactions were inserted, updated or deleted, with the
+ * version of its latest change. Written by triggers on the transactions table; readers keep
+ * the highest version they have seen and only look at newer rows, so they never write.
+ */
+@Entity(tableName = "changed_months",
+        indices = {@Index(value = {"version"})})
+public class ChangedMonth {
+    @PrimaryKey
+    @ColumnInfo(name = "month")
+    private int month; // year * 12 + zero-based month, in local time
+
+    @ColumnInfo(name = "version", defaultValue = "0")
+    private long version; // One more than the highest version when the month was last written
+
+    public ChangedMonth(int month, long version) {
+        this.month = month;
+        this.version = version;
+    }
+
+    public int getMonth() { return month; }
+    public void setMonth(int month) { this.month = month; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+}
@@ -0,0 +1,62 @@
+package com.example.expensetracker.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * Per-day sum and count of transactions, one row per (day, category, bank, type, excluded).
+ * Maintained by triggers on the transactions table, so summaries over long ranges
+ * read one row per day instead of every transaction.
+ * Null category/bank are stored as an empty string and a null type as 0, because they are part of the key.
+ */
+@Entity(tableName = "daily_rollups",
+        primaryKeys = {"day", "category", "bank", "type", "excluded"})
+public class DailyRollup {
+    @ColumnInfo(name = "day")
+    private long day; // Local midnight of the day, in millis
+
+    @ColumnInfo(name = "category")
+    @NonNull
+    private String category = "";
+
+    @ColumnInfo(name = "bank")
+    @NonNull
+    private String bank = "";
+
+    @ColumnInfo(name = "type")
+    private int type; // TransactionType code
+
+    @ColumnInfo(name = "excluded")
+    private boolean excluded;
+
+    @ColumnInfo(name = "sum_paise")
+    private long sumPaise;
+
+    @ColumnInfo(name = "count")
+    private int count;
+
+    // Getters and setters
+    public long getDay() { return day; }
+    public void setDay(long day) { this.day = day; }
+
+    @NonNull
+    public String getCategory() { return category; }
+    public void setCategory(@NonNull String category) { this.category = category; }
+
+    @NonNull
+    public String getBank() { return bank; }
+    public void setBank(@NonNull String bank) { this.bank = bank; }
+
+    public int getType() { return type; }
+    public void setType(int type) { this.type = type; }
+
+    public boolean isExcluded() { return excluded; }
+    public void setExcluded(boolean excluded) { this.excluded = excluded; }
+
+    public long getSumPaise() { return sumPaise; }
+    public void setSumPaise(long sumPaise) { this.sumPaise = sumPaise; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+}
@@ -0,0 +1,34 @@
+package com.example.expensetracker.models;
+
+/**
+ * Why the app flagged a transaction for the excluded transactions screen. Replaces the
+ * [DUPLICATE] and [AUTO-EXCLUDED] tags older versions appended to the description.
+ * Stored as its integer {@link #code}, see {@link com.example.expensetracker.database.Converters}.
+ */
+public enum ExclusionReason {
+    NONE(ExclusionReason.CODE_NONE),
+    DUPLICATE(ExclusionReason.CODE_DUPLICATE),
+    AUTO_EXCLUDED(ExclusionReason.CODE_AUTO_EXCLUDED);
+
+    // Stored codes, usable in @Query strings. Never renumber: they are persisted.
+    public static final int CODE_NONE = 0;
+    public static final int CODE_DUPLICATE = 1;
+    public static final int CODE_AUTO_EXCLUDED = 2;
+
+    public final int code;
+
+    ExclusionReason(int code) {
+        this.code = code;
+    }
+
+    public static ExclusionReason fromCode(Integer code) {
+        if (code != null) {
+            for (ExclusionReason reason : values()) {
+                if (reason.code == code) {
+                    return reason;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.expensetracker.models;
+
+/**
+ * Why a transaction was excluded from totals (or NONE). Stored as its integer {@link #code},
+ * see {@link com.example.expensetracker.database.Converters}; the names live in the
+ * exclusion_sources lookup table.
+ */
+public enum ExclusionSource {
+    NONE(0),
+    MANUAL(1),            // Excluded by the user
+    AUTO(2),              // Excluded by an exclusion pattern
+    AUTO_UNKNOWN_BANK(3), // SMS from a sender that is not a known bank
+    MANUAL_PATTERN(4);    // Manually excluded and used as the source of a pattern
+
+    // Never renumber: the codes are persisted
+    public final int code;
+
+    ExclusionSource(int code) {
+        this.code = code;
+    }
+
+    public static ExclusionSource fromCode(Integer code) {
+        if (code != null) {
+            for (ExclusionSource source : values()) {
+                if (source.code == code) {
+                    return source;
+                }
+            }
+        }
+        return null;
+    }
+}
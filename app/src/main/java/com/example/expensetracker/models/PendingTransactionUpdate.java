@@ -0,0 +1,72 @@
+package com.example.expensetracker.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Field updates to one transaction that have been accepted but not yet applied to the
+ * transactions table, see {@link com.example.expensetracker.repository.TransactionUpdateQueue}.
+ * A null column is left unchanged; category and note can be set to null, so they have a flag.
+ */
+@Entity(tableName = "pending_transaction_updates")
+public class PendingTransactionUpdate {
+    @PrimaryKey
+    @ColumnInfo(name = "transaction_id")
+    private long transactionId;
+
+    @ColumnInfo(name = "category")
+    private String category;
+
+    @ColumnInfo(name = "category_set", defaultValue = "0")
+    private boolean categorySet;
+
+    @ColumnInfo(name = "note")
+    private String note;
+
+    @ColumnInfo(name = "note_set", defaultValue = "0")
+    private boolean noteSet;
+
+    @ColumnInfo(name = "description")
+    private String description;
+
+    @ColumnInfo(name = "is_excluded_from_total")
+    private Boolean excludedFromTotal;
+
+    @ColumnInfo(name = "exclusion_source")
+    private ExclusionSource exclusionSource;
+
+    @ColumnInfo(name = "exclusion_reason")
+    private ExclusionReason exclusionReason;
+
+    public PendingTransactionUpdate(long transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public long getTransactionId() { return transactionId; }
+    public void setTransactionId(long transactionId) { this.transactionId = transactionId; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public boolean isCategorySet() { return categorySet; }
+    public void setCategorySet(boolean categorySet) { this.categorySet = categorySet; }
+
+    public String getNote() { return note; }
+    public void setNote(String note) { this.note = note; }
+
+    public boolean isNoteSet() { return noteSet; }
+    public void setNoteSet(boolean noteSet) { this.noteSet = noteSet; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public Boolean getExcludedFromTotal() { return excludedFromTotal; }
+    public void setExcludedFromTotal(Boolean excludedFromTotal) { this.excludedFromTotal = excludedFromTotal; }
+
+    public ExclusionSource getExclusionSource() { return exclusionSource; }
+    public void setExclusionSource(ExclusionSource exclusionSource) { this.exclusionSource = exclusionSource; }
+
+    public ExclusionReason getExclusionReason() { return exclusionReason; }
+    public void setExclusionReason(ExclusionReason exclusionReason) { this.exclusionReason = exclusionReason; }
+}
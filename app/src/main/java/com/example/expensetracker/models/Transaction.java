@@ -6,14 +6,28 @@ package com.example.expensetracker.models;
 import androidx.room.Entity;
 import androidx.room.PrimaryKey;
 import androidx.room.ColumnInfo;
+import androidx.room.Ignore;
 import androidx.room.Index;
 
+import com.example.expensetracker.utils.Money;
+
+import java.util.Calendar;
+
 @Entity(
         tableName = "transactions",
         indices = {
                 @Index(value = {"messageHash"}, unique = true),
                 @Index(value = {"date"}),
-                @Index(value = {"category"})
+                @Index(value = {"category"}),
+                // Composite indexes matching the DAO's range + flag filters
+                @Index(value = {"is_excluded_from_total", "date"}),
+                @Index(value = {"is_other_debit", "is_excluded_from_total", "date"}),
+                @Index(value = {"bank", "type", "date"}),
+                @Index(value = {"type", "date"}),
+                @Index(value = {"exclusion_reason", "date"}),
+                @Index(value = {"local_minute_of_day"}),
+                // Serves the list's amount sorts and their keyset seeks
+                @Index(value = {"amount_paise"})
         }
 )
 public class Transaction {
@@ -25,14 +39,22 @@ public class Transaction {
     private String bank;
 
     @ColumnInfo(name = "type")
-    private String type;  // DEBIT or CREDIT
+    private TransactionType transactionType;  // Stored as its code, see Converters
 
-    @ColumnInfo(name = "amount")
-    private double amount;
+    @ColumnInfo(name = "amount_paise")
+    private long amountPaise;  // Whole paise, see Money
 
     @ColumnInfo(name = "date")
     private long date;
 
+    // Local wall-clock time of the date when the transaction was recorded, so time-of-day
+    // filters are index range scans instead of formatting every row's date in SQL
+    @ColumnInfo(name = "local_minute_of_day", defaultValue = "0")
+    private int localMinuteOfDay; // 0..1439
+
+    @ColumnInfo(name = "local_day_of_week", defaultValue = "0")
+    private int localDayOfWeek; // 0 = Sunday .. 6 = Saturday, same as SQLite's strftime('%w')
+
     @ColumnInfo(name = "description")
     private String description;
 
@@ -60,35 +82,97 @@ public class Transaction {
     @ColumnInfo(name = "is_excluded_from_total", defaultValue = "0")
     private boolean isExcludedFromTotal;
 
-    @ColumnInfo(name = "original_sms")
+    // Stored compressed in transaction_sms, see TransactionDao.insert() and getOriginalSms()
+    @Ignore
     private String originalSms;
 
     @ColumnInfo(name = "exclusion_source")
-    private String exclusionSource; // "MANUAL", "AUTO", "NONE"
+    private ExclusionSource exclusionSource; // Stored as its code, see Converters
+
+    @ColumnInfo(name = "exclusion_reason", defaultValue = "0")
+    private ExclusionReason exclusionReason = ExclusionReason.NONE;
 
     @ColumnInfo(name = "note")
     private String note; // User-added detailed notes about the transaction
 
+    // Used by Room
+    public Transaction() {
+    }
+
     // Constructor
+    @Ignore
     public Transaction(String bank, String type, double amount, long date, String description) {
-        this.bank = bank;
-        this.type = type;
-        this.amount = amount;
+        setBank(bank);
+        setType(type);
+        this.amountPaise = Money.toPaise(amount);
         this.date = date;
         this.description = description;
+
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(date);
+        this.localMinuteOfDay = cal.get(Calendar.HOUR_OF_DAY) * 60 + cal.get(Calendar.MINUTE);
+        this.localDayOfWeek = cal.get(Calendar.DAY_OF_WEEK) - Calendar.SUNDAY;
+    }
+
+    /**
+     * Field-for-field copy. Loaded rows are shared by the month cache and the lists, and the
+     * lists only rebind a row that differs from the one they show, so edits go to a copy.
+     */
+    public Transaction copy() {
+        Transaction copy = new Transaction();
+        copy.id = id;
+        copy.bank = bank;
+        copy.transactionType = transactionType;
+        copy.amountPaise = amountPaise;
+        copy.date = date;
+        copy.localMinuteOfDay = localMinuteOfDay;
+        copy.localDayOfWeek = localDayOfWeek;
+        copy.description = description;
+        copy.messageHash = messageHash;
+        copy.category = category;
+        copy.merchantName = merchantName;
+        copy.isOtherDebit = isOtherDebit;
+        copy.isRecurring = isRecurring;
+        copy.recurringFrequency = recurringFrequency;
+        copy.groupKey = groupKey;
+        copy.isExcludedFromTotal = isExcludedFromTotal;
+        copy.originalSms = originalSms;
+        copy.exclusionSource = exclusionSource;
+        copy.exclusionReason = exclusionReason;
+        copy.note = note;
+        return copy;
     }
 
     // Getters and Setters - same as before
     public long getId() { return id; }
     public void setId(long id) { this.id = id; }
 
+    // Bank and category repeat across thousands of rows; interning lets loaded rows
+    // share one instance per value and makes equals() on them an identity check
     public String getBank() { return bank; }
+    public void setBank(String bank) { this.bank = bank == null ? null : bank.intern(); }
+
+    public TransactionType getTransactionType() { return transactionType; }
+    public void setTransactionType(TransactionType transactionType) { this.transactionType = transactionType; }
+
+    // Type name ("DEBIT" or "CREDIT"), for display and text filters
+    public String getType() { return transactionType == null ? null : transactionType.name(); }
+    public void setType(String type) { this.transactionType = TransactionType.fromName(type); }
 
-    public String getType() { return type; }
+    // Amount in rupees, for display. Use getAmountPaise() for sums and comparisons
+    public double getAmount() { return Money.toRupees(amountPaise); }
 
-    public double getAmount() { return amount; }
+    public long getAmountPaise() { return amountPaise; }
+    public void setAmountPaise(long amountPaise) { this.amountPaise = amountPaise; }
 
     public long getDate() { return date; }
+    public void setDate(long date) { this.date = date; }
+
+    public int getLocalMinuteOfDay() { return localMinuteOfDay; }
+    public void setLocalMinuteOfDay(int localMinuteOfDay) { this.localMinuteOfDay = localMinuteOfDay; }
+
+    public int getLocalDayOfWeek() { return localDayOfWeek; }
+    public void setLocalDayOfWeek(int localDayOfWeek) { this.localDayOfWeek = localDayOfWeek; }
 
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
@@ -97,7 +181,7 @@ public class Transaction {
     public void setMessageHash(String messageHash) { this.messageHash = messageHash; }
 
     public String getCategory() { return category; }
-    public void setCategory(String category) { this.category = category; }
+    public void setCategory(String category) { this.category = category == null ? null : category.intern(); }
 
     public String getMerchantName() { return merchantName; }
     public void setMerchantName(String merchantName) { this.merchantName = merchantName; }
@@ -126,15 +210,18 @@ public class Transaction {
 
     // Helper Methods
     public boolean isDebit() {
-        return "DEBIT".equals(type);
+        return transactionType == TransactionType.DEBIT;
     }
 
     public boolean isCredit() {
-        return "CREDIT".equals(type);
+        return transactionType == TransactionType.CREDIT;
     }
 
-    public String getExclusionSource() { return exclusionSource; }
-    public void setExclusionSource(String exclusionSource) { this.exclusionSource = exclusionSource; }
+    public ExclusionSource getExclusionSource() { return exclusionSource; }
+    public void setExclusionSource(ExclusionSource exclusionSource) { this.exclusionSource = exclusionSource; }
+
+    public ExclusionReason getExclusionReason() { return exclusionReason; }
+    public void setExclusionReason(ExclusionReason exclusionReason) { this.exclusionReason = exclusionReason; }
 
     public String getNote() { return note; }
     public void setNote(String note) { this.note = note; }
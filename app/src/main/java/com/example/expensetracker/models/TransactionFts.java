@@ -0,0 +1,47 @@
+package com.example.expensetracker.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+/**
+ * Full-text index over the searchable text columns of {@link Transaction}.
+ * Uses the transactions table as external content, so Room keeps it in sync
+ * through triggers and the text is not stored twice.
+ */
+@Fts4(contentEntity = Transaction.class,
+        tokenizer = FtsOptions.TOKENIZER_UNICODE61,
+        prefix = {2, 3})
+@Entity(tableName = "transactions_fts")
+public class TransactionFts {
+    @ColumnInfo(name = "description")
+    private String description;
+
+    @ColumnInfo(name = "merchant_name")
+    private String merchantName;
+
+    @ColumnInfo(name = "category")
+    private String category;
+
+    @ColumnInfo(name = "bank")
+    private String bank;
+
+    @ColumnInfo(name = "note")
+    private String note;
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getMerchantName() { return merchantName; }
+    public void setMerchantName(String merchantName) { this.merchantName = merchantName; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getBank() { return bank; }
+    public void setBank(String bank) { this.bank = bank; }
+
+    public String getNote() { return note; }
+    public void setNote(String note) { this.note = note; }
+}
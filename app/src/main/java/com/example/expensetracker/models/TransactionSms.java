@@ -0,0 +1,36 @@
+package com.example.expensetracker.models;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+/**
+ * Original SMS body of a transaction, compressed with
+ * {@link com.example.expensetracker.database.SmsBodyCodec}.
+ * Kept out of the transactions table so range scans do not page through SMS text.
+ */
+@Entity(tableName = "transaction_sms",
+        foreignKeys = @ForeignKey(entity = Transaction.class,
+                parentColumns = "id",
+                childColumns = "transaction_id",
+                onDelete = ForeignKey.CASCADE))
+public class TransactionSms {
+    @PrimaryKey
+    @ColumnInfo(name = "transaction_id")
+    private long transactionId;
+
+    @ColumnInfo(name = "body_deflated", typeAffinity = ColumnInfo.BLOB)
+    private byte[] bodyDeflated;
+
+    public TransactionSms(long transactionId, byte[] bodyDeflated) {
+        this.transactionId = transactionId;
+        this.bodyDeflated = bodyDeflated;
+    }
+
+    public long getTransactionId() { return transactionId; }
+    public void setTransactionId(long transactionId) { this.transactionId = transactionId; }
+
+    public byte[] getBodyDeflated() { return bodyDeflated; }
+    public void setBodyDeflated(byte[] bodyDeflated) { this.bodyDeflated = bodyDeflated; }
+}
@@ -0,0 +1,46 @@
+package com.example.expensetracker.models;
+
+/**
+ * Direction of a transaction. Stored in the transactions table as its integer {@link #code},
+ * see {@link com.example.expensetracker.database.Converters}; the names live in the
+ * transaction_types lookup table.
+ */
+public enum TransactionType {
+    DEBIT(TransactionType.CODE_DEBIT),
+    CREDIT(TransactionType.CODE_CREDIT);
+
+    // Stored codes, usable in @Query strings. Never renumber: they are persisted.
+    public static final int CODE_DEBIT = 1;
+    public static final int CODE_CREDIT = 2;
+
+    public final int code;
+
+    TransactionType(int code) {
+        this.code = code;
+    }
+
+    public static TransactionType fromCode(Integer code) {
+        if (code != null) {
+            for (TransactionType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The type with this name, ignoring case, or null if there is none
+     */
+    public static TransactionType fromName(String name) {
+        if (name != null) {
+            for (TransactionType type : values()) {
+                if (type.name().equalsIgnoreCase(name)) {
+                    return type;
+                }
+            }
+        }
+        return null;
+    }
+}
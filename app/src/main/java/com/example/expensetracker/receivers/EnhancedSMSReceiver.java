@@ -11,17 +11,18 @@ import android.util.Log;
 import com.example.expensetracker.database.TransactionDao;
 import com.example.expensetracker.database.TransactionDatabase;
 import com.example.expensetracker.models.ExclusionPattern;
+import com.example.expensetracker.models.ExclusionSource;
 import com.example.expensetracker.models.Transaction;
 import com.example.expensetracker.parser.ConfidenceScoreTransactionParser;
 import com.example.expensetracker.parser.EnhancedTransactionParser;
 import com.example.expensetracker.repository.ExclusionPatternRepository;
+import com.example.expensetracker.utils.AppExecutors;
 import com.example.expensetracker.utils.PreferencesManager;
 import com.example.expensetracker.utils.TransactionDuplicateDetector;
 
 import java.util.Date;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -32,11 +33,13 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public class EnhancedSMSReceiver extends BroadcastReceiver {
     private static final String TAG = "EnhancedSMSReceiver";
-    private final ExecutorService executorService;
+    // The shared write lane, so the duplicate check and insert of one SMS never
+    // interleave with another's, even across receiver instances
+    private final Executor executor;
     private final EnhancedTransactionParser parser;
 
     public EnhancedSMSReceiver() {
-        executorService = Executors.newSingleThreadExecutor();
+        executor = AppExecutors.get().diskWrite();
         parser = new ConfidenceScoreTransactionParser();
     }
 
@@ -62,7 +65,7 @@ public class EnhancedSMSReceiver extends BroadcastReceiver {
 
     // Inside parseAndSaveTransaction method in EnhancedSMSReceiver.java
     public void parseAndSaveTransaction(Context context, String message, String sender, long timestamp) {
-        executorService.execute(() -> {
+        executor.execute(() -> {
             try {
                 // Step 1: Use the enhanced parser to parse the message
                 Transaction transaction = parser.parseTransaction(message, sender, timestamp);
@@ -125,7 +128,7 @@ public class EnhancedSMSReceiver extends BroadcastReceiver {
                     transaction.setExcludedFromTotal(true);
 
                     // Set exclusion source to AUTO
-                    transaction.setExclusionSource("AUTO");
+                    transaction.setExclusionSource(ExclusionSource.AUTO);
 
                     Log.d(TAG, "Auto-excluded transaction based on learned pattern: " +
                             transaction.getDescription());
@@ -136,11 +139,11 @@ public class EnhancedSMSReceiver extends BroadcastReceiver {
                     if ("OTHER".equals(transaction.getBank())) {
                         transaction.setExcludedFromTotal(true);
                         transaction.setOtherDebit(true);
-                        transaction.setExclusionSource("AUTO_UNKNOWN_BANK");
+                        transaction.setExclusionSource(ExclusionSource.AUTO_UNKNOWN_BANK);
                         Log.d(TAG, "Auto-excluded transaction from unknown bank: " + transaction.getDescription());
                     } else {
                         // Normal transaction, not excluded
-                        transaction.setExclusionSource("NONE");
+                        transaction.setExclusionSource(ExclusionSource.NONE);
                     }
                 }
 
@@ -157,7 +160,7 @@ public class EnhancedSMSReceiver extends BroadcastReceiver {
                 if ("OTHER".equals(transaction.getBank())) {
                     transaction.setExcludedFromTotal(true);
                     transaction.setOtherDebit(true);
-                    transaction.setExclusionSource("AUTO_UNKNOWN_BANK");
+                    transaction.setExclusionSource(ExclusionSource.AUTO_UNKNOWN_BANK);
                 }
 
                 saveTransaction(context, transaction);
@@ -172,7 +175,7 @@ public class EnhancedSMSReceiver extends BroadcastReceiver {
             if ("OTHER".equals(transaction.getBank())) {
                 transaction.setExcludedFromTotal(true);
                 transaction.setOtherDebit(true);
-                transaction.setExclusionSource("AUTO_UNKNOWN_BANK");
+                transaction.setExclusionSource(ExclusionSource.AUTO_UNKNOWN_BANK);
             }
 
             saveTransaction(context, transaction);
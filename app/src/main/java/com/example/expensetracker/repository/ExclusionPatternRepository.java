@@ -11,11 +11,11 @@ import com.example.expensetracker.database.ExclusionPatternDao;
 import com.example.expensetracker.database.TransactionDatabase;
 import com.example.expensetracker.models.ExclusionPattern;
 import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.utils.AppExecutors;
 import com.example.expensetracker.utils.ExclusionPatternMatcher;
 
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 
 /**
  * Repository for managing exclusion patterns
@@ -24,19 +24,21 @@ public class ExclusionPatternRepository {
     private static final String TAG = "ExclusionPatternRepo";
 
     private final ExclusionPatternDao exclusionPatternDao;
-    private final ExecutorService executorService;
+    private final Executor readExecutor;
+    private final Executor writeExecutor;
 
     public ExclusionPatternRepository(Application application) {
         TransactionDatabase database = TransactionDatabase.getInstance(application);
         exclusionPatternDao = database.exclusionPatternDao();
-        executorService = Executors.newSingleThreadExecutor();
+        readExecutor = AppExecutors.get().diskRead();
+        writeExecutor = AppExecutors.get().diskWrite();
     }
 
     /**
      * Create and save an exclusion pattern from a manually excluded transaction
      */
     public void createPatternFromTransaction(Transaction transaction, final Callback<Long> callback) {
-        executorService.execute(() -> {
+        writeExecutor.execute(() -> {
             // Create pattern from transaction
             ExclusionPattern pattern = ExclusionPatternMatcher.createPatternFromTransaction(transaction);
 
@@ -90,7 +92,9 @@ public class ExclusionPatternRepository {
      * Returns the matching pattern ID or -1 if no match
      */
     public void checkForPatternMatch(Transaction transaction, final Callback<ExclusionPattern> callback) {
-        executorService.execute(() -> {
+        // On the read lane even though it bumps the match count: the SMS receiver waits for
+        // this result from a task on the write lane, which would deadlock on a serial lane
+        readExecutor.execute(() -> {
             // Get all active patterns
             List<ExclusionPattern> patterns = exclusionPatternDao.getAllActivePatterns();
 
@@ -133,7 +137,7 @@ public class ExclusionPatternRepository {
      * Deactivate an exclusion pattern
      */
     public void deactivatePattern(long patternId) {
-        executorService.execute(() -> {
+        writeExecutor.execute(() -> {
             exclusionPatternDao.deactivatePattern(patternId);
             Log.d(TAG, "Deactivated exclusion pattern with ID " + patternId);
         });
@@ -143,7 +147,7 @@ public class ExclusionPatternRepository {
      * Delete an exclusion pattern
      */
     public void deletePattern(ExclusionPattern pattern) {
-        executorService.execute(() -> {
+        writeExecutor.execute(() -> {
             exclusionPatternDao.delete(pattern);
             Log.d(TAG, "Deleted exclusion pattern with ID " + pattern.getId());
         });
@@ -0,0 +1,262 @@
+package com.example.expensetracker.repository;
+
+import com.example.expensetracker.database.TransactionAggregateDao;
+import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.models.TransactionType;
+import com.example.expensetracker.utils.TransactionSearchSortUtil.SortBy;
+import com.example.expensetracker.utils.TransactionSortIndex;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of every transaction in one date range, newest first, loaded once from
+ * the {@link TransactionMonthCache} and shared by the main screen, see {@link RangeSnapshotStore}.
+ *
+ * Rows are addressed by position. Filters are expressed as BitSets of positions: the
+ * per-bank, per-category and per-type indexes are built on first use, so changing a
+ * filter intersects bitsets in memory instead of querying the database again. Search text is
+ * matched in SQL, so it means the same as in the paged list, and its ids are mapped to
+ * positions, see {@link #withIds(List)}. Each sort order is a permutation computed once, see
+ * {@link #rows(BitSet, int)}.
+ * Index bitsets are shared: combine them into a copy, never modify them.
+ */
+public final class RangeSnapshot {
+    private static final BitSet EMPTY = new BitSet();
+
+    private final long fromDate;
+    private final long toDate;
+    private final long generation;
+
+    private final Transaction[] rows;
+    private final long[] ids;
+    private final long[] amountsPaise;
+    private final long[] dates;
+    private final BitSet excluded;
+    private final BitSet otherDebit;
+    private final BitSet recurring;
+    private final TransactionSortIndex sortIndex;
+
+    // Built on first use; guarded by this
+    private Map<String, BitSet> byBank;
+    private Map<String, BitSet> byCategory;
+    private Map<TransactionType, BitSet> byType;
+    private Map<Long, Integer> positionsById;
+
+    RangeSnapshot(long fromDate, long toDate, long generation, List<Transaction> transactions) {
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        this.generation = generation;
+
+        int size = transactions.size();
+        rows = transactions.toArray(new Transaction[0]);
+        ids = new long[size];
+        amountsPaise = new long[size];
+        dates = new long[size];
+        excluded = new BitSet(size);
+        otherDebit = new BitSet(size);
+        recurring = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            Transaction transaction = rows[i];
+            ids[i] = transaction.getId();
+            amountsPaise[i] = transaction.getAmountPaise();
+            dates[i] = transaction.getDate();
+            excluded.set(i, transaction.isExcludedFromTotal());
+            otherDebit.set(i, transaction.isOtherDebit());
+            recurring.set(i, transaction.isRecurring());
+        }
+        sortIndex = new TransactionSortIndex(rows);
+    }
+
+    boolean isFor(long fromDate, long toDate, long generation) {
+        return this.fromDate == fromDate && this.toDate == toDate && this.generation == generation;
+    }
+
+    public long getFromDate() {
+        return fromDate;
+    }
+
+    public long getToDate() {
+        return toDate;
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * The transaction at a position; shared with the month cache, treat it as read-only
+     */
+    public Transaction get(int position) {
+        return rows[position];
+    }
+
+    public long getId(int position) {
+        return ids[position];
+    }
+
+    public long getAmountPaise(int position) {
+        return amountsPaise[position];
+    }
+
+    public long getDate(int position) {
+        return dates[position];
+    }
+
+    /**
+     * A new bitset selecting every row
+     */
+    public BitSet all() {
+        BitSet selection = new BitSet(rows.length);
+        selection.set(0, rows.length);
+        return selection;
+    }
+
+    public BitSet excluded() {
+        return excluded;
+    }
+
+    public BitSet otherDebit() {
+        return otherDebit;
+    }
+
+    public BitSet recurring() {
+        return recurring;
+    }
+
+    /**
+     * Rows of one bank, matched exactly like the bank column
+     */
+    public synchronized BitSet bank(String bank) {
+        if (byBank == null) {
+            byBank = new HashMap<>();
+            for (int i = 0; i < rows.length; i++) {
+                positions(byBank, rows[i].getBank()).set(i);
+            }
+        }
+        return lookup(byBank, bank);
+    }
+
+    public synchronized BitSet category(String category) {
+        if (byCategory == null) {
+            byCategory = new HashMap<>();
+            for (int i = 0; i < rows.length; i++) {
+                positions(byCategory, rows[i].getCategory()).set(i);
+            }
+        }
+        return lookup(byCategory, category);
+    }
+
+    public synchronized BitSet type(TransactionType type) {
+        if (byType == null) {
+            byType = new EnumMap<>(TransactionType.class);
+            for (int i = 0; i < rows.length; i++) {
+                if (rows[i].getTransactionType() != null) {
+                    positions(byType, rows[i].getTransactionType()).set(i);
+                }
+            }
+        }
+        return lookup(byType, type);
+    }
+
+    /**
+     * Rows with the given ids; ids of rows outside the snapshot are skipped
+     */
+    public BitSet withIds(List<Long> selectedIds) {
+        Map<Long, Integer> positions;
+        synchronized (this) {
+            if (positionsById == null) {
+                positionsById = new HashMap<>(rows.length * 2);
+                for (int i = 0; i < rows.length; i++) {
+                    positionsById.put(ids[i], i);
+                }
+            }
+            positions = positionsById;
+        }
+
+        BitSet selection = new BitSet(rows.length);
+        for (Long id : selectedIds) {
+            Integer position = positions.get(id);
+            if (position != null) {
+                selection.set(position);
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * The selected transactions, newest first
+     */
+    public List<Transaction> rows(BitSet selection) {
+        List<Transaction> result = new ArrayList<>(selection.cardinality());
+        for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+            result.add(rows[i]);
+        }
+        return result;
+    }
+
+    /**
+     * The selected transactions in the order of a main screen sort option (0-5). Changing
+     * the filter or the sort option walks a permutation kept by the snapshot, no sorting.
+     */
+    public List<Transaction> rows(BitSet selection, int sortOption) {
+        switch (sortOption) {
+            case 1: { // Date (oldest first), the stored order reversed
+                List<Transaction> result = new ArrayList<>(selection.cardinality());
+                for (int i = selection.previousSetBit(rows.length - 1); i >= 0; i = selection.previousSetBit(i - 1)) {
+                    result.add(rows[i]);
+                }
+                return result;
+            }
+            case 2: // Amount (highest first)
+                return sortIndex.rows(selection, SortBy.AMOUNT, false);
+            case 3: // Amount (lowest first)
+                return sortIndex.rows(selection, SortBy.AMOUNT, true);
+            case 4: // Description (A-Z)
+                return sortIndex.rows(selection, SortBy.DESCRIPTION, true);
+            case 5: // Description (Z-A)
+                return sortIndex.rows(selection, SortBy.DESCRIPTION, false);
+            case 0: // Date (newest first), the order rows are stored in
+            default:
+                return rows(selection);
+        }
+    }
+
+    /**
+     * Count of the selected rows and debit/credit totals of the non-excluded ones,
+     * like {@link com.example.expensetracker.database.TransactionSearchFilter#buildTotalsQuery()}
+     */
+    public TransactionAggregateDao.AmountTotals totals(BitSet selection) {
+        TransactionAggregateDao.AmountTotals totals = new TransactionAggregateDao.AmountTotals();
+        totals.transactionCount = selection.cardinality();
+        for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+            if (excluded.get(i)) {
+                continue;
+            }
+            if (rows[i].isDebit()) {
+                totals.debitPaise += amountsPaise[i];
+            } else if (rows[i].isCredit()) {
+                totals.creditPaise += amountsPaise[i];
+            }
+        }
+        return totals;
+    }
+
+    private static <K> BitSet positions(Map<K, BitSet> index, K key) {
+        BitSet positions = index.get(key);
+        if (positions == null) {
+            positions = new BitSet();
+            index.put(key, positions);
+        }
+        return positions;
+    }
+
+    private static <K> BitSet lookup(Map<K, BitSet> index, K key) {
+        BitSet positions = index.get(key);
+        return positions != null ? positions : EMPTY;
+    }
+}
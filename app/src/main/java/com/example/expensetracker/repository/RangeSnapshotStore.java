@@ -0,0 +1,53 @@
+package com.example.expensetracker.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.expensetracker.models.Transaction;
+
+import java.util.List;
+
+/**
+ * Holds the {@link RangeSnapshot} of the range the main screen is showing. Components
+ * asking for the same range get the same snapshot until a transaction is written, so the
+ * range is loaded once and every filter, sort and grouping change is derived in memory.
+ */
+public final class RangeSnapshotStore {
+    private static final String TAG = "RangeSnapshotStore";
+
+    private static RangeSnapshotStore instance;
+
+    private final TransactionMonthCache monthCache;
+    private volatile RangeSnapshot current;
+
+    private RangeSnapshotStore(TransactionMonthCache monthCache) {
+        this.monthCache = monthCache;
+    }
+
+    public static synchronized RangeSnapshotStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new RangeSnapshotStore(TransactionMonthCache.getInstance(context));
+        }
+        return instance;
+    }
+
+    /**
+     * Snapshot of the transactions with date in [fromDate, toDate], reused while nothing
+     * has been written. Must not be called on the main thread.
+     */
+    public RangeSnapshot getSnapshot(long fromDate, long toDate) {
+        long generation = monthCache.checkGeneration();
+        RangeSnapshot snapshot = current;
+        if (snapshot != null && snapshot.isFor(fromDate, toDate, generation)) {
+            return snapshot;
+        }
+
+        // A write landing after checkGeneration() leaves this snapshot with an older
+        // generation, so the next call rebuilds it
+        List<Transaction> transactions = monthCache.getTransactionsBetweenDates(fromDate, toDate);
+        snapshot = new RangeSnapshot(fromDate, toDate, generation, transactions);
+        current = snapshot;
+        Log.d(TAG, "Built snapshot of " + snapshot.size() + " transactions");
+        return snapshot;
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.expensetracker.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import com.example.expensetracker.database.ChangedMonthDao;
+import com.example.expensetracker.database.TransactionDao;
+import com.example.expensetracker.database.TransactionDatabase;
+import com.example.expensetracker.models.ChangedMonth;
+import com.example.expensetracker.models.Transaction;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * App-wide cache of transactions, one immutable shard per local calendar month sorted by
+ * date descending. Screens that read the same months (lists, analytics, predictions) share
+ * the shards instead of querying SQLite again.
+ *
+ * Triggers record every month touched by a write in changed_months with a growing version
+ * (see ChangedMonthSchema); only the months with a version newer than the last one seen are
+ * evicted, eagerly when Room's InvalidationTracker reports a write to transactions and again
+ * before every read, so a read right after a write never sees stale rows. Checking only
+ * reads the table, so it takes no write lock. Edits still waiting in the {@link TransactionUpdateQueue} are laid over the
+ * rows a read returns, instead of waiting for the write lane to apply them.
+ * The Transaction objects are shared with every list that shows them: treat them as
+ * read-only and edit a {@link Transaction#copy()}.
+ */
+public final class TransactionMonthCache {
+    private static final String TAG = "TransactionMonthCache";
+
+    // About two years of history; least recently used months are dropped first
+    private static final int MAX_MONTHS = 24;
+
+    private static TransactionMonthCache instance;
+
+    private final TransactionDao transactionDao;
+    private final ChangedMonthDao changedMonthDao;
+    private final TransactionUpdateQueue updateQueue;
+
+    // Guarded by this
+    private final LinkedHashMap<Integer, List<Transaction>> shards =
+            new LinkedHashMap<Integer, List<Transaction>>(MAX_MONTHS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<Transaction>> eldest) {
+                    return size() > MAX_MONTHS;
+                }
+            };
+
+    // Bumped on every eviction, so a shard loaded across an eviction is not kept
+    private long generation;
+
+    // Highest changed_months version evicted so far. The cache starts empty, so the first
+    // check only moves this past the months recorded before
+    private long seenVersion = -1;
+
+    private TransactionMonthCache(TransactionDatabase database, TransactionUpdateQueue updateQueue) {
+        transactionDao = database.transactionDao();
+        changedMonthDao = database.changedMonthDao();
+        this.updateQueue = updateQueue;
+
+        database.getInvalidationTracker().addObserver(new InvalidationTracker.Observer("transactions") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                evictChangedMonths();
+            }
+        });
+    }
+
+    public static synchronized TransactionMonthCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new TransactionMonthCache(TransactionDatabase.getInstance(context),
+                    TransactionUpdateQueue.getInstance(context));
+        }
+        return instance;
+    }
+
+    /**
+     * Transactions with date in [startDate, endDate], newest first, like
+     * {@link TransactionDao#getTransactionsBetweenDatesSync}. Must not be called on the main thread.
+     * @return A new list the caller may modify
+     */
+    public List<Transaction> getTransactionsBetweenDates(long startDate, long endDate) {
+        // Taken before the eviction: an edit applied after this is still in the snapshot,
+        // and one applied before it has recorded its month for the eviction to find
+        TransactionUpdateQueue.PendingEdits edits = updateQueue.pendingEdits();
+        evictChangedMonths();
+
+        List<Transaction> result = new ArrayList<>();
+        if (endDate < startDate) {
+            return result;
+        }
+
+        int firstMonth = monthOf(startDate);
+        int lastMonth = monthOf(endDate);
+        Map<Integer, List<Transaction>> months = getMonths(firstMonth, lastMonth);
+
+        for (int month = lastMonth; month >= firstMonth; month--) {
+            List<Transaction> shard = months.get(month);
+            if (month != firstMonth && month != lastMonth) {
+                result.addAll(shard);
+                continue;
+            }
+            // Partial month at either end of the range
+            for (Transaction transaction : shard) {
+                if (transaction.getDate() >= startDate && transaction.getDate() <= endDate) {
+                    result.add(transaction);
+                }
+            }
+        }
+        return edits.isEmpty() ? result : withEdits(result, edits, startDate, endDate);
+    }
+
+    // Copies of the edited rows in place of the shared ones. A row rewritten by the edit dialog
+    // may have a new date: it is dropped if that leaves the range, and only shows up in another
+    // range once its write commits
+    private static List<Transaction> withEdits(List<Transaction> rows, TransactionUpdateQueue.PendingEdits edits,
+                                               long startDate, long endDate) {
+        List<Transaction> result = new ArrayList<>(rows.size());
+        boolean moved = false;
+        for (Transaction row : rows) {
+            Transaction edited = edits.applyTo(row);
+            if (edited.getDate() < startDate || edited.getDate() > endDate) {
+                continue;
+            }
+            moved |= edited.getDate() != row.getDate();
+            result.add(edited);
+        }
+        if (moved) {
+            result.sort(Comparator.comparingLong(Transaction::getDate).reversed());
+        }
+        return result;
+    }
+
+    /**
+     * Apply evictions, then return the cache generation. Two equal generations mean no
+     * transaction was written or edited in between. Not on the main thread.
+     */
+    public long checkGeneration() {
+        long editCount = updateQueue.getEditCount();
+        evictChangedMonths();
+        synchronized (this) {
+            // Both only grow, so the sum is unchanged only if neither changed
+            return generation + editCount;
+        }
+    }
+
+    /**
+     * Drop the shards of the months written since the last check
+     */
+    public void evictChangedMonths() {
+        long afterVersion;
+        synchronized (this) {
+            afterVersion = seenVersion;
+        }
+        List<ChangedMonth> changed = changedMonthDao.getChangedSince(afterVersion);
+        if (changed.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            // Two checks may overlap; evicting a month twice is harmless
+            generation++;
+            for (ChangedMonth month : changed) {
+                shards.remove(month.getMonth());
+            }
+            seenVersion = Math.max(seenVersion, changed.get(changed.size() - 1).getVersion());
+        }
+        Log.d(TAG, "Evicted " + changed.size() + " months");
+    }
+
+    // Shards for every month in [firstMonth, lastMonth], loading the missing ones with one query
+    private Map<Integer, List<Transaction>> getMonths(int firstMonth, int lastMonth) {
+        Map<Integer, List<Transaction>> result = new LinkedHashMap<>();
+        int firstMissing = Integer.MAX_VALUE;
+        int lastMissing = Integer.MIN_VALUE;
+        long loadGeneration;
+
+        synchronized (this) {
+            for (int month = firstMonth; month <= lastMonth; month++) {
+                List<Transaction> shard = shards.get(month);
+                if (shard != null) {
+                    result.put(month, shard);
+                } else {
+                    firstMissing = Math.min(firstMissing, month);
+                    lastMissing = Math.max(lastMissing, month);
+                }
+            }
+            loadGeneration = generation;
+        }
+
+        if (firstMissing > lastMissing) {
+            return result;
+        }
+
+        // Split the newest-first rows of the missing span into per-month shards
+        List<Transaction> rows = transactionDao.getTransactionsBetweenDatesSync(
+                monthStart(firstMissing), monthStart(lastMissing + 1) - 1);
+        Map<Integer, List<Transaction>> loaded = new LinkedHashMap<>();
+        for (int month = firstMissing; month <= lastMissing; month++) {
+            loaded.put(month, new ArrayList<>());
+        }
+        for (Transaction transaction : rows) {
+            loaded.get(monthOf(transaction.getDate())).add(transaction);
+        }
+
+        synchronized (this) {
+            for (Map.Entry<Integer, List<Transaction>> entry : loaded.entrySet()) {
+                List<Transaction> shard = Collections.unmodifiableList(entry.getValue());
+                if (!result.containsKey(entry.getKey())) {
+                    result.put(entry.getKey(), shard);
+                    // A write may have landed while loading; serve it this once but do not keep it
+                    if (generation == loadGeneration) {
+                        shards.put(entry.getKey(), shard);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // Same key as the changed_months triggers: year * 12 + zero-based month, local time
+    static int monthOf(long date) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(date);
+        return cal.get(Calendar.YEAR) * 12 + cal.get(Calendar.MONTH);
+    }
+
+    private static long monthStart(int month) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(month / 12, month % 12, 1);
+        return cal.getTimeInMillis();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.expensetracker.repository;
+
+import com.example.expensetracker.database.TransactionSearchFilter;
+import com.example.expensetracker.models.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of transactions in a filter's sort order, plus the cursor for the next page.
+ * Pages are fetched by seeking past the last row instead of skipping an offset,
+ * so every page costs the same regardless of how deep the user has scrolled.
+ */
+public class TransactionPage {
+    private final List<Transaction> transactions;
+    private final Cursor nextCursor;
+
+    TransactionPage(List<Transaction> transactions, Cursor nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * @return Cursor for the following page, or null if this is the last page
+     */
+    public Cursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Position of a row in a filter's (sort key, id) ordering. The key is copied from the row,
+     * so editing the row afterwards does not move the cursor.
+     */
+    public static class Cursor {
+        final Object key;
+        final long id;
+
+        Cursor(Object key, long id) {
+            this.key = key;
+            this.id = id;
+        }
+
+        static Cursor at(TransactionSearchFilter filter, Transaction transaction) {
+            return new Cursor(filter.sortKeyOf(transaction), transaction.getId());
+        }
+    }
+
+    /**
+     * Build a page from a query that asked for pageSize + 1 rows; the extra row
+     * only tells us whether another page exists and is dropped.
+     */
+    static TransactionPage fromLookahead(List<Transaction> rows, int pageSize, TransactionSearchFilter filter) {
+        if (rows.size() > pageSize) {
+            List<Transaction> page = new ArrayList<>(rows.subList(0, pageSize));
+            return new TransactionPage(page, Cursor.at(filter, page.get(pageSize - 1)));
+        }
+        return new TransactionPage(rows, null);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.expensetracker.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+import androidx.room.InvalidationTracker;
+
+import com.example.expensetracker.database.TransactionDao;
+import com.example.expensetracker.database.TransactionDatabase;
+import com.example.expensetracker.database.TransactionSearchFilter;
+import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.utils.AppExecutors;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import kotlin.Unit;
+
+/**
+ * Keyset PagingSource over a {@link TransactionSearchFilter}, for the main list. Pages seek from
+ * the neighbouring row's (sort key, id) in both directions, so a page costs the same at any
+ * scroll depth and no COUNT(*) runs per generation; in exchange there are no placeholders.
+ *
+ * Refresh loads from its key's row inclusive, append loads the rows after its key and prepend
+ * the rows before it. Any write to transactions invalidates the source.
+ */
+public class TransactionPagingSource extends ListenableFuturePagingSource<TransactionPage.Cursor, Transaction> {
+    private final TransactionDatabase database;
+    private final TransactionSearchFilter filter;
+    private final InvalidationTracker.Observer observer;
+    private final AtomicBoolean observing = new AtomicBoolean();
+
+    public TransactionPagingSource(TransactionDatabase database, TransactionSearchFilter filter) {
+        this.database = database;
+        this.filter = filter;
+        observer = new InvalidationTracker.Observer("transactions") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+        registerInvalidatedCallback(() -> {
+            if (observing.get()) {
+                database.getInvalidationTracker().removeObserver(observer);
+            }
+            return Unit.INSTANCE;
+        });
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<TransactionPage.Cursor, Transaction>> loadFuture(
+            @NonNull LoadParams<TransactionPage.Cursor> params) {
+        ListenableFutureTask<LoadResult<TransactionPage.Cursor, Transaction>> task =
+                ListenableFutureTask.create(() -> loadSync(params));
+        AppExecutors.get().diskRead().execute(task);
+        return task;
+    }
+
+    private LoadResult<TransactionPage.Cursor, Transaction> loadSync(LoadParams<TransactionPage.Cursor> params) {
+        // Observed before the first query, so a write while it runs still invalidates this generation.
+        // addObserver touches the database, which is why it is not done in the constructor
+        if (observing.compareAndSet(false, true)) {
+            database.getInvalidationTracker().addObserver(observer);
+            if (getInvalid()) {
+                // The invalidated callback may have run before the observer was added
+                database.getInvalidationTracker().removeObserver(observer);
+            }
+        }
+
+        TransactionDao dao = database.transactionDao();
+        TransactionPage.Cursor key = params.getKey();
+        int loadSize = params.getLoadSize();
+        boolean prepend = params instanceof LoadParams.Prepend;
+
+        // One row more than asked for says whether there is a page beyond this one
+        TransactionPage page = TransactionPage.fromLookahead(dao.searchTransactionsWithFilterSync(
+                filter.buildPageQuery(key != null ? key.key : null, key != null ? key.id : 0,
+                        params instanceof LoadParams.Refresh, prepend, loadSize + 1)), loadSize, filter);
+        if (getInvalid()) {
+            return new LoadResult.Invalid<>();
+        }
+
+        List<Transaction> rows = page.getTransactions();
+        if (rows.isEmpty()) {
+            return new LoadResult.Page<>(rows, null, null);
+        }
+        TransactionPage.Cursor first = TransactionPage.Cursor.at(filter, rows.get(0));
+        TransactionPage.Cursor last = TransactionPage.Cursor.at(filter, rows.get(rows.size() - 1));
+        if (prepend) {
+            // Loaded nearest first
+            List<Transaction> ordered = new ArrayList<>(rows);
+            Collections.reverse(ordered);
+            return new LoadResult.Page<>(ordered, page.getNextCursor(), first);
+        }
+        // A refresh from the top has nothing before it; any other page does
+        TransactionPage.Cursor previous = key != null ? first : null;
+        return new LoadResult.Page<>(rows, previous, page.hasMore() ? last : null);
+    }
+
+    @Nullable
+    @Override
+    public TransactionPage.Cursor getRefreshKey(@NonNull PagingState<TransactionPage.Cursor, Transaction> state) {
+        Integer anchorPosition = state.getAnchorPosition();
+        if (anchorPosition == null) {
+            return null;
+        }
+        // Start half a page above the row the user was looking at, so the refresh covers the screen
+        Transaction start = state.closestItemToPosition(
+                Math.max(0, anchorPosition - state.getConfig().pageSize / 2));
+        return start != null ? TransactionPage.Cursor.at(filter, start) : null;
+    }
+}
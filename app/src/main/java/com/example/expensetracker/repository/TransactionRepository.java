@@ -1,26 +1,63 @@
 package com.example.expensetracker.repository;
 
 import android.app.Application;
-import android.os.Handler;
-import android.os.Looper;
+import android.util.Log;
 
 import androidx.lifecycle.LiveData;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+
+import com.example.expensetracker.models.ExclusionSource;
 import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.models.TransactionType;
+import com.example.expensetracker.database.TransactionAggregateDao;
 import com.example.expensetracker.database.TransactionDao;
 import com.example.expensetracker.database.TransactionDatabase;
+import com.example.expensetracker.database.TransactionSearchFilter;
+import com.example.expensetracker.utils.AppExecutors;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
+/**
+ * Access to transactions. The asynchronous methods come in two forms: methods returning a
+ * CompletableFuture, which completes on a database thread and completes exceptionally on
+ * failure, so dependent operations can be chained; and older {@link Callback} methods,
+ * which call back on the main thread.
+ */
 public class TransactionRepository {
+    private static final String TAG = "TransactionRepository";
+
+    // Paging for the main list: maxSize bounds memory. Keyset pages cannot count the rows
+    // around them, so there are no placeholders
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 25;
+    private static final int MAX_LOADED_ITEMS = 300;
+    private static final PagingConfig PAGING_CONFIG =
+            new PagingConfig(PAGE_SIZE, PREFETCH_DISTANCE, false, PAGE_SIZE * 2, MAX_LOADED_ITEMS);
+
+    private TransactionDatabase database;
     private TransactionDao transactionDao;
-    private ExecutorService executorService;
+    private TransactionAggregateDao aggregateDao;
+    private TransactionMonthCache monthCache;
+    private TransactionUpdateQueue updateQueue;
+    // Reads may run in parallel; writes go through the serial write lane in call order
+    private Executor readExecutor;
+    private Executor writeExecutor;
     private LiveData<List<Transaction>> allTransactions;
 
     public TransactionRepository(Application application) {
-        TransactionDatabase database = TransactionDatabase.getInstance(application);
+        database = TransactionDatabase.getInstance(application);
         transactionDao = database.transactionDao();
-        executorService = Executors.newSingleThreadExecutor();
+        aggregateDao = database.transactionAggregateDao();
+        monthCache = TransactionMonthCache.getInstance(application);
+        updateQueue = TransactionUpdateQueue.getInstance(application);
+        readExecutor = AppExecutors.get().diskRead();
+        writeExecutor = AppExecutors.get().diskWrite();
         allTransactions = transactionDao.getAllTransactions();
     }
 
@@ -28,11 +65,18 @@ public class TransactionRepository {
         return allTransactions;
     }
 
+    /**
+     * Pages of the transactions matching a filter, in its sort order. Each LiveData has its own
+     * Pager; cache the result in the owner's scope, see TransactionViewModel#getPagedTransactions
+     */
+    public LiveData<PagingData<Transaction>> getPagedTransactions(TransactionSearchFilter filter) {
+        Pager<TransactionPage.Cursor, Transaction> pager = new Pager<>(PAGING_CONFIG,
+                () -> new TransactionPagingSource(database, filter));
+        return PagingLiveData.getLiveData(pager);
+    }
+
     public void getAllTransactions(final Callback<List<Transaction>> callback) {
-        executorService.execute(() -> {
-            List<Transaction> transactions = transactionDao.getAllTransactionsSync();
-            callback.onResult(transactions);
-        });
+        deliver(read(transactionDao::getAllTransactionsSync), callback);
     }
 
     public LiveData<List<Transaction>> getTransactionsByBank(String bank) {
@@ -40,94 +84,157 @@ public class TransactionRepository {
     }
 
     public void getTransactionsByBank(String bank, final Callback<List<Transaction>> callback) {
-        executorService.execute(() -> {
-            List<Transaction> transactions = transactionDao.getTransactionsByBankSync(bank);
-            callback.onResult(transactions);
-        });
+        deliver(read(() -> transactionDao.getTransactionsByBankSync(bank)), callback);
     }
 
-    public LiveData<List<Transaction>> getTransactionsByType(String type) {
+    public LiveData<List<Transaction>> getTransactionsByType(TransactionType type) {
         return transactionDao.getTransactionsByType(type);
     }
 
-    public void getTransactionsByType(String type, final Callback<List<Transaction>> callback) {
-        executorService.execute(() -> {
-            List<Transaction> transactions = transactionDao.getTransactionsByTypeSync(type);
-            callback.onResult(transactions);
-        });
+    public void getTransactionsByType(TransactionType type, final Callback<List<Transaction>> callback) {
+        deliver(read(() -> transactionDao.getTransactionsByTypeSync(type)), callback);
     }
 
-    public void getTransactionsByBankAndType(String bank, String type,
+    public void getTransactionsByBankAndType(String bank, TransactionType type,
                                              final Callback<List<Transaction>> callback) {
-        executorService.execute(() -> {
-            List<Transaction> transactions = transactionDao.getTransactionsByBankAndTypeSync(bank, type);
-            callback.onResult(transactions);
-        });
+        deliver(read(() -> transactionDao.getTransactionsByBankAndTypeSync(bank, type)), callback);
     }
 
     public void insert(Transaction transaction) {
-        executorService.execute(() -> {
+        writeExecutor.execute(() -> {
             transactionDao.insert(transaction);
         });
     }
 
     public void hasAnyTransactions(final Callback<Boolean> callback) {
-        executorService.execute(() -> {
-            boolean hasTransactions = transactionDao.hasAnyTransactions();
-            callback.onResult(hasTransactions);
-        });
+        deliver(read(transactionDao::hasAnyTransactions), callback);
     }
 
+    /**
+     * Result of an asynchronous method, called on the main thread. Failures are logged
+     * and not delivered; use the CompletableFuture methods to handle them.
+     */
     public interface Callback<T> {
         void onResult(T result);
     }
 
+    // Bulk operations, each one database transaction
+
+    /**
+     * Insert transactions, with their SMS bodies, in one database transaction
+     * @return Future of the new ids, in the order of the transactions
+     */
+    public CompletableFuture<List<Long>> insertAll(List<Transaction> transactions) {
+        List<Transaction> copy = new ArrayList<>(transactions);
+        return write(() -> transactionDao.insertAll(copy));
+    }
+
+    /**
+     * Overwrite transactions as a whole in one database transaction. Replaces edits to
+     * them still waiting in the write-behind queue.
+     */
+    public CompletableFuture<Void> updateAll(List<Transaction> transactions) {
+        List<Transaction> copy = new ArrayList<>(transactions);
+        return write(() -> {
+            for (Transaction transaction : copy) {
+                updateQueue.replace(transaction);
+            }
+            updateQueue.flushIfPending();
+            return null;
+        });
+    }
+
+    /**
+     * Delete transactions and their SMS bodies in one database transaction
+     * @return Future of the number of transactions deleted
+     */
+    public CompletableFuture<Integer> deleteByIds(List<Long> transactionIds) {
+        List<Long> copy = new ArrayList<>(transactionIds);
+        return write(() -> transactionDao.deleteTransactionsByIds(copy));
+    }
+
+    /**
+     * Load transactions by id, including edits still waiting in the write-behind queue
+     * @return Future of the transactions in the order of the ids; ids without a row are skipped
+     */
+    public CompletableFuture<List<Transaction>> getByIds(List<Long> transactionIds) {
+        List<Long> copy = new ArrayList<>(transactionIds);
+        return updateQueue.flush().thenApplyAsync(
+                flushed -> transactionDao.getTransactionsByIds(copy), readExecutor);
+    }
+
+    /**
+     * Load one transaction, including edits still waiting in the write-behind queue
+     * @return Future of the transaction, or of null if there is none with this id
+     */
+    public CompletableFuture<Transaction> getById(long transactionId) {
+        return updateQueue.flush().thenApplyAsync(
+                flushed -> transactionDao.getTransactionById(transactionId), readExecutor);
+    }
+
+    private <T> CompletableFuture<T> read(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(query, readExecutor);
+    }
+
+    private <T> CompletableFuture<T> write(Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(operation, writeExecutor);
+    }
+
+    // Hand a future's result to a callback on the main thread
+    private static <T> void deliver(CompletableFuture<T> future, Callback<T> callback) {
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Error loading transactions", error);
+                return;
+            }
+            AppExecutors.get().mainThread().execute(() -> callback.onResult(result));
+        });
+    }
+
     public LiveData<List<Transaction>> getTransactionsBetweenDates(long startDate, long endDate) {
         return transactionDao.getTransactionsBetweenDates(startDate, endDate);
     }
 
     public void getTransactionsBetweenDates(long startDate, long endDate, Callback<List<Transaction>> callback) {
-        executorService.execute(() -> {
-            List<Transaction> transactions = transactionDao.getTransactionsBetweenDatesSync(startDate, endDate);
-            new Handler(Looper.getMainLooper()).post(() -> {
-                callback.onResult(transactions);
-            });
-        });
+        deliver(read(() -> monthCache.getTransactionsBetweenDates(startDate, endDate)), callback);
     }
 
+    // Served from the shared month cache
     public List<Transaction> getTransactionsBetweenDatesSync(long startDate, long endDate) {
-        return transactionDao.getTransactionsBetweenDatesSync(startDate, endDate);
+        return monthCache.getTransactionsBetweenDates(startDate, endDate);
     }
 
     // New method to get a transaction by ID
     public void getTransactionById(long transactionId, final Callback<Transaction> callback) {
-        executorService.execute(() -> {
-            Transaction transaction = transactionDao.getTransactionById(transactionId);
-            new Handler(Looper.getMainLooper()).post(() -> {
-                callback.onResult(transaction);
-            });
-        });
+        deliver(getById(transactionId), callback);
     }
 
-    // New method to update a transaction
+    /**
+     * Load the original SMS body, which is stored separately from the transaction row
+     * @param callback Callback with the SMS text or null
+     */
+    public void getOriginalSms(long transactionId, final Callback<String> callback) {
+        deliver(read(() -> transactionDao.getOriginalSms(transactionId)), callback);
+    }
+
+    // Edits go through the write-behind queue, which batches them into one commit
     public void updateTransaction(Transaction transaction) {
-        executorService.execute(() -> {
-            transactionDao.update(transaction);
-        });
+        updateQueue.replace(transaction);
     }
 
     // New method to update a transaction's category
     public void updateTransactionCategory(long transactionId, String category) {
-        executorService.execute(() -> {
-            transactionDao.updateCategory(transactionId, category);
-        });
+        updateQueue.updateCategory(transactionId, category);
     }
 
     // New method to update a transaction's excluded status
     public void updateTransactionExcludedStatus(long transactionId, boolean isExcluded) {
-        executorService.execute(() -> {
-            transactionDao.updateExcludedStatus(transactionId, isExcluded);
-        });
+        updateQueue.updateExcludedStatus(transactionId, isExcluded);
+    }
+
+    // Include or exclude a transaction; a null source leaves it unchanged
+    public void updateTransactionExclusion(long transactionId, boolean isExcluded, ExclusionSource source) {
+        updateQueue.updateExclusion(transactionId, isExcluded, source, null);
     }
 
     /**
@@ -143,39 +250,40 @@ public class TransactionRepository {
      * @param callback Callback with the list of transactions
      */
     public void getAutoExcludedTransactions(final Callback<List<Transaction>> callback) {
-        executorService.execute(() -> {
-            List<Transaction> transactions = transactionDao.getAutoExcludedTransactionsSync();
-            new Handler(Looper.getMainLooper()).post(() -> {
-                callback.onResult(transactions);
-            });
-        });
+        deliver(read(transactionDao::getAutoExcludedTransactionsSync), callback);
     }
 
-    // Add to TransactionRepository.java
     public void getUniqueBanksList(Callback<List<String>> callback) {
-        executorService.execute(() -> {
-            List<String> banks = transactionDao
-                    .getUniqueBanks();
-            new Handler(Looper.getMainLooper()).post(() -> {
-                callback.onResult(banks);
-            });
-        });
+        deliver(read(transactionDao::getUniqueBanks), callback);
     }
 
-    public List<Transaction> getTransactionsBetweenDatesPaginatedSync(long startDate, long endDate, int limit, int offset) {
-        return transactionDao
-                .getTransactionsBetweenDatesPaginatedSync(startDate, endDate, limit, offset);
+    public int getManuallyExcludedTransactionCountSync(long startDate, long endDate) {
+        return transactionDao.getManuallyExcludedTransactionCountBetweenDates(startDate, endDate);
     }
 
-    public List<Transaction> getNonExcludedTransactionsBetweenDatesPaginatedSync(long startDate, long endDate, int limit, int offset) {
-        return transactionDao.getNonExcludedTransactionsBetweenDatesPaginatedSync(startDate, endDate, limit, offset);
+    public TransactionAggregateDao.AmountTotals getNonExcludedTotalsSync(long startDate, long endDate) {
+        return aggregateDao.getNonExcludedTotalsBetweenDates(startDate, endDate);
     }
 
     /**
-     * Get paginated list of manually excluded transactions between dates
+     * Get debit and credit totals of the non-excluded transactions between dates
+     * @param callback Callback with the totals
      */
-    public List<Transaction> getManuallyExcludedTransactionsPaginatedSync(long startDate, long endDate, int limit, int offset) {
-        return transactionDao.getManuallyExcludedTransactionsPaginatedSync(startDate, endDate, limit, offset);
+    public void getNonExcludedTotals(long startDate, long endDate,
+                                     Callback<TransactionAggregateDao.AmountTotals> callback) {
+        deliver(read(() -> aggregateDao.getNonExcludedTotalsBetweenDates(startDate, endDate)), callback);
+    }
+
+    public List<TransactionAggregateDao.CategoryTotal> getDebitTotalsByCategorySync(long startDate, long endDate) {
+        return aggregateDao.getDebitTotalsByCategory(startDate, endDate);
+    }
+
+    public List<TransactionAggregateDao.DailyTotal> getDailyDebitTotalsSync(long startDate, long endDate) {
+        return aggregateDao.getDailyDebitTotals(startDate, endDate);
+    }
+
+    public List<TransactionAggregateDao.BankTotal> getTotalsByBankSync(long startDate, long endDate) {
+        return aggregateDao.getTotalsByBank(startDate, endDate);
     }
 
 }
\ No newline at end of file
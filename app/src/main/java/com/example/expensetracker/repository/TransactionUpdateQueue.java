@@ -0,0 +1,417 @@
+package com.example.expensetracker.repository;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.expensetracker.database.PendingTransactionUpdateDao;
+import com.example.expensetracker.database.TransactionDao;
+import com.example.expensetracker.database.TransactionDatabase;
+import com.example.expensetracker.models.ExclusionReason;
+import com.example.expensetracker.models.ExclusionSource;
+import com.example.expensetracker.models.PendingTransactionUpdate;
+import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.utils.AppExecutors;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Write-behind queue for edits to existing transactions. Field updates to the same
+ * transaction merge in memory, are journaled to pending_transaction_updates right away
+ * so they survive process death, and are applied to the transactions table in one
+ * transaction after {@link #FLUSH_DELAY_MS} or on {@link #flushNow}. A bulk action
+ * therefore commits once instead of once per row.
+ *
+ * Reads see their own writes without waiting on the write lane: the month cache lays
+ * {@link #pendingEdits()} over the committed rows, and screens that filter or aggregate on the
+ * edited columns in SQL chain their query on {@link #flush()}. The flush itself always runs on
+ * the write lane, so readers never write or block behind it.
+ */
+public final class TransactionUpdateQueue {
+    private static final String TAG = "TransactionUpdateQueue";
+
+    // Long enough to gather a burst of edits, short enough that lists refresh promptly
+    private static final long FLUSH_DELAY_MS = 500;
+
+    private static TransactionUpdateQueue instance;
+
+    private final TransactionDatabase database;
+    private final TransactionDao transactionDao;
+    private final PendingTransactionUpdateDao pendingDao;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    // Updates not yet journaled, by transaction id. Guarded by itself
+    private final Map<Long, Update> buffered = new LinkedHashMap<>();
+    private boolean journalScheduled;
+    private boolean flushScheduled;
+
+    // Every update accepted and not yet applied, by transaction id, merged. Entries are replaced
+    // rather than changed, so a flush can tell whether one was edited again while it ran.
+    // Guarded by buffered
+    private final Map<Long, Update> unapplied = new HashMap<>();
+
+    // Bumped on every accepted edit. Guarded by buffered
+    private long editCount;
+
+    // Held while touching the journal, so a flush never interleaves with a journal write
+    private final Object journalLock = new Object();
+
+    // Updates accepted and not yet applied; starts true for rows left by a previous process
+    private volatile boolean pending = true;
+
+    // Set while the write lane applies updates it has already taken out of pending
+    private volatile boolean applying;
+
+    private TransactionUpdateQueue(TransactionDatabase database) {
+        this.database = database;
+        transactionDao = database.transactionDao();
+        pendingDao = database.pendingTransactionUpdateDao();
+
+        // Apply whatever the previous process journaled but did not get to apply
+        AppExecutors.get().diskWrite().execute(this::flushIfPending);
+    }
+
+    public static synchronized TransactionUpdateQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new TransactionUpdateQueue(TransactionDatabase.getInstance(context));
+        }
+        return instance;
+    }
+
+    public void updateCategory(long transactionId, String category) {
+        enqueue(transactionId, update -> {
+            update.fields.setCategory(category);
+            update.fields.setCategorySet(true);
+        });
+    }
+
+    public void updateNote(long transactionId, String note) {
+        enqueue(transactionId, update -> {
+            update.fields.setNote(note);
+            update.fields.setNoteSet(true);
+        });
+    }
+
+    public void updateDescription(long transactionId, String description) {
+        enqueue(transactionId, update -> update.fields.setDescription(description));
+    }
+
+    public void updateExcludedStatus(long transactionId, boolean isExcluded) {
+        enqueue(transactionId, update -> update.fields.setExcludedFromTotal(isExcluded));
+    }
+
+    /**
+     * Include or exclude a transaction; a null source or reason is left unchanged
+     */
+    public void updateExclusion(long transactionId, boolean isExcluded,
+                                ExclusionSource source, ExclusionReason reason) {
+        enqueue(transactionId, update -> {
+            update.fields.setExcludedFromTotal(isExcluded);
+            if (source != null) {
+                update.fields.setExclusionSource(source);
+            }
+            if (reason != null) {
+                update.fields.setExclusionReason(reason);
+            }
+        });
+    }
+
+    /**
+     * Overwrite every column of a transaction, e.g. after the edit dialog. Written with the
+     * next journal write instead of waiting for the flush, and replaces older queued updates.
+     */
+    public void replace(Transaction transaction) {
+        enqueue(transaction.getId(), update -> {
+            update.row = transaction;
+            update.fields = new PendingTransactionUpdate(transaction.getId());
+        });
+    }
+
+    /**
+     * Apply everything queued so far on the write lane
+     * @param onFlushed Called on the main thread afterwards, may be null
+     */
+    public void flushNow(Runnable onFlushed) {
+        AppExecutors.get().diskWrite().execute(() -> {
+            flushIfPending();
+            if (onFlushed != null) {
+                AppExecutors.get().mainThread().execute(onFlushed);
+            }
+        });
+    }
+
+    /**
+     * Apply everything queued so far on the write lane. Readers chain their query on the
+     * returned future, without blocking a thread on it, to see queued edits in SQL.
+     * @return Future completed once the queued edits are in the transactions table; already
+     * complete when nothing is queued
+     */
+    public CompletableFuture<Void> flush() {
+        // pending is cleared before a flush commits, so applying covers the flush in progress.
+        // The write lane is serial, so a flush queued behind it completes after it
+        if (!pending && !applying) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(this::flushIfPending, AppExecutors.get().diskWrite());
+    }
+
+    /**
+     * The edits accepted so far and not yet applied, for laying over rows read from the
+     * transactions table. Edits journaled by a previous process are only seen once the
+     * startup flush has applied them.
+     */
+    public PendingEdits pendingEdits() {
+        synchronized (buffered) {
+            return new PendingEdits(unapplied.isEmpty() ? Collections.emptyMap() : new HashMap<>(unapplied));
+        }
+    }
+
+    /**
+     * Grows with every edit accepted, so an unchanged count means no edit came in between
+     */
+    public long getEditCount() {
+        synchronized (buffered) {
+            return editCount;
+        }
+    }
+
+    private interface Edit {
+        void apply(Update update);
+    }
+
+    private void enqueue(long transactionId, Edit edit) {
+        synchronized (buffered) {
+            Update update = buffered.get(transactionId);
+            if (update == null) {
+                update = new Update(transactionId);
+                buffered.put(transactionId, update);
+            }
+            edit.apply(update);
+            pending = true;
+
+            Update merged = unapplied.get(transactionId);
+            merged = merged != null ? merged.copy() : new Update(transactionId);
+            edit.apply(merged);
+            unapplied.put(transactionId, merged);
+            editCount++;
+
+            if (!journalScheduled) {
+                journalScheduled = true;
+                AppExecutors.get().diskWrite().execute(this::journal);
+            }
+            if (!flushScheduled) {
+                flushScheduled = true;
+                handler.postDelayed(() -> AppExecutors.get().diskWrite().execute(this::flushIfPending),
+                        FLUSH_DELAY_MS);
+            }
+        }
+    }
+
+    // Write the buffered updates to the journal in one transaction
+    private void journal() {
+        synchronized (journalLock) {
+            Map<Long, Update> updates = takeBuffered(false);
+            if (updates.isEmpty()) {
+                return;
+            }
+            try {
+                database.runInTransaction(() -> writeJournal(updates));
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error journaling updates", e);
+                rebuffer(updates);
+            }
+        }
+    }
+
+    /**
+     * Journal anything still buffered and apply the whole journal in one transaction.
+     * Runs on the calling thread, which must be the write lane; readers use {@link #flush()}.
+     * Cheap when nothing is queued.
+     */
+    void flushIfPending() {
+        if (!pending) {
+            return;
+        }
+        synchronized (journalLock) {
+            applying = true;
+            Map<Long, Update> updates;
+            Map<Long, Update> applied;
+            synchronized (buffered) {
+                updates = takeBuffered(true);
+                applied = new HashMap<>(unapplied);
+            }
+            try {
+                int count = database.runInTransaction(() -> {
+                    writeJournal(updates);
+                    return pendingDao.applyAll();
+                });
+                if (count > 0) {
+                    Log.d(TAG, "Applied pending updates to " + count + " transactions");
+                }
+                // Committed, so readers see the rows themselves now; edits made since stay
+                forgetApplied(applied);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Error applying pending updates", e);
+                rebuffer(updates);
+            } finally {
+                applying = false;
+            }
+        }
+    }
+
+    private Map<Long, Update> takeBuffered(boolean forFlush) {
+        synchronized (buffered) {
+            Map<Long, Update> updates = new LinkedHashMap<>(buffered);
+            buffered.clear();
+            journalScheduled = false;
+            if (forFlush) {
+                flushScheduled = false;
+                pending = false;
+            }
+            return updates;
+        }
+    }
+
+    private void forgetApplied(Map<Long, Update> applied) {
+        synchronized (buffered) {
+            for (Map.Entry<Long, Update> entry : applied.entrySet()) {
+                unapplied.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    // Put updates that failed to write back under any newer ones
+    private void rebuffer(Map<Long, Update> updates) {
+        synchronized (buffered) {
+            for (Update older : updates.values()) {
+                Update newer = buffered.get(older.transactionId);
+                if (newer != null) {
+                    older.mergeFrom(newer);
+                }
+                buffered.put(older.transactionId, older);
+            }
+            pending = true;
+        }
+    }
+
+    private void writeJournal(Map<Long, Update> updates) {
+        for (Update update : updates.values()) {
+            if (update.row != null) {
+                pendingDao.delete(update.transactionId);
+                transactionDao.update(update.row);
+            }
+            if (update.hasFields()) {
+                pendingDao.merge(update.fields);
+            }
+        }
+    }
+
+    // A whole row to write, if any, plus field updates that came after it
+    private static final class Update {
+        final long transactionId;
+        Transaction row;
+        PendingTransactionUpdate fields;
+
+        Update(long transactionId) {
+            this.transactionId = transactionId;
+            fields = new PendingTransactionUpdate(transactionId);
+        }
+
+        Update copy() {
+            Update copy = new Update(transactionId);
+            copy.row = row;
+            copy.mergeFields(fields);
+            return copy;
+        }
+
+        // The transaction as it will be once this update is applied
+        Transaction applyTo(Transaction committed) {
+            Transaction transaction = (row != null ? row : committed).copy();
+            if (fields.isCategorySet()) {
+                transaction.setCategory(fields.getCategory());
+            }
+            if (fields.isNoteSet()) {
+                transaction.setNote(fields.getNote());
+            }
+            if (fields.getDescription() != null) {
+                transaction.setDescription(fields.getDescription());
+            }
+            if (fields.getExcludedFromTotal() != null) {
+                transaction.setExcludedFromTotal(fields.getExcludedFromTotal());
+            }
+            if (fields.getExclusionSource() != null) {
+                transaction.setExclusionSource(fields.getExclusionSource());
+            }
+            if (fields.getExclusionReason() != null) {
+                transaction.setExclusionReason(fields.getExclusionReason());
+            }
+            return transaction;
+        }
+
+        boolean hasFields() {
+            return fields.isCategorySet() || fields.isNoteSet() || fields.getDescription() != null ||
+                    fields.getExcludedFromTotal() != null || fields.getExclusionSource() != null ||
+                    fields.getExclusionReason() != null;
+        }
+
+        void mergeFrom(Update newer) {
+            if (newer.row != null) {
+                row = newer.row;
+                fields = newer.fields;
+                return;
+            }
+            mergeFields(newer.fields);
+        }
+
+        void mergeFields(PendingTransactionUpdate from) {
+            if (from.isCategorySet()) {
+                fields.setCategory(from.getCategory());
+                fields.setCategorySet(true);
+            }
+            if (from.isNoteSet()) {
+                fields.setNote(from.getNote());
+                fields.setNoteSet(true);
+            }
+            if (from.getDescription() != null) {
+                fields.setDescription(from.getDescription());
+            }
+            if (from.getExcludedFromTotal() != null) {
+                fields.setExcludedFromTotal(from.getExcludedFromTotal());
+            }
+            if (from.getExclusionSource() != null) {
+                fields.setExclusionSource(from.getExclusionSource());
+            }
+            if (from.getExclusionReason() != null) {
+                fields.setExclusionReason(from.getExclusionReason());
+            }
+        }
+    }
+
+    /**
+     * A snapshot of the edits not yet applied when it was taken
+     */
+    public static final class PendingEdits {
+        private final Map<Long, Update> updates;
+
+        PendingEdits(Map<Long, Update> updates) {
+            this.updates = updates;
+        }
+
+        public boolean isEmpty() {
+            return updates.isEmpty();
+        }
+
+        /**
+         * The row with its pending edits applied, as a copy, or the row itself if it has none
+         */
+        public Transaction applyTo(Transaction committed) {
+            Update update = updates.get(committed.getId());
+            return update != null ? update.applyTo(committed) : committed;
+        }
+    }
+}
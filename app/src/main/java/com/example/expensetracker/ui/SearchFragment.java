@@ -2,6 +2,8 @@ package com.example.expensetracker.ui;
 
 import android.app.DatePickerDialog;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.util.Log;
@@ -40,8 +42,6 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 public class SearchFragment extends Fragment implements SearchViewModel.SearchCallback {
     private static final String TAG = "SearchFragment";
@@ -66,7 +66,8 @@ public class SearchFragment extends Fragment implements SearchViewModel.SearchCa
 
     // Debounce search implementation
     private static final long SEARCH_DEBOUNCE_TIME_MS = 300;
-    private final Executor searchExecutor = Executors.newSingleThreadExecutor();
+    // The delay runs on the main looper instead of sleeping on a background thread
+    private final Handler searchDebounceHandler = new Handler(Looper.getMainLooper());
     private Runnable pendingSearchRunnable;
 
     @Override
@@ -148,6 +149,14 @@ public class SearchFragment extends Fragment implements SearchViewModel.SearchCa
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        // Drop a search still waiting out the debounce
+        searchDebounceHandler.removeCallbacksAndMessages(null);
+        pendingSearchRunnable = null;
+    }
+
     private void setupSearchInput() {
         searchInput.addTextChangedListener(new TextWatcher() {
             @Override
@@ -164,34 +173,19 @@ public class SearchFragment extends Fragment implements SearchViewModel.SearchCa
                 
                 // Use debounce for search to avoid excessive database queries
                 if (pendingSearchRunnable != null) {
-                    searchExecutor.execute(() -> {
-                        try {
-                            Thread.sleep(SEARCH_DEBOUNCE_TIME_MS);
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                        }
-                    });
+                    searchDebounceHandler.removeCallbacks(pendingSearchRunnable);
                 }
 
                 // Create new search runnable
                 pendingSearchRunnable = () -> {
-                    viewModel.setSearchText(searchText);
+                    pendingSearchRunnable = null;
+                    if (isAdded()) {
+                        viewModel.setSearchText(searchText);
+                    }
                 };
 
                 // Execute after delay
-                searchExecutor.execute(() -> {
-                    try {
-                        Thread.sleep(SEARCH_DEBOUNCE_TIME_MS);
-                        if (pendingSearchRunnable != null && isAdded()) {
-                            requireActivity().runOnUiThread(() -> {
-                                pendingSearchRunnable.run();
-                                pendingSearchRunnable = null;
-                            });
-                        }
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                });
+                searchDebounceHandler.postDelayed(pendingSearchRunnable, SEARCH_DEBOUNCE_TIME_MS);
             }
         });
     }
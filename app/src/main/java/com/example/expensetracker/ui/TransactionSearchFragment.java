@@ -25,6 +25,7 @@ import com.example.expensetracker.models.Transaction;
 import com.example.expensetracker.utils.TransactionSearchSortUtil;
 import com.example.expensetracker.utils.TransactionSearchSortUtil.SearchCriteria;
 import com.example.expensetracker.utils.TransactionSearchSortUtil.SortBy;
+import com.example.expensetracker.utils.TransactionSortIndex;
 import com.example.expensetracker.viewmodel.TransactionViewModel;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.chip.Chip;
@@ -54,6 +55,8 @@ public class TransactionSearchFragment extends Fragment {
 
     private List<Transaction> allTransactions = new ArrayList<>();
     private List<Transaction> filteredTransactions = new ArrayList<>();
+    // Sort orders of allTransactions, reused by every search and sort change
+    private TransactionSortIndex sortIndex = new TransactionSortIndex(new Transaction[0]);
 
     // Current search/sort state
     private SearchCriteria currentSearchCriteria;
@@ -207,7 +210,7 @@ public class TransactionSearchFragment extends Fragment {
         currentSortBy = sortBy;
         sortAscending = ascending;
 
-        List<Transaction> sortedList = TransactionSearchSortUtil.sortTransactions(
+        List<Transaction> sortedList = sortIndex.sort(
                 filteredTransactions.isEmpty() ? allTransactions : filteredTransactions,
                 sortBy,
                 ascending);
@@ -218,6 +221,7 @@ public class TransactionSearchFragment extends Fragment {
     private void observeTransactions() {
         viewModel.getAllTransactions().observe(getViewLifecycleOwner(), transactions -> {
             allTransactions = transactions;
+            sortIndex = new TransactionSortIndex(allTransactions);
 
             // Apply current search if any
             if (currentSearchCriteria != null) {
@@ -231,7 +235,7 @@ public class TransactionSearchFragment extends Fragment {
             }
 
             // Apply current sort
-            List<Transaction> sortedList = TransactionSearchSortUtil.sortTransactions(
+            List<Transaction> sortedList = sortIndex.sort(
                     filteredTransactions, currentSortBy, sortAscending);
 
             adapter.setTransactions(sortedList);
@@ -245,7 +249,7 @@ public class TransactionSearchFragment extends Fragment {
         if (query.isEmpty()) {
             // Clear search, show all transactions (sorted by current sort option)
             filteredTransactions = new ArrayList<>(allTransactions);
-            List<Transaction> sortedList = TransactionSearchSortUtil.sortTransactions(
+            List<Transaction> sortedList = sortIndex.sort(
                     filteredTransactions, currentSortBy, sortAscending);
 
             adapter.setTransactions(sortedList);
@@ -256,7 +260,7 @@ public class TransactionSearchFragment extends Fragment {
                     allTransactions, query);
 
             // Apply current sort
-            List<Transaction> sortedList = TransactionSearchSortUtil.sortTransactions(
+            List<Transaction> sortedList = sortIndex.sort(
                     filteredTransactions, currentSortBy, sortAscending);
 
             adapter.setTransactions(sortedList);
@@ -442,7 +446,7 @@ public class TransactionSearchFragment extends Fragment {
                     allTransactions, currentSearchCriteria);
 
             // Apply current sort
-            List<Transaction> sortedList = TransactionSearchSortUtil.sortTransactions(
+            List<Transaction> sortedList = sortIndex.sort(
                     filteredTransactions, currentSortBy, sortAscending);
 
             adapter.setTransactions(sortedList);
@@ -452,7 +456,7 @@ public class TransactionSearchFragment extends Fragment {
 
     private void updateTransactionsList(List<Transaction> transactions) {
         // Apply current sort
-        List<Transaction> sortedList = TransactionSearchSortUtil.sortTransactions(
+        List<Transaction> sortedList = sortIndex.sort(
                 transactions, currentSortBy, sortAscending);
 
         adapter.setTransactions(sortedList);
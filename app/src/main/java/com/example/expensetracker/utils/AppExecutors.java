@@ -0,0 +1,285 @@
+package com.example.expensetracker.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The app's background threads. Every component runs its work on one of these lanes
+ * instead of creating its own executor:
+ * <ul>
+ *     <li>{@link #diskWrite()}: one thread, so writes never contend with each other</li>
+ *     <li>{@link #diskRead()}: a few threads, one per WAL read connection Room keeps</li>
+ *     <li>{@link #compute()}: one thread per core, for parsing, grouping and analytics</li>
+ *     <li>{@link #mainThread()}: posts to the UI thread</li>
+ * </ul>
+ * The shared lanes cannot be shut down. Screens and ViewModels take a {@link ScopedExecutor}
+ * over a lane and shut that down with their lifecycle.
+ */
+public final class AppExecutors {
+    private static final String TAG = "AppExecutors";
+
+    // Android keeps up to 4 connections per WAL database, so that many reads can run at once
+    private static final int READ_THREADS = 4;
+
+    // Idle lane threads above one are released after this long
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    // A queue this deep means a lane is falling behind; logged once per doubling
+    private static final int QUEUE_WARNING_DEPTH = 16;
+
+    private static volatile AppExecutors instance;
+
+    // Reads feed what is on screen, so they run slightly ahead of writes and computation
+    private final Lane diskWrite = new Lane("db-write", 1, Process.THREAD_PRIORITY_BACKGROUND);
+    private final Lane diskRead = new Lane("db-read", READ_THREADS,
+            Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE);
+    private final Lane compute = new Lane("compute",
+            Math.max(2, Runtime.getRuntime().availableProcessors()), Process.THREAD_PRIORITY_BACKGROUND);
+    private final Executor mainThread = new MainThreadExecutor();
+
+    private AppExecutors() {
+    }
+
+    public static AppExecutors get() {
+        if (instance == null) {
+            synchronized (AppExecutors.class) {
+                if (instance == null) {
+                    instance = new AppExecutors();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Serial lane for database writes. Tasks run one at a time in submission order.
+     * Never block on this lane waiting for other work submitted to it.
+     */
+    public Executor diskWrite() {
+        return diskWrite;
+    }
+
+    /**
+     * Bounded pool for database reads
+     */
+    public Executor diskRead() {
+        return diskRead;
+    }
+
+    /**
+     * Pool sized to the CPU cores for work that does not touch the database
+     */
+    public Executor compute() {
+        return compute;
+    }
+
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    // Scopes that can be shut down with the owner's lifecycle
+
+    public ScopedExecutor newWriteScope() {
+        return new ScopedExecutor(diskWrite);
+    }
+
+    public ScopedExecutor newReadScope() {
+        return new ScopedExecutor(diskRead);
+    }
+
+    public ScopedExecutor newComputeScope() {
+        return new ScopedExecutor(compute);
+    }
+
+    /**
+     * Log queue depth, peak queue depth, active threads and completed tasks for each lane
+     */
+    public void logStats() {
+        Log.d(TAG, diskWrite + "; " + diskRead + "; " + compute);
+    }
+
+    /**
+     * A fixed-size pool with named threads and queue-depth tracking
+     */
+    private static final class Lane implements Executor {
+        private final String name;
+        private final ThreadPoolExecutor pool;
+        private final AtomicInteger peakQueueDepth = new AtomicInteger();
+        private final AtomicInteger nextWarningDepth = new AtomicInteger(QUEUE_WARNING_DEPTH);
+
+        Lane(String name, int threads, int priority) {
+            this.name = name;
+            pool = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), new LaneThreadFactory(name, priority));
+            pool.allowCoreThreadTimeOut(threads > 1);
+        }
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            pool.execute(command);
+
+            int depth = pool.getQueue().size();
+            peakQueueDepth.accumulateAndGet(depth, Math::max);
+            int warningDepth = nextWarningDepth.get();
+            if (depth >= warningDepth && nextWarningDepth.compareAndSet(warningDepth, warningDepth * 2)) {
+                Log.w(TAG, name + " has " + depth + " tasks queued");
+            }
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return name + ": queued=" + pool.getQueue().size() + " peak=" + peakQueueDepth.get() +
+                    " active=" + pool.getActiveCount() + " completed=" + pool.getCompletedTaskCount();
+        }
+    }
+
+    private static final class LaneThreadFactory implements ThreadFactory {
+        private final String name;
+        private final int priority;
+        private final AtomicInteger count = new AtomicInteger();
+
+        LaneThreadFactory(String name, int priority) {
+            this.name = name;
+            this.priority = priority;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            return new Thread(() -> {
+                Process.setThreadPriority(priority);
+                runnable.run();
+            }, name + "-" + count.incrementAndGet());
+        }
+    }
+
+    private static final class MainThreadExecutor implements Executor {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            handler.post(command);
+        }
+    }
+
+    /**
+     * An ExecutorService view of a shared lane. Shutting it down only affects the tasks
+     * submitted through it: {@link #shutdown()} lets queued tasks finish, {@link #shutdownNow()}
+     * drops the ones that have not started. Tasks submitted after shutdown are dropped
+     * instead of throwing, since callbacks often submit follow-up work after the owner is gone.
+     */
+    public static final class ScopedExecutor extends AbstractExecutorService {
+        private final Executor lane;
+        private final Set<ScopedTask> pending = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger running = new AtomicInteger();
+        private final Object terminationLock = new Object();
+        private volatile boolean shutdown;
+
+        ScopedExecutor(Executor lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            if (shutdown) {
+                Log.d(TAG, "Dropped a task submitted after shutdown");
+                return;
+            }
+            ScopedTask task = new ScopedTask(command);
+            pending.add(task);
+            lane.execute(task);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+            signalIfTerminated();
+        }
+
+        @NonNull
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            List<Runnable> dropped = new ArrayList<>();
+            for (ScopedTask task : pending) {
+                if (pending.remove(task)) {
+                    dropped.add(task.command);
+                }
+            }
+            signalIfTerminated();
+            return Collections.unmodifiableList(dropped);
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && pending.isEmpty() && running.get() == 0;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            synchronized (terminationLock) {
+                while (!isTerminated()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(terminationLock, remaining);
+                }
+            }
+            return true;
+        }
+
+        private void signalIfTerminated() {
+            if (isTerminated()) {
+                synchronized (terminationLock) {
+                    terminationLock.notifyAll();
+                }
+            }
+        }
+
+        private final class ScopedTask implements Runnable {
+            private final Runnable command;
+
+            ScopedTask(Runnable command) {
+                this.command = command;
+            }
+
+            @Override
+            public void run() {
+                // Counted as running before leaving pending, so isTerminated never sees neither
+                running.incrementAndGet();
+                try {
+                    if (pending.remove(this)) {
+                        command.run();
+                    }
+                } finally {
+                    running.decrementAndGet();
+                    signalIfTerminated();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.expensetracker.utils;
+
+import android.os.CancellationSignal;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks a series of requests where each one supersedes the previous, like
+ * search-as-you-type. Starting a request cancels the previous one's
+ * {@link CancellationSignal}, which interrupts its SQLite query, and only the latest
+ * request gets to deliver its result.
+ */
+public final class LatestRequest {
+    private final AtomicLong generation = new AtomicLong();
+    private Request current; // Guarded by this
+
+    /**
+     * Start a new request, cancelling the one in flight
+     */
+    public synchronized Request next() {
+        if (current != null) {
+            current.signal.cancel();
+        }
+        current = new Request(generation.incrementAndGet());
+        return current;
+    }
+
+    /**
+     * Cancel the request in flight without starting a new one
+     */
+    public synchronized void cancel() {
+        if (current != null) {
+            current.signal.cancel();
+            current = null;
+        }
+        generation.incrementAndGet();
+    }
+
+    public final class Request {
+        private final long id;
+        private final CancellationSignal signal = new CancellationSignal();
+
+        private Request(long id) {
+            this.id = id;
+        }
+
+        /**
+         * False once a newer request has started or this one was cancelled
+         */
+        public boolean isCurrent() {
+            return id == generation.get();
+        }
+
+        public CancellationSignal getCancellationSignal() {
+            return signal;
+        }
+
+        /**
+         * Run a result delivery on the main thread, unless this request has been superseded by then
+         */
+        public void postIfCurrent(Runnable delivery) {
+            AppExecutors.get().mainThread().execute(() -> {
+                if (isCurrent()) {
+                    delivery.run();
+                }
+            });
+        }
+    }
+}
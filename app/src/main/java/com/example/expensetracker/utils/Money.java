@@ -0,0 +1,25 @@
+package com.example.expensetracker.utils;
+
+import java.util.Locale;
+
+/**
+ * Amounts are stored and summed as whole paise in a {@code long}, which is exact and
+ * can be used directly as a hash or equality key. Convert to rupees only for display.
+ */
+public final class Money {
+    private Money() {
+    }
+
+    public static long toPaise(double rupees) {
+        return Math.round(rupees * 100);
+    }
+
+    public static double toRupees(long paise) {
+        return paise / 100.0;
+    }
+
+    // e.g. ₹1234.50
+    public static String format(long paise) {
+        return String.format(Locale.getDefault(), "₹%.2f", toRupees(paise));
+    }
+}
@@ -1,40 +1,50 @@
 package com.example.expensetracker.utils;
 
 import android.content.Context;
+import android.os.OperationCanceledException;
 import android.util.Log;
 import android.view.View;
-import android.view.ViewGroup;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.PagingData;
 import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.expensetracker.MainActivity;
 import com.example.expensetracker.R;
 import com.example.expensetracker.adapters.DateGroupedTransactionAdapter;
+import com.example.expensetracker.adapters.PagedTransactionAdapter;
 import com.example.expensetracker.adapters.TransactionAdapter;
-import com.example.expensetracker.database.TransactionDao;
+import com.example.expensetracker.adapters.TransactionGroupingEngine;
+import com.example.expensetracker.adapters.TransactionLookup;
+import com.example.expensetracker.database.CancellableSearch;
+import com.example.expensetracker.database.TransactionAggregateDao;
 import com.example.expensetracker.database.TransactionDatabase;
+import com.example.expensetracker.database.TransactionSearchFilter;
 import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.models.TransactionType;
+import com.example.expensetracker.repository.RangeSnapshot;
+import com.example.expensetracker.repository.RangeSnapshotStore;
+import com.example.expensetracker.repository.TransactionUpdateQueue;
+import com.example.expensetracker.viewmodel.TransactionViewModel;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 
 /**
- * Smart loading strategy for transactions that adapts between individual pagination
- * and date-grouped views based on data volume
+ * Loading strategy for the main transaction list. The flat list is paged from Room,
+ * the grouped views load the range and group it.
  */
 public class SmartLoadingStrategy {
     private static final String TAG = "SmartLoadingStrategy";
 
-    // Threshold for switching to grouped view
-    private static final int GROUPED_VIEW_THRESHOLD = 100;
-
     // Current state
     private boolean isGroupedViewActive = false;
     private boolean isLoading = false;
@@ -43,11 +53,18 @@ public class SmartLoadingStrategy {
     private final ExecutorService executorService;
     private final RecyclerView recyclerView;
     private final TransactionAdapter transactionAdapter;
+    private final PagedTransactionAdapter pagedAdapter;
     private final DateGroupedTransactionAdapter groupedAdapter;
     private final TextView emptyStateText;
     private final View loadingIndicator;
     private FilterState currentFilterState;
     private int groupingMode = 0; // 0 = Day, 1 = Week, 2 = Month, 3 = Category, 4 = Merchant, 5 = Amount Range, 6 = Bank
+    private LiveData<PagingData<Transaction>> pagedTransactions;
+    private ItemTouchHelper listItemTouchHelper;
+
+    // Each load supersedes the previous one, so typing in the search box only finishes the last
+    private final LatestRequest loadRequests = new LatestRequest();
+    private final TransactionGroupingEngine groupingEngine = new TransactionGroupingEngine();
 
     // Interfaces for loading callbacks
     public interface TransactionLoadCallback {
@@ -77,6 +94,12 @@ public class SmartLoadingStrategy {
         if (clickListener != null) {
             groupedAdapter.setOnTransactionClickListener(clickListener);
         }
+
+        // Paged adapter for the flat list, sharing the row listeners
+        this.pagedAdapter = new PagedTransactionAdapter();
+        if (clickListener != null) {
+            pagedAdapter.setOnTransactionClickListener(clickListener);
+        }
     }
 
     /**
@@ -104,6 +127,12 @@ public class SmartLoadingStrategy {
         if (clickListener != null) {
             groupedAdapter.setOnTransactionClickListener(clickListener);
         }
+
+        // Paged adapter for the flat list, sharing the row listeners
+        this.pagedAdapter = new PagedTransactionAdapter();
+        if (clickListener != null) {
+            pagedAdapter.setOnTransactionClickListener(clickListener);
+        }
     }
 
     /**
@@ -138,6 +167,7 @@ public class SmartLoadingStrategy {
      */
     public void setOnTransactionClickListener(TransactionAdapter.OnTransactionClickListener listener) {
         transactionAdapter.setOnTransactionClickListener(listener);
+        pagedAdapter.setOnTransactionClickListener(listener);
         groupedAdapter.setOnTransactionClickListener(listener);
     }
 
@@ -146,6 +176,7 @@ public class SmartLoadingStrategy {
      */
     public void setOnTransactionLongClickListener(TransactionAdapter.OnTransactionLongClickListener listener) {
         transactionAdapter.setOnTransactionLongClickListener(listener);
+        pagedAdapter.setOnTransactionLongClickListener(listener);
         groupedAdapter.setOnTransactionLongClickListener(listener);
     }
 
@@ -164,78 +195,19 @@ public class SmartLoadingStrategy {
         SwipeToExcludeCallback swipeCallback;
 
         if (isGroupedViewActive) {
-            // For grouped view, create a special swipe handler for the nested RecyclerViews
-            setupGroupedSwipeToExclude(context, listener);
-        } else {
-            // For regular list view, attach the swipe handler to the main RecyclerView
-            swipeCallback = new SwipeToExcludeCallback(context, transactionAdapter, listener);
-            ItemTouchHelper itemTouchHelper = new ItemTouchHelper(swipeCallback);
-            itemTouchHelper.attachToRecyclerView(recyclerView);
-        }
-    }
-
-    /**
-     * Special handling for setting up swipe in grouped view
-     * We need to find all nested RecyclerViews and attach the swipe handler to each
-     */
-    private void setupGroupedSwipeToExclude(Context context, SwipeToExcludeCallback.SwipeActionListener listener) {
-        if (recyclerView == null || groupedAdapter == null) return;
-
-        // We need to find the nested RecyclerViews inside each group
-        recyclerView.addOnChildAttachStateChangeListener(new RecyclerView.OnChildAttachStateChangeListener() {
-            @Override
-            public void onChildViewAttachedToWindow(@NonNull View view) {
-                // Look for the nestedTransactionList RecyclerView in each group item
-                RecyclerView nestedList = view.findViewById(R.id.nestedTransactionList);
-                if (nestedList != null) {
-                    // Get the adapter
-                    RecyclerView.Adapter<?> nestedAdapter = nestedList.getAdapter();
-                    if (nestedAdapter instanceof TransactionAdapter) {
-                        // Attach swipe handler to this nested list
-                        SwipeToExcludeCallback swipeCallback = new SwipeToExcludeCallback(
-                                context,
-                                (TransactionAdapter) nestedAdapter,
-                                listener
-                        );
-                        ItemTouchHelper itemTouchHelper = new ItemTouchHelper(swipeCallback);
-                        itemTouchHelper.attachToRecyclerView(nestedList);
-                    }
-                }
-            }
-
-            @Override
-            public void onChildViewDetachedFromWindow(@NonNull View view) {
-                // Nothing needed here
-            }
-        });
-    }
-
-    /**
-     * Recursively find and setup swipe handlers on nested RecyclerViews
-     */
-    private void findAndSetupNestedRecyclerViews(ViewGroup viewGroup, Context context,
-                                                 SwipeToExcludeCallback.SwipeActionListener listener) {
-        for (int i = 0; i < viewGroup.getChildCount(); i++) {
-            View child = viewGroup.getChildAt(i);
-
-            if (child instanceof RecyclerView) {
-                // Found a nested RecyclerView, set up swipe on it
-                RecyclerView nestedRecyclerView = (RecyclerView) child;
-                RecyclerView.Adapter<?> nestedAdapter = nestedRecyclerView.getAdapter();
-
-                if (nestedAdapter instanceof TransactionAdapter) {
-                    SwipeToExcludeCallback swipeCallback = new SwipeToExcludeCallback(
-                            context,
-                            (TransactionAdapter) nestedAdapter,
-                            listener
-                    );
-                    ItemTouchHelper itemTouchHelper = new ItemTouchHelper(swipeCallback);
-                    itemTouchHelper.attachToRecyclerView(nestedRecyclerView);
-                }
-            } else if (child instanceof ViewGroup) {
-                // Recursive search for deeper nested RecyclerViews
-                findAndSetupNestedRecyclerViews((ViewGroup) child, context, listener);
-            }
+            // Each nested group list attached its own swipe handler when it was created
+            groupedAdapter.setSwipeActionListener(listener);
+        } else if (listItemTouchHelper == null) {
+            // For regular list view, attach one swipe handler to the main RecyclerView.
+            // It resolves rows through whichever list adapter (paged or TQL results) is current.
+            swipeCallback = new SwipeToExcludeCallback(context, position -> {
+                RecyclerView.Adapter<?> current = recyclerView.getAdapter();
+                return current instanceof TransactionLookup
+                        ? ((TransactionLookup) current).getTransactionAt(position)
+                        : null;
+            }, listener);
+            listItemTouchHelper = new ItemTouchHelper(swipeCallback);
+            listItemTouchHelper.attachToRecyclerView(recyclerView);
         }
     }
 
@@ -278,14 +250,7 @@ public class SmartLoadingStrategy {
         } else {
             // Switch to list view
             isGroupedViewActive = false;
-            updateAdapterInMainThread(transactionAdapter);
-
-            // Clear the adapter to avoid showing stale data during loading
-            if (context instanceof android.app.Activity) {
-                ((android.app.Activity) context).runOnUiThread(() -> {
-                    transactionAdapter.clearTransactions();
-                });
-            }
+            updateAdapterInMainThread(pagedAdapter);
 
             // We need to get the current date range from the context, if possible
             if (context instanceof MainActivity) {
@@ -314,46 +279,13 @@ public class SmartLoadingStrategy {
             loadingIndicator.setVisibility(View.VISIBLE);
         }
 
-        executorService.execute(() -> {
-            try {
-                // First, check if we have a forced view mode
-                if (forceGroupedView) {
-                    Log.d(TAG, "Using grouped view (manually selected by user)");
-                    loadGroupedTransactions(fromDate, toDate);
-                    return;
-                }
-
-                // Otherwise, count transactions to determine strategy
-                TransactionDao dao = TransactionDatabase.getInstance(context).transactionDao();
-                int count = dao.getTransactionCountBetweenDates(fromDate, toDate);
-
-                Log.d(TAG, "Found " + count + " transactions in date range");
-
-                if (count > GROUPED_VIEW_THRESHOLD && !currentFilterState.viewingManuallyExcluded) {
-                    // Use grouped view for large data sets
-                    Log.d(TAG, "Automatically switching to grouped view due to large data volume (" + count + " transactions)");
-
-                    // Show toast message on main thread to inform user
-                    if (context instanceof android.app.Activity) {
-                        ((android.app.Activity) context).runOnUiThread(() -> {
-                            Toast.makeText(context,
-                                    "Switched to grouped view for better performance (" + count + " transactions)",
-                                    Toast.LENGTH_SHORT).show();
-                        });
-                    }
-
-                    loadGroupedTransactions(fromDate, toDate);
-                } else {
-                    // Use regular pagination for smaller data sets
-                    loadPaginatedTransactions(fromDate, toDate);
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error counting transactions", e);
-
-                // Fallback to pagination on error
-                loadPaginatedTransactions(fromDate, toDate);
-            }
-        });
+        // The paged list handles any range size, grouping is only used when the user picks it
+        if (forceGroupedView) {
+            Log.d(TAG, "Using grouped view (manually selected by user)");
+            loadGroupedTransactions(fromDate, toDate);
+        } else {
+            loadPaginatedTransactions(fromDate, toDate);
+        }
     }
 
     /**
@@ -361,31 +293,41 @@ public class SmartLoadingStrategy {
      */
     private void loadGroupedTransactions(long fromDate, long toDate) {
         Log.d(TAG, "Using grouped transaction view with mode: " + groupingMode);
-        executorService.execute(() -> {
+        LatestRequest.Request request = loadRequests.next();
+        String searchQuery = currentFilterState.searchQuery;
+
+        // Search text is matched in SQL, like the paged list's, on columns edits in the
+        // write-behind queue may change, so a search is chained on the queue's flush
+        CompletableFuture<Void> ready = searchQuery.isEmpty()
+                ? CompletableFuture.completedFuture(null)
+                : TransactionUpdateQueue.getInstance(context).flush();
+        ready.thenRunAsync(() -> {
+            if (!request.isCurrent()) {
+                return;
+            }
             try {
-                TransactionDao dao = TransactionDatabase.getInstance(context).transactionDao();
-
-                // Load all transactions for the date range
-                List<Transaction> transactions;
-
-                Log.d(TAG, "Loading transactions - showingExcluded: " + currentFilterState.showingExcluded + ", viewingManuallyExcluded: " + currentFilterState.viewingManuallyExcluded);
-
-                if (currentFilterState.viewingManuallyExcluded) {
-                    transactions = dao.getManuallyExcludedTransactionsBetweenDatesSync(fromDate, toDate);
-                    Log.d(TAG, "Fetched manually excluded transactions: " + (transactions != null ? transactions.size() : 0));
-                } else if (currentFilterState.showingExcluded) {
-                    // When showing excluded transactions, fetch ALL transactions
-                    transactions = dao.getTransactionsBetweenDatesSync(fromDate, toDate);
-                    Log.d(TAG, "Fetched ALL transactions (including excluded): " + (transactions != null ? transactions.size() : 0));
-                } else {
-                    // When not showing excluded transactions, fetch only non-excluded ones
-                    transactions = dao.getNonExcludedTransactionsBetweenDatesSync(fromDate, toDate);
-                    Log.d(TAG, "Fetched non-excluded transactions: " + (transactions != null ? transactions.size() : 0));
+                // The range is loaded once; filter changes only intersect its indexes
+                RangeSnapshot snapshot = RangeSnapshotStore.getInstance(context)
+                        .getSnapshot(fromDate, toDate);
+                BitSet searchMatches = null;
+                if (!searchQuery.isEmpty()) {
+                    searchMatches = snapshot.withIds(CancellableSearch.matchingIds(
+                            TransactionDatabase.getInstance(context), searchQuery, fromDate, toDate,
+                            request.getCancellationSignal()));
                 }
-
-                // Apply any additional filters if needed
-                if (currentFilterState != null && currentFilterState.isAnyFilterActive()) {
-                    transactions = currentFilterState.applyFilters(transactions);
+                BitSet selection = currentFilterState.select(snapshot, searchMatches);
+                int sortOption = currentFilterState.sortOption;
+                int mode = groupingMode;
+                List<Transaction> transactions = snapshot.rows(selection, sortOption);
+                TransactionAggregateDao.AmountTotals totals = snapshot.totals(selection);
+                Log.d(TAG, "Selected " + transactions.size() + " of " + snapshot.size() + " transactions");
+
+                // Grouped here too, so the main thread only binds the result
+                List<DateGroupedTransactionAdapter.DateGroup> groups =
+                        groupingEngine.group(transactions, mode, sortOption);
+
+                if (!request.isCurrent()) {
+                    return;
                 }
 
                 // Switch to the grouped adapter if not already
@@ -398,20 +340,23 @@ public class SmartLoadingStrategy {
                 if (context instanceof android.app.Activity) {
                     List<Transaction> finalTransactions = transactions; // For lambda
                     ((android.app.Activity) context).runOnUiThread(() -> {
+                        if (!request.isCurrent()) {
+                            return;
+                        }
                         if (loadingIndicator != null) {
                             loadingIndicator.setVisibility(View.GONE);
                         }
 
                         if (finalTransactions != null && !finalTransactions.isEmpty()) {
-                            // Group transactions and update adapter with the grouping mode
-                            groupedAdapter.setTransactions(finalTransactions, groupingMode, currentFilterState.sortOption);
+                            groupedAdapter.setGroups(groups, mode);
 
                             // Update summary in MainActivity
                             if (context instanceof MainActivity) {
                                 // Get budget value from MainActivity or PreferencesManager
                                 PreferencesManager preferencesManager = new PreferencesManager(context);
                                 double budget = preferencesManager.getBudgetAmount(0.0);
-                                ((MainActivity) context).updateSummaryWithBudget(finalTransactions, budget);
+                                ((MainActivity) context).updateSummaryWithTotals(
+                                        totals.debitPaise, totals.creditPaise, budget);
                             }
 
                             // Hide empty state
@@ -420,21 +365,7 @@ public class SmartLoadingStrategy {
                             }
 
                             // Update transaction count indicators if filters are active
-                            updateFilterIndicator(finalTransactions);
-                            
-                            // Re-setup swipe functionality with correct action type for grouped view
-                            // Delay slightly to ensure grouped adapter has set up nested views
-                            if (context instanceof MainActivity) {
-                                MainActivity activity = (MainActivity) context;
-                                activity.runOnUiThread(() -> {
-                                    setupSwipeToExclude(context, new SwipeToExcludeCallback.SwipeActionListener() {
-                                        @Override
-                                        public void onSwipeToExclude(Transaction transaction) {
-                                            activity.excludeTransactionManually(transaction);
-                                        }
-                                    });
-                                });
-                            }
+                            updateFilterIndicator(finalTransactions.size());
                         } else {
                             // Show empty state
                             if (emptyStateText != null) {
@@ -442,133 +373,139 @@ public class SmartLoadingStrategy {
                             }
 
                             // Clear the adapter
-                            groupedAdapter.setTransactions(new ArrayList<>(), groupingMode, currentFilterState.sortOption);
+                            groupedAdapter.setGroups(new ArrayList<>(), mode);
                         }
 
                         isLoading = false;
                     });
                 }
+            } catch (OperationCanceledException e) {
+                Log.d(TAG, "Superseded grouped search cancelled");
             } catch (Exception e) {
                 Log.e(TAG, "Error loading grouped transactions", e);
 
                 // Fallback to pagination on error
-                loadPaginatedTransactions(fromDate, toDate);
+                if (request.isCurrent()) {
+                    loadPaginatedTransactions(fromDate, toDate);
+                }
             }
-        });
+        }, executorService);
     }
 
     /**
-     * Load transactions with pagination
+     * Load the flat list through a Room PagingSource. Filters and sorting run in SQL,
+     * so only the rows around the visible window are held in memory for any range size.
      */
     private void loadPaginatedTransactions(long fromDate, long toDate) {
-        Log.d(TAG, "Using paginated transaction view");
+        if (!(context instanceof MainActivity)) return;
+        MainActivity activity = (MainActivity) context;
+        Log.d(TAG, "Using paged transaction view");
 
-        // Switch to the regular adapter if not already
-        if (isGroupedViewActive) {
+        TransactionSearchFilter listFilter = buildListFilter(fromDate, toDate);
+        TransactionDatabase database = TransactionDatabase.getInstance(context);
+        LatestRequest.Request request = loadRequests.next();
+
+        activity.runOnUiThread(() -> {
+            if (!request.isCurrent()) {
+                return;
+            }
+            // Switch to the paged adapter if not already
             isGroupedViewActive = false;
-            updateAdapterInMainThread(transactionAdapter);
-        }
+            if (recyclerView.getAdapter() != pagedAdapter) {
+                updateAdapterInMainThread(pagedAdapter);
+            }
 
-        // Use the regular pagination loading logic
-        executorService.execute(() -> {
-            try {
-                TransactionDao dao = TransactionDatabase.getInstance(context).transactionDao();
+            // The ViewModel keeps one pager and switches it to the new filter. Its PagingSource
+            // is invalidated on every write to transactions, so edits and exclusions show up
+            // without reloading the whole list
+            TransactionViewModel viewModel = new ViewModelProvider(activity).get(TransactionViewModel.class);
+            viewModel.setListFilter(listFilter);
+            if (pagedTransactions == null) {
+                pagedTransactions = viewModel.getPagedTransactions();
+                pagedTransactions.observe(activity, pagingData ->
+                        pagedAdapter.submitData(activity.getLifecycle(), pagingData));
+            }
 
-                // Get all transactions for the given date range, not just the first page
-                List<Transaction> transactions;
+            isLoading = false;
+        });
 
-                Log.d(TAG, "Loading paginated transactions - showingExcluded: " + currentFilterState.showingExcluded + ", viewingManuallyExcluded: " + currentFilterState.viewingManuallyExcluded);
+        // Summary and result count come from one aggregate query over the same filter. It filters
+        // and sums on columns that edits in the write-behind queue may change, so it is chained
+        // on the queue's flush instead of holding a read thread until the write lane gets to it
+        TransactionUpdateQueue.getInstance(context).flush().thenRunAsync(() -> {
+            if (!request.isCurrent()) {
+                return;
+            }
+            TransactionAggregateDao.AmountTotals totals;
+            try {
+                // Cancelled mid-query if another load starts, e.g. on the next keystroke
+                totals = CancellableSearch.totals(database, listFilter, request.getCancellationSignal());
+            } catch (OperationCanceledException e) {
+                Log.d(TAG, "Superseded list totals query cancelled");
+                return;
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading list totals", e);
+                activity.runOnUiThread(() -> {
+                    if (loadingIndicator != null) {
+                        loadingIndicator.setVisibility(View.GONE);
+                    }
+                    Toast.makeText(context, "Error loading transactions", Toast.LENGTH_SHORT).show();
+                });
+                return;
+            }
 
-                if (currentFilterState.viewingManuallyExcluded) {
-                    transactions = dao.getManuallyExcludedTransactionsBetweenDatesSync(fromDate, toDate);
-                    Log.d(TAG, "Fetched manually excluded transactions: " + (transactions != null ? transactions.size() : 0));
-                } else if (currentFilterState.showingExcluded) {
-                    // When showing excluded transactions, fetch ALL transactions
-                    transactions = dao.getTransactionsBetweenDatesSync(fromDate, toDate);
-                    Log.d(TAG, "Fetched ALL transactions (including excluded): " + (transactions != null ? transactions.size() : 0));
-                } else {
-                    // When not showing excluded transactions, fetch only non-excluded ones
-                    transactions = dao.getNonExcludedTransactionsBetweenDatesSync(fromDate, toDate);
-                    Log.d(TAG, "Fetched non-excluded transactions: " + (transactions != null ? transactions.size() : 0));
+            activity.runOnUiThread(() -> {
+                if (!request.isCurrent()) {
+                    return;
                 }
-
-                // Apply any additional filters if needed
-                if (currentFilterState != null && currentFilterState.isAnyFilterActive() && transactions != null) {
-                    transactions = currentFilterState.applyFilters(transactions);
+                if (loadingIndicator != null) {
+                    loadingIndicator.setVisibility(View.GONE);
                 }
 
-                // Update UI in main thread
-                if (context instanceof android.app.Activity) {
-                    List<Transaction> finalTransactions = transactions; // Need final for lambda
-                    ((android.app.Activity) context).runOnUiThread(() -> {
-                        if (loadingIndicator != null) {
-                            loadingIndicator.setVisibility(View.GONE);
-                        }
+                PreferencesManager preferencesManager = new PreferencesManager(context);
+                double budget = preferencesManager.getBudgetAmount(0.0);
+                activity.updateSummaryWithTotals(totals.debitPaise, totals.creditPaise, budget);
 
-                        if (finalTransactions != null && !finalTransactions.isEmpty()) {
-                            // Update adapter
-                            transactionAdapter.setTransactions(finalTransactions);
-
-                            // Update summary in MainActivity
-                            if (context instanceof MainActivity) {
-                                // Get budget value from MainActivity or PreferencesManager
-                                PreferencesManager preferencesManager = new PreferencesManager(context);
-                                double budget = preferencesManager.getBudgetAmount(0.0);
-                                ((MainActivity) context).updateSummaryWithBudget(finalTransactions, budget);
-                            }
-
-                            // Hide empty state
-                            if (emptyStateText != null) {
-                                emptyStateText.setVisibility(View.GONE);
-                            }
-
-                            // Update transaction count indicators if filters are active
-                            updateFilterIndicator(finalTransactions);
-                            
-                            // Re-setup swipe functionality with correct action type
-                            if (context instanceof MainActivity) {
-                                MainActivity activity = (MainActivity) context;
-                                setupSwipeToExclude(context, new SwipeToExcludeCallback.SwipeActionListener() {
-                                    @Override
-                                    public void onSwipeToExclude(Transaction transaction) {
-                                        activity.excludeTransactionManually(transaction);
-                                    }
-                                });
-                            }
-                        } else {
-                            // Show empty state
-                            if (emptyStateText != null) {
-                                emptyStateText.setVisibility(View.VISIBLE);
+                if (emptyStateText != null) {
+                    emptyStateText.setVisibility(totals.transactionCount == 0 ? View.VISIBLE : View.GONE);
+                }
 
-                                // Clear adapter
-                                transactionAdapter.clearTransactions();
-                            }
-                        }
+                // Update transaction count indicators if filters are active
+                updateFilterIndicator(totals.transactionCount);
+            });
+        });
+    }
 
-                        isLoading = false;
-                    });
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading paginated transactions", e);
+    /**
+     * Translate the current filter state into the SQL filter used by the paged list
+     */
+    private TransactionSearchFilter buildListFilter(long fromDate, long toDate) {
+        TransactionSearchFilter.Builder builder = new TransactionSearchFilter.Builder()
+                .dateRange(fromDate, toDate)
+                .searchText(currentFilterState.searchQuery)
+                .bank(currentFilterState.bank)
+                .type(currentFilterState.type)
+                .category(currentFilterState.category)
+                .amountRange(currentFilterState.minAmount > 0 ? currentFilterState.minAmount : null,
+                        currentFilterState.maxAmount < 100000 ? currentFilterState.maxAmount : null)
+                .sortOption(currentFilterState.sortOption);
+
+        if (currentFilterState.recurringOnly) {
+            builder.isRecurring(true);
+        }
 
-                // Handle error in main thread
-                if (context instanceof android.app.Activity) {
-                    ((android.app.Activity) context).runOnUiThread(() -> {
-                        if (loadingIndicator != null) {
-                            loadingIndicator.setVisibility(View.GONE);
-                        }
+        if (currentFilterState.viewingManuallyExcluded) {
+            builder.excludedFromTotal(true).isOtherDebit(false);
+        } else if (!currentFilterState.showingExcluded) {
+            builder.excludedFromTotal(false);
+        }
 
-                        Toast.makeText(context, "Error loading transactions", Toast.LENGTH_SHORT).show();
-                        isLoading = false;
-                    });
-                }
-            }
-        });
+        return builder.build();
     }
 
     // Update filter indicator in MainActivity
     // Update in SmartLoadingStrategy.java
-    private void updateFilterIndicator(List<Transaction> transactions) {
+    private void updateFilterIndicator(int resultCount) {
         if (context instanceof MainActivity) {
             MainActivity activity = (MainActivity) context;
             View filterContainer = activity.findViewById(R.id.filterIndicatorContainer);
@@ -655,9 +592,9 @@ public class SmartLoadingStrategy {
                     filterContainer.setVisibility(View.VISIBLE);
                     filterText.setText(desc.toString());
 
-                    if (countText != null && transactions != null) {
+                    if (countText != null) {
                         countText.setText(String.format(Locale.getDefault(),
-                                "%d transaction(s) found", transactions.size()));
+                                "%d transaction(s) found", resultCount));
                     }
                 } else {
                     filterContainer.setVisibility(View.GONE);
@@ -702,15 +639,8 @@ public class SmartLoadingStrategy {
     public void updateTransactionInAdapters(Transaction editedTransaction) {
         if (context instanceof android.app.Activity) {
             ((android.app.Activity) context).runOnUiThread(() -> {
-                // Update in regular adapter
-                List<Transaction> regularList = transactionAdapter.getTransactions();
-                for (int i = 0; i < regularList.size(); i++) {
-                    if (regularList.get(i).getId() == editedTransaction.getId()) {
-                        regularList.set(i, editedTransaction);
-                        transactionAdapter.notifyItemChanged(i);
-                        break;
-                    }
-                }
+                // Update in regular adapter; only the edited row rebinds
+                transactionAdapter.updateTransaction(editedTransaction);
 
                 // If grouped view is active, reload grouped data
                 // This is simpler than trying to update the nested structure
@@ -738,6 +668,13 @@ public class SmartLoadingStrategy {
         loadTransactionsForDateRange(fromDate, toDate);
     }
 
+    /**
+     * Cancel the load in flight, e.g. when the screen goes away
+     */
+    public void cancelPendingLoads() {
+        loadRequests.cancel();
+    }
+
     /**
      * Set the grouping mode for transaction groups
      * @param mode The grouping mode (0 = Day, 1 = Week, 2 = Month, 3 = Category, 4 = Merchant, 5 = Amount Range, 6 = Bank)
@@ -773,6 +710,12 @@ public class SmartLoadingStrategy {
         
         // Always use individual transaction view for TQL results to show the actual matching transactions
         isGroupedViewActive = false;
+
+        // TQL results are a complete list, stop feeding the paged list
+        if (pagedTransactions != null && context instanceof MainActivity) {
+            pagedTransactions.removeObservers((MainActivity) context);
+            pagedTransactions = null;
+        }
         
         // Update the individual transaction adapter
         transactionAdapter.setTransactions(transactions);
@@ -832,139 +775,57 @@ public class SmartLoadingStrategy {
                     recurringOnly;
         }
 
-        // Apply filters to a list of transactions
-        public List<Transaction> applyFilters(List<Transaction> transactions) {
-            if (transactions == null) return new ArrayList<>();
-
-            List<Transaction> filtered = new ArrayList<>();
-
-            for (Transaction transaction : transactions) {
-                boolean include = true;
-
-                // Apply bank filter
-                if (!bank.equals("All Banks") && !bank.equals(transaction.getBank())) {
-                    include = false;
-                }
-
-                // Apply type filter
-                if (include && !type.equals("All Types") && !type.equals(transaction.getType())) {
-                    include = false;
-                }
-
-                // Apply category filter
-                if (include && category != null && !category.isEmpty() &&
-                        !category.equals(transaction.getCategory())) {
-                    include = false;
-                }
-
-                // Apply amount filter
-                if (include && (transaction.getAmount() < minAmount ||
-                        transaction.getAmount() > maxAmount)) {
-                    include = false;
-                }
-
-                // Apply search filter
-                if (include && !searchQuery.isEmpty()) {
-                    boolean matchesSearch = false;
-                    String query = searchQuery.toLowerCase();
-
-                    // Check description
-                    if (transaction.getDescription() != null &&
-                            transaction.getDescription().toLowerCase().contains(query)) {
-                        matchesSearch = true;
-                    }
+        /**
+         * Select the rows of a snapshot matching this filter. Exclusion, bank, type, category,
+         * recurring and search text are bitset intersections; the amount range is then checked
+         * against the snapshot's amount array for the rows left.
+         * @param searchMatches Rows the search text matches, see {@link CancellableSearch#matchingIds};
+         *                      null when there is no search text
+         */
+        public BitSet select(RangeSnapshot snapshot, BitSet searchMatches) {
+            BitSet selection = snapshot.all();
+
+            // Apply exclusion filter
+            if (viewingManuallyExcluded) {
+                selection.and(snapshot.excluded());
+                selection.andNot(snapshot.otherDebit());
+            } else if (!showingExcluded) {
+                selection.andNot(snapshot.excluded());
+            }
 
-                    // Check bank
-                    if (!matchesSearch && transaction.getBank() != null &&
-                            transaction.getBank().toLowerCase().contains(query)) {
-                        matchesSearch = true;
-                    }
+            // Apply bank, type and category filters
+            if (!bank.equals("All Banks")) {
+                selection.and(snapshot.bank(bank));
+            }
+            if (!type.equals("All Types")) {
+                selection.and(snapshot.type(TransactionType.fromName(type)));
+            }
+            if (category != null && !category.isEmpty()) {
+                selection.and(snapshot.category(category));
+            }
 
-                    // Check category
-                    if (!matchesSearch && transaction.getCategory() != null &&
-                            transaction.getCategory().toLowerCase().contains(query)) {
-                        matchesSearch = true;
-                    }
+            // Apply recurring filter
+            if (recurringOnly) {
+                selection.and(snapshot.recurring());
+            }
 
-                    // Check merchant
-                    if (!matchesSearch && transaction.getMerchantName() != null &&
-                            transaction.getMerchantName().toLowerCase().contains(query)) {
-                        matchesSearch = true;
-                    }
+            // Apply search filter, matched in SQL with the paged list's definition
+            if (searchMatches != null) {
+                selection.and(searchMatches);
+            }
 
-                    // Check amount (support both exact and partial matches)
-                    if (!matchesSearch) {
-                        String amountString = String.valueOf(transaction.getAmount());
-                        // Check if query matches amount (supports partial matches like "100" matching "1000")
-                        if (amountString.contains(query)) {
-                            matchesSearch = true;
-                            Log.d(TAG, "Amount search match found: " + query + " in " + amountString);
-                        }
-                        // Also check formatted amount (e.g., "₹1000" or "1000.00")
-                        if (!matchesSearch) {
-                            String formattedAmount = String.format("%.2f", transaction.getAmount());
-                            if (formattedAmount.contains(query)) {
-                                matchesSearch = true;
-                                Log.d(TAG, "Formatted amount search match found: " + query + " in " + formattedAmount);
-                            }
-                        }
+            // Apply amount filter; the slider's end points mean no bound, as in the paged list
+            if (minAmount > 0 || maxAmount < 100000) {
+                long minPaise = minAmount > 0 ? Money.toPaise(minAmount) : Long.MIN_VALUE;
+                long maxPaise = maxAmount < 100000 ? Money.toPaise(maxAmount) : Long.MAX_VALUE;
+                for (int i = selection.nextSetBit(0); i >= 0; i = selection.nextSetBit(i + 1)) {
+                    long amountPaise = snapshot.getAmountPaise(i);
+                    if (amountPaise < minPaise || amountPaise > maxPaise) {
+                        selection.clear(i);
                     }
-
-                    include = matchesSearch;
-                }
-
-                // Apply exclusion filter
-                if (include && !showingExcluded && transaction.isExcludedFromTotal()) {
-                    include = false;
-                    Log.d(TAG, "Filtering out excluded transaction: " + transaction.getDescription());
                 }
-
-                // Apply recurring filter
-                if (include && recurringOnly && !transaction.isRecurring()) {
-                    include = false;
-                }
-
-                if (include) {
-                    filtered.add(transaction);
-                }
-            }
-
-            // Apply sort
-            sortTransactions(filtered, sortOption);
-
-            return filtered;
-        }
-
-        // Helper method to sort transactions
-        private void sortTransactions(List<Transaction> transactions, int sortOption) {
-            switch (sortOption) {
-                case 0: // Date (newest first)
-                    Collections.sort(transactions, (a, b) -> Long.compare(b.getDate(), a.getDate()));
-                    break;
-                case 1: // Date (oldest first)
-                    Collections.sort(transactions, (a, b) -> Long.compare(a.getDate(), b.getDate()));
-                    break;
-                case 2: // Amount (highest first)
-                    Collections.sort(transactions, (a, b) -> Double.compare(b.getAmount(), a.getAmount()));
-                    break;
-                case 3: // Amount (lowest first)
-                    Collections.sort(transactions, (a, b) -> Double.compare(a.getAmount(), b.getAmount()));
-                    break;
-                case 4: // Description (A-Z)
-                    Collections.sort(transactions, (a, b) -> {
-                        String descA = a.getDescription() != null ? a.getDescription() : "";
-                        String descB = b.getDescription() != null ? b.getDescription() : "";
-                        return descA.compareToIgnoreCase(descB);
-                    });
-                    break;
-                case 5: // Description (Z-A)
-                    Collections.sort(transactions, (a, b) -> {
-                        String descA = a.getDescription() != null ? a.getDescription() : "";
-                        String descB = b.getDescription() != null ? b.getDescription() : "";
-                        return descB.compareToIgnoreCase(descA);
-                    });
-                    break;
             }
+            return selection;
         }
     }
 }
\ No newline at end of file
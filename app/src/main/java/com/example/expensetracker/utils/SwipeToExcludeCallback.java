@@ -15,11 +15,12 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.expensetracker.R;
 import com.example.expensetracker.adapters.TransactionAdapter;
+import com.example.expensetracker.adapters.TransactionLookup;
 import com.example.expensetracker.models.Transaction;
 
 public class SwipeToExcludeCallback extends ItemTouchHelper.SimpleCallback {
 
-    private final TransactionAdapter adapter;
+    private final TransactionLookup adapter;
     private final Drawable icon;
     private final ColorDrawable background;
     private final int iconMargin;
@@ -36,11 +37,11 @@ public class SwipeToExcludeCallback extends ItemTouchHelper.SimpleCallback {
         void onSwipeToExclude(Transaction transaction);
     }
 
-    public SwipeToExcludeCallback(Context context, TransactionAdapter adapter, SwipeActionListener listener) {
+    public SwipeToExcludeCallback(Context context, TransactionLookup adapter, SwipeActionListener listener) {
         this(context, adapter, listener, SwipeActionType.EXCLUDE);
     }
 
-    public SwipeToExcludeCallback(Context context, TransactionAdapter adapter, SwipeActionListener listener, SwipeActionType actionType) {
+    public SwipeToExcludeCallback(Context context, TransactionLookup adapter, SwipeActionListener listener, SwipeActionType actionType) {
         // Only enable right swipe, disable drag
         super(0, ItemTouchHelper.RIGHT);
 
@@ -85,11 +86,13 @@ public class SwipeToExcludeCallback extends ItemTouchHelper.SimpleCallback {
     public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int direction) {
         int position = viewHolder.getAdapterPosition();
 
+        if (position == RecyclerView.NO_POSITION) return;
+
         // Get the transaction that was swiped
-        Transaction transaction = adapter.getTransactions().get(position);
+        Transaction transaction = adapter.getTransactionAt(position);
 
         // Notify the listener for exclude action
-        if (listener != null) {
+        if (listener != null && transaction != null) {
             listener.onSwipeToExclude(transaction);
         }
     }
@@ -206,12 +206,12 @@ public class TransactionDuplicateDetector {
         int score = 0;
 
         // Same amount is a strong indicator (40 points)
-        if (Math.abs(t1.getAmount() - t2.getAmount()) < 0.01) {
+        if (t1.getAmountPaise() == t2.getAmountPaise()) {
             score += 40;
         }
 
         // Same transaction type (20 points)
-        if (t1.getType() != null && t1.getType().equals(t2.getType())) {
+        if (t1.getTransactionType() != null && t1.getTransactionType() == t2.getTransactionType()) {
             score += 20;
         }
 
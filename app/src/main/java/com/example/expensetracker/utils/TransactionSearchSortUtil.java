@@ -119,6 +119,7 @@ public class TransactionSearchSortUtil {
      * @param sortBy Field to sort by (date, amount, description, etc.)
      * @param ascending True for ascending order, false for descending
      * @return Sorted list of transactions
+     * @see TransactionSortIndex for sorting subsets of one list repeatedly
      */
     public static List<Transaction> sortTransactions(List<Transaction> transactions,
                                                      SortBy sortBy, boolean ascending) {
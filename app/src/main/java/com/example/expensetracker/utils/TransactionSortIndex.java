@@ -0,0 +1,217 @@
+package com.example.expensetracker.utils;
+
+import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.utils.TransactionSearchSortUtil.SortBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sort orders over a fixed array of transactions. The permutation for each sort key is
+ * computed once, on first use, so sorting a subset of the rows after a filter change is a
+ * walk over that permutation instead of a comparator sort of the subset.
+ *
+ * Rows with equal keys keep their order in either direction, like the stable comparator sort
+ * of {@link TransactionSearchSortUtil#sortTransactions}: their order in the array for
+ * {@link #rows}, their order in the given collection for {@link #sort}.
+ */
+public final class TransactionSortIndex {
+    private final Transaction[] rows;
+
+    // Built on first use; guarded by this
+    private final Map<SortBy, int[]> orders = new EnumMap<>(SortBy.class);
+    // Per sort key and row position, the index in the order where the row's run of equal keys starts
+    private final Map<SortBy, int[]> runStarts = new EnumMap<>(SortBy.class);
+    private Map<Transaction, Integer> positions;
+
+    /**
+     * @param rows Not copied, must not be modified afterwards
+     */
+    public TransactionSortIndex(Transaction[] rows) {
+        this.rows = rows;
+    }
+
+    public TransactionSortIndex(List<Transaction> rows) {
+        this(rows.toArray(new Transaction[0]));
+    }
+
+    /**
+     * The selected positions' transactions ordered by a sort key
+     */
+    public List<Transaction> rows(BitSet selection, SortBy sortBy, boolean ascending) {
+        int[] order = order(sortBy);
+        List<Transaction> result = new ArrayList<>(selection.cardinality());
+        if (ascending) {
+            for (int position : order) {
+                if (selection.get(position)) {
+                    result.add(rows[position]);
+                }
+            }
+        } else {
+            // Runs of equal keys from the last to the first, each run still walked forward
+            int[] runStart = runStarts(sortBy);
+            for (int end = order.length; end > 0; ) {
+                int start = runStart[order[end - 1]];
+                for (int i = start; i < end; i++) {
+                    if (selection.get(order[i])) {
+                        result.add(rows[order[i]]);
+                    }
+                }
+                end = start;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sort transactions taken from this index's rows, e.g. a search result. Falls back to
+     * {@link TransactionSearchSortUtil#sortTransactions} if any of them is not one of the rows.
+     * @return A new list
+     */
+    public List<Transaction> sort(Collection<Transaction> transactions, SortBy sortBy, boolean ascending) {
+        Map<Transaction, Integer> positions = positions();
+        int[] runStart = runStarts(sortBy);
+        Transaction[] input = transactions.toArray(new Transaction[0]);
+
+        // Each entry packs the row's run of equal keys above its index in the input, so sorting
+        // primitives orders by key and keeps ties, duplicates included, in input order
+        long[] keyed = new long[input.length];
+        for (int i = 0; i < input.length; i++) {
+            Integer position = positions.get(input[i]);
+            if (position == null) {
+                return TransactionSearchSortUtil.sortTransactions(
+                        new ArrayList<>(transactions), sortBy, ascending);
+            }
+            long run = ascending ? runStart[position] : rows.length - 1 - runStart[position];
+            keyed[i] = run << 32 | i;
+        }
+        Arrays.sort(keyed);
+
+        List<Transaction> result = new ArrayList<>(input.length);
+        for (long entry : keyed) {
+            result.add(input[(int) entry]);
+        }
+        return result;
+    }
+
+    /**
+     * Positions of the rows in ascending order of a sort key
+     */
+    public synchronized int[] order(SortBy sortBy) {
+        int[] order = orders.get(sortBy);
+        if (order == null) {
+            order = buildOrder(sortBy);
+            orders.put(sortBy, order);
+        }
+        return order;
+    }
+
+    private synchronized int[] runStarts(SortBy sortBy) {
+        int[] runStart = runStarts.get(sortBy);
+        if (runStart == null) {
+            int[] order = order(sortBy);
+            Comparator<Integer> keys = keyComparator(sortBy);
+            runStart = new int[rows.length];
+            for (int i = 0; i < order.length; i++) {
+                boolean continuesRun = i > 0 && keys.compare(order[i - 1], order[i]) == 0;
+                runStart[order[i]] = continuesRun ? runStart[order[i - 1]] : i;
+            }
+            runStarts.put(sortBy, runStart);
+        }
+        return runStart;
+    }
+
+    private synchronized Map<Transaction, Integer> positions() {
+        if (positions == null) {
+            positions = new IdentityHashMap<>(rows.length);
+            for (int i = 0; i < rows.length; i++) {
+                positions.put(rows[i], i);
+            }
+        }
+        return positions;
+    }
+
+    // Boxed once per key, which is the one sort this index pays for
+    private int[] buildOrder(SortBy sortBy) {
+        Integer[] boxed = new Integer[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, keyComparator(sortBy));
+
+        // Arrays.sort on objects is stable, so equal keys stay in position order
+        int[] order = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            order[i] = boxed[i];
+        }
+        return order;
+    }
+
+    // Compares row positions by a sort key, with the keys extracted once
+    private Comparator<Integer> keyComparator(SortBy sortBy) {
+        switch (sortBy) {
+            case AMOUNT: {
+                long[] amounts = new long[rows.length];
+                for (int i = 0; i < rows.length; i++) {
+                    amounts[i] = rows[i].getAmountPaise();
+                }
+                return (a, b) -> Long.compare(amounts[a], amounts[b]);
+            }
+            case DESCRIPTION:
+            case BANK:
+            case CATEGORY:
+            case MERCHANT: {
+                String[] keys = new String[rows.length];
+                for (int i = 0; i < rows.length; i++) {
+                    keys[i] = collationKey(textOf(rows[i], sortBy));
+                }
+                return (a, b) -> keys[a].compareTo(keys[b]);
+            }
+            case DATE:
+            default: {
+                long[] dates = new long[rows.length];
+                for (int i = 0; i < rows.length; i++) {
+                    dates[i] = rows[i].getDate();
+                }
+                return (a, b) -> Long.compare(dates[a], dates[b]);
+            }
+        }
+    }
+
+    private static String textOf(Transaction transaction, SortBy sortBy) {
+        String text;
+        switch (sortBy) {
+            case BANK:
+                text = transaction.getBank();
+                break;
+            case CATEGORY:
+                text = transaction.getCategory();
+                break;
+            case MERCHANT:
+                text = transaction.getMerchantName();
+                break;
+            case DESCRIPTION:
+            default:
+                text = transaction.getDescription();
+                break;
+        }
+        return text != null ? text : "";
+    }
+
+    // Case-folded char by char like String#compareToIgnoreCase, so comparing keys with
+    // compareTo orders them the way the case-insensitive comparators did
+    private static String collationKey(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+}
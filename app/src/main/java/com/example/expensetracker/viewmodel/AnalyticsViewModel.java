@@ -6,8 +6,11 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Transformations;
 
+import com.example.expensetracker.database.TransactionAggregateDao;
 import com.example.expensetracker.models.Transaction;
 import com.example.expensetracker.repository.TransactionRepository;
+import com.example.expensetracker.utils.AppExecutors;
+import com.example.expensetracker.utils.Money;
 
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -17,7 +20,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class AnalyticsViewModel extends AndroidViewModel {
     private final TransactionRepository repository;
@@ -26,7 +28,7 @@ public class AnalyticsViewModel extends AndroidViewModel {
     public AnalyticsViewModel(Application application) {
         super(application);
         repository = new TransactionRepository(application);
-        executorService = Executors.newSingleThreadExecutor();
+        executorService = AppExecutors.get().newReadScope();
     }
 
     public LiveData<MonthlyData> getMonthlyData(long startDate, long endDate) {
@@ -34,31 +36,24 @@ public class AnalyticsViewModel extends AndroidViewModel {
         MutableLiveData<MonthlyData> result = new MutableLiveData<>();
 
         executorService.execute(() -> {
-            android.util.Log.d("AnalyticsViewModel", "=== ANALYTICS DATA RETRIEVAL START ===");
-            android.util.Log.d("AnalyticsViewModel", "Fetching transactions from " + 
+            android.util.Log.d("AnalyticsViewModel", "Fetching totals from " +
                 new java.util.Date(startDate) + " to " + new java.util.Date(endDate));
-            android.util.Log.d("AnalyticsViewModel", "Date range in millis: " + startDate + " to " + endDate);
-            
-            List<Transaction> transactions = null;
+
+            TransactionAggregateDao.AmountTotals totals = null;
+            List<TransactionAggregateDao.DailyTotal> dailyTotals = null;
+            List<TransactionAggregateDao.CategoryTotal> categoryTotals = null;
             try {
-                transactions = repository.getTransactionsBetweenDatesSync(startDate, endDate);
-                android.util.Log.d("AnalyticsViewModel", "Repository returned: " + 
-                    (transactions != null ? transactions.size() : "NULL") + " transactions");
-                
-                if (transactions != null && !transactions.isEmpty()) {
-                    android.util.Log.d("AnalyticsViewModel", "First transaction: Amount=" + 
-                        transactions.get(0).getAmount() + ", Date=" + new java.util.Date(transactions.get(0).getDate()) + 
-                        ", Type=" + transactions.get(0).getType() + ", Excluded=" + transactions.get(0).isExcludedFromTotal());
-                }
+                totals = repository.getNonExcludedTotalsSync(startDate, endDate);
+                dailyTotals = repository.getDailyDebitTotalsSync(startDate, endDate);
+                categoryTotals = repository.getDebitTotalsByCategorySync(startDate, endDate);
             } catch (Exception e) {
-                android.util.Log.e("AnalyticsViewModel", "Error fetching transactions: " + e.getMessage(), e);
+                android.util.Log.e("AnalyticsViewModel", "Error fetching totals: " + e.getMessage(), e);
             }
 
-            MonthlyData monthlyData = calculateMonthlyData(transactions);
+            MonthlyData monthlyData = calculateMonthlyData(totals, dailyTotals, categoryTotals);
             android.util.Log.d("AnalyticsViewModel", "MonthlyData created - Income: " + monthlyData.getTotalIncome() + 
                 ", Expenses: " + monthlyData.getTotalExpenses());
             result.postValue(monthlyData);
-            android.util.Log.d("AnalyticsViewModel", "=== ANALYTICS DATA RETRIEVAL END ===");
         });
 
         return result;
@@ -68,25 +63,16 @@ public class AnalyticsViewModel extends AndroidViewModel {
         MutableLiveData<List<CategoryData>> result = new MutableLiveData<>();
 
         executorService.execute(() -> {
-            List<Transaction> transactions = repository
-                    .getTransactionsBetweenDatesSync(startDate, endDate);
-
-            Map<String, CategoryData> categoryMap = new HashMap<>();
-
-            for (Transaction transaction : transactions) {
-                if (transaction.isDebit() && !transaction.isExcludedFromTotal()) {
-                    String category = transaction.getCategory();
-                    CategoryData data = categoryMap.computeIfAbsent(category,
-                            k -> new CategoryData(k, 0.0, 0));
-
-                    data.totalAmount += transaction.getAmount();
-                    data.transactionCount++;
-                }
+            // Already sorted by total, largest first
+            List<TransactionAggregateDao.CategoryTotal> totals = repository
+                    .getDebitTotalsByCategorySync(startDate, endDate);
+
+            List<CategoryData> categoryList = new ArrayList<>(totals.size());
+            for (TransactionAggregateDao.CategoryTotal total : totals) {
+                categoryList.add(new CategoryData(total.category,
+                        Money.toRupees(total.totalPaise), total.transactionCount));
             }
 
-            List<CategoryData> categoryList = new ArrayList<>(categoryMap.values());
-            categoryList.sort((a, b) -> Double.compare(b.totalAmount, a.totalAmount));
-
             result.postValue(categoryList);
         });
 
@@ -97,15 +83,12 @@ public class AnalyticsViewModel extends AndroidViewModel {
         MutableLiveData<List<BudgetStatus>> result = new MutableLiveData<>();
 
         executorService.execute(() -> {
-            List<Transaction> transactions = repository
-                    .getTransactionsBetweenDatesSync(startDate, endDate);
+            List<TransactionAggregateDao.CategoryTotal> totals = repository
+                    .getDebitTotalsByCategorySync(startDate, endDate);
 
             Map<String, Double> categorySpending = new HashMap<>();
-            for (Transaction transaction : transactions) {
-                if (transaction.isDebit() && !transaction.isExcludedFromTotal()) {
-                    categorySpending.merge(transaction.getCategory(),
-                            transaction.getAmount(), Double::sum);
-                }
+            for (TransactionAggregateDao.CategoryTotal total : totals) {
+                categorySpending.put(total.category, Money.toRupees(total.totalPaise));
             }
 
             // TODO: Get category budgets from preferences or database
@@ -139,75 +122,27 @@ public class AnalyticsViewModel extends AndroidViewModel {
         return result;
     }
 
-    private MonthlyData calculateMonthlyData(List<Transaction> transactions) {
+    private MonthlyData calculateMonthlyData(TransactionAggregateDao.AmountTotals totals,
+                                             List<TransactionAggregateDao.DailyTotal> dailyTotals,
+                                             List<TransactionAggregateDao.CategoryTotal> categoryList) {
         Map<Date, Double> dailyTransactions = new TreeMap<>();
         Map<String, Double> categoryTotals = new HashMap<>();
         List<Double> weeklyTotals = new ArrayList<>();
-        double totalIncome = 0;
-        double totalExpenses = 0;
-
-        // Debug logging
-        android.util.Log.d("AnalyticsViewModel", "=== CALCULATE MONTHLY DATA START ===");
-        android.util.Log.d("AnalyticsViewModel", "calculateMonthlyData called with " + 
-            (transactions != null ? transactions.size() : "null") + " transactions");
 
-        if (transactions == null) {
-            android.util.Log.e("AnalyticsViewModel", "TRANSACTIONS IS NULL!");
-            return new MonthlyData(dailyTransactions, categoryTotals, weeklyTotals, totalIncome, totalExpenses);
+        if (totals == null || dailyTotals == null || categoryList == null) {
+            android.util.Log.e("AnalyticsViewModel", "Totals not available");
+            return new MonthlyData(dailyTransactions, categoryTotals, weeklyTotals, 0, 0);
         }
-        
-        if (transactions.isEmpty()) {
-            android.util.Log.w("AnalyticsViewModel", "TRANSACTIONS LIST IS EMPTY!");
-            return new MonthlyData(dailyTransactions, categoryTotals, weeklyTotals, totalIncome, totalExpenses);
-        }
-        
-        android.util.Log.d("AnalyticsViewModel", "Processing " + transactions.size() + " transactions...");
 
-        // Initialize data structures
-        Calendar cal = Calendar.getInstance();
+        // Same exclusion logic as MainActivity: the queries skip excluded transactions
+        double totalIncome = Money.toRupees(totals.creditPaise);
+        double totalExpenses = Money.toRupees(totals.debitPaise);
 
-        // FIXED: Use same exclusion logic as MainActivity (excludes transactions marked as excluded)
-        boolean includeExcludedTransactions = false; // Match MainActivity logic: !transaction.isExcludedFromTotal()
-        
-        // Calculate daily and category totals
-        int processedCount = 0;
-        int excludedCount = 0;
-        for (Transaction transaction : transactions) {
-            // Modified condition to optionally include excluded transactions
-            boolean shouldInclude = includeExcludedTransactions || !transaction.isExcludedFromTotal();
-            
-            if (shouldInclude) {
-                if (transaction.isExcludedFromTotal()) {
-                    android.util.Log.d("AnalyticsViewModel", "Including EXCLUDED transaction: " + transaction.getAmount());
-                }
-                processedCount++;
-                Date date = new Date(transaction.getDate());
-
-                if (transaction.isDebit()) {
-                    dailyTransactions.merge(date, transaction.getAmount(), Double::sum);
-                    categoryTotals.merge(transaction.getCategory(),
-                            transaction.getAmount(), Double::sum);
-                    totalExpenses += transaction.getAmount();
-                    android.util.Log.d("AnalyticsViewModel", "Added debit: " + transaction.getAmount() + 
-                        " Category: " + transaction.getCategory());
-                } else {
-                    totalIncome += transaction.getAmount();
-                    android.util.Log.d("AnalyticsViewModel", "Added income: " + transaction.getAmount());
-                }
-            } else {
-                excludedCount++;
-                android.util.Log.d("AnalyticsViewModel", "EXCLUDED transaction: " + transaction.getAmount() + 
-                    " Reason: " + transaction.getExclusionSource() + 
-                    " IsOtherDebit: " + transaction.isOtherDebit() + 
-                    " Description: " + transaction.getDescription());
-            }
+        for (TransactionAggregateDao.DailyTotal day : dailyTotals) {
+            dailyTransactions.put(new Date(day.dayStart), Money.toRupees(day.totalPaise));
         }
-        
-        android.util.Log.d("AnalyticsViewModel", "Processed " + processedCount + " transactions, excluded " + 
-            excludedCount + ". Total Income: " + totalIncome + ", Total Expenses: " + totalExpenses);
-        
-        if (excludedCount > 0 && processedCount == 0) {
-            android.util.Log.w("AnalyticsViewModel", "ALL TRANSACTIONS ARE EXCLUDED! This is why analytics shows zero.");
+        for (TransactionAggregateDao.CategoryTotal category : categoryList) {
+            categoryTotals.put(category.category, Money.toRupees(category.totalPaise));
         }
 
         // Calculate weekly totals
@@ -229,10 +164,9 @@ public class AnalyticsViewModel extends AndroidViewModel {
             weeklyTotals.add(weekTotal);
         }
 
-        android.util.Log.d("AnalyticsViewModel", "=== CALCULATE MONTHLY DATA END ===");
-        android.util.Log.d("AnalyticsViewModel", "FINAL RESULT - Income: " + totalIncome + ", Expenses: " + totalExpenses);
-        android.util.Log.d("AnalyticsViewModel", "Daily transactions: " + dailyTransactions.size() + ", Category totals: " + categoryTotals.size());
-        
+        android.util.Log.d("AnalyticsViewModel", "Income: " + totalIncome + ", Expenses: " + totalExpenses +
+            ", Days: " + dailyTransactions.size() + ", Categories: " + categoryTotals.size());
+
         return new MonthlyData(dailyTransactions, categoryTotals,
                 weeklyTotals, totalIncome, totalExpenses);
     }
@@ -256,7 +190,7 @@ public class AnalyticsViewModel extends AndroidViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
-        executorService.shutdown();
+        executorService.shutdownNow();
     }
 
     // Data Classes
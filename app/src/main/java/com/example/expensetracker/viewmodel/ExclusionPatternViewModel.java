@@ -6,13 +6,14 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.expensetracker.models.ExclusionPattern;
+import com.example.expensetracker.models.ExclusionSource;
 import com.example.expensetracker.models.Transaction;
 import com.example.expensetracker.repository.ExclusionPatternRepository;
 import com.example.expensetracker.repository.TransactionRepository;
+import com.example.expensetracker.utils.AppExecutors;
 
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * ViewModel for managing exclusion patterns
@@ -29,7 +30,7 @@ public class ExclusionPatternViewModel extends AndroidViewModel {
         super(application);
         patternRepository = new ExclusionPatternRepository(application);
         transactionRepository = new TransactionRepository(application);
-        executorService = Executors.newSingleThreadExecutor();
+        executorService = AppExecutors.get().newReadScope();
 
         // Load all patterns ordered by usage
         allPatterns = patternRepository.getAllPatternsOrderedByMatches();
@@ -57,21 +58,22 @@ public class ExclusionPatternViewModel extends AndroidViewModel {
         // Check if the transaction is manually excluded
         if (!transaction.isExcludedFromTotal() ||
                 transaction.isOtherDebit() ||
-                "AUTO".equals(transaction.getExclusionSource())) {
+                transaction.getExclusionSource() == ExclusionSource.AUTO) {
 
             // Not manually excluded, can't create pattern
             patternCreationResult.setValue(false);
             return;
         }
 
-        // Mark the transaction as a source for exclusion pattern
-        transaction.setExclusionSource("MANUAL_PATTERN");
+        // Mark the transaction as a source for exclusion pattern, on a copy of the shared row
+        Transaction source = transaction.copy();
+        source.setExclusionSource(ExclusionSource.MANUAL_PATTERN);
 
         // Update the transaction in the database
-        transactionRepository.updateTransaction(transaction);
+        transactionRepository.updateTransaction(source);
 
         // Create pattern from the transaction
-        patternRepository.createPatternFromTransaction(transaction, result -> {
+        patternRepository.createPatternFromTransaction(source, result -> {
             patternCreationResult.setValue(result > 0);
         });
     }
@@ -121,7 +123,7 @@ public class ExclusionPatternViewModel extends AndroidViewModel {
     protected void onCleared() {
         super.onCleared();
         if (executorService != null) {
-            executorService.shutdown();
+            executorService.shutdownNow();
         }
     }
 }
\ No newline at end of file
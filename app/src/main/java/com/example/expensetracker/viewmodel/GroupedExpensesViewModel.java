@@ -9,6 +9,8 @@ import androidx.lifecycle.Transformations;
 import com.example.expensetracker.adapters.GroupedExpensesAdapter;
 import com.example.expensetracker.models.Transaction;
 import com.example.expensetracker.repository.TransactionRepository;
+import com.example.expensetracker.utils.AppExecutors;
+import com.example.expensetracker.utils.Money;
 
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -18,7 +20,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class GroupedExpensesViewModel extends AndroidViewModel implements GroupedExpensesAdapter.OnGroupClickListener {
     private final TransactionRepository repository;
@@ -34,7 +35,7 @@ public class GroupedExpensesViewModel extends AndroidViewModel implements Groupe
     public GroupedExpensesViewModel(Application application) {
         super(application);
         repository = new TransactionRepository(application);
-        executorService = Executors.newSingleThreadExecutor();
+        executorService = AppExecutors.get().newComputeScope();
         timeframe = new MutableLiveData<>("This Month");
         searchQuery = new MutableLiveData<>("");
         expandedGroups = new HashSet<>();
@@ -240,7 +241,7 @@ public class GroupedExpensesViewModel extends AndroidViewModel implements Groupe
     @Override
     protected void onCleared() {
         super.onCleared();
-        executorService.shutdown();
+        executorService.shutdownNow();
     }
 
     @Override
@@ -252,30 +253,30 @@ public class GroupedExpensesViewModel extends AndroidViewModel implements Groupe
     public static class ExpenseGroup {
         private final String name;
         private final List<Transaction> transactions;
-        private double totalAmount;
+        private long totalPaise;
 
         public ExpenseGroup(String name, List<Transaction> transactions) {
             this.name = name;
             this.transactions = transactions;
-            this.totalAmount = calculateTotal();
+            this.totalPaise = calculateTotal();
         }
 
         public void addTransaction(Transaction transaction) {
             transactions.add(transaction);
-            totalAmount += transaction.getAmount();
+            totalPaise += transaction.getAmountPaise();
         }
 
-        private double calculateTotal() {
-            double sum = 0;
+        private long calculateTotal() {
+            long sum = 0;
             for (Transaction transaction : transactions) {
-                sum += transaction.getAmount();
+                sum += transaction.getAmountPaise();
             }
             return sum;
         }
 
         public String getName() { return name; }
         public List<Transaction> getTransactions() { return transactions; }
-        public double getTotalAmount() { return totalAmount; }
+        public double getTotalAmount() { return Money.toRupees(totalPaise); }
         public int getTransactionCount() { return transactions.size(); }
     }
 }
\ No newline at end of file
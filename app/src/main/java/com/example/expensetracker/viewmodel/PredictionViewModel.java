@@ -7,6 +7,8 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.example.expensetracker.models.Transaction;
 import com.example.expensetracker.repository.TransactionRepository;
+import com.example.expensetracker.utils.AppExecutors;
+import com.example.expensetracker.utils.Money;
 
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -14,7 +16,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class PredictionViewModel extends AndroidViewModel {
     private final TransactionRepository repository;
@@ -27,7 +28,7 @@ public class PredictionViewModel extends AndroidViewModel {
     public PredictionViewModel(Application application) {
         super(application);
         repository = new TransactionRepository(application);
-        executorService = Executors.newSingleThreadExecutor();
+        executorService = AppExecutors.get().newComputeScope();
         monthlyPrediction = new MutableLiveData<>();
         recurringExpenses = new MutableLiveData<>();
         categoryPredictions = new MutableLiveData<>();
@@ -80,20 +81,23 @@ public class PredictionViewModel extends AndroidViewModel {
 
     private MonthlyPrediction calculateMonthlyPrediction(List<Transaction> transactions) {
         // Group transactions by month
-        Map<Integer, Double> monthlyTotals = new HashMap<>();
+        Map<Integer, Long> monthlyTotals = new HashMap<>();
         Calendar cal = Calendar.getInstance();
 
         for (Transaction transaction : transactions) {
             if (transaction.isDebit() && !transaction.isExcludedFromTotal()) {
                 cal.setTimeInMillis(transaction.getDate());
                 int monthKey = cal.get(Calendar.YEAR) * 12 + cal.get(Calendar.MONTH);
-                monthlyTotals.merge(monthKey, transaction.getAmount(), Double::sum);
+                monthlyTotals.merge(monthKey, transaction.getAmountPaise(), Long::sum);
             }
         }
 
         // Calculate average and standard deviation
         double sum = 0;
-        List<Double> monthlyAmounts = new ArrayList<>(monthlyTotals.values());
+        List<Double> monthlyAmounts = new ArrayList<>();
+        for (long monthPaise : monthlyTotals.values()) {
+            monthlyAmounts.add(Money.toRupees(monthPaise));
+        }
         for (Double amount : monthlyAmounts) {
             sum += amount;
         }
@@ -225,11 +229,11 @@ public class PredictionViewModel extends AndroidViewModel {
     }
 
     private double calculateAverageAmount(List<Transaction> transactions) {
-        double sum = 0;
+        long sumPaise = 0;
         for (Transaction t : transactions) {
-            sum += t.getAmount();
+            sumPaise += t.getAmountPaise();
         }
-        return sum / transactions.size();
+        return Money.toRupees(sumPaise) / transactions.size();
     }
 
     private int calculateFrequency(List<Transaction> transactions) {
@@ -291,7 +295,7 @@ public class PredictionViewModel extends AndroidViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
-        executorService.shutdown();
+        executorService.shutdownNow();
     }
 
     // Data Classes
@@ -11,6 +11,7 @@ import androidx.lifecycle.MutableLiveData;
 import com.example.expensetracker.R;
 import com.example.expensetracker.models.Category;
 import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.utils.AppExecutors;
 import com.example.expensetracker.utils.PreferencesManager;
 
 import java.util.ArrayList;
@@ -18,7 +19,6 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
  * ViewModel for the Quick Entry functionality.
@@ -39,7 +39,7 @@ public class QuickEntryViewModel extends AndroidViewModel {
 
     public QuickEntryViewModel(@NonNull Application application) {
         super(application);
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = AppExecutors.get().newWriteScope();
         this.preferencesManager = new PreferencesManager(application);
 
         // Initialize categories
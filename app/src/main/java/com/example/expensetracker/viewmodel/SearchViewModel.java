@@ -1,10 +1,11 @@
 package com.example.expensetracker.viewmodel;
 
 import android.app.Application;
+import android.os.OperationCanceledException;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.MutableLiveData;
-import androidx.sqlite.db.SupportSQLiteQuery;
 
+import com.example.expensetracker.database.CancellableSearch;
 import com.example.expensetracker.database.TransactionDatabase;
 import com.example.expensetracker.database.TransactionSearchFilter;
 import com.example.expensetracker.database.TQLParser;
@@ -14,17 +15,21 @@ import com.example.expensetracker.database.dynamic.TimeExpressionParser;
 import com.example.expensetracker.database.dynamic.TimeFilterTestHelper;
 import com.example.expensetracker.database.TQLQuery;
 import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.utils.AppExecutors;
+import com.example.expensetracker.utils.LatestRequest;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class SearchViewModel extends AndroidViewModel {
     private final ExecutorService executorService;
     private final TQLProcessor tqlProcessor;
 
+    // Each search, TQL query or reload supersedes the one before it
+    private final LatestRequest searchRequests = new LatestRequest();
+
     // Only use LiveData for UI updates
     private final MutableLiveData<List<Transaction>> searchResults = new MutableLiveData<>();
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
@@ -58,7 +63,7 @@ public class SearchViewModel extends AndroidViewModel {
 
     public SearchViewModel(Application application) {
         super(application);
-        executorService = Executors.newSingleThreadExecutor();
+        executorService = AppExecutors.get().newReadScope();
         tqlProcessor = new TQLProcessor(application);
 
         // Initialize with all transactions
@@ -101,7 +106,9 @@ public class SearchViewModel extends AndroidViewModel {
         this.isTQLMode = tqlModeValue;
         this.tqlMode.setValue(tqlModeValue);
         if (!tqlModeValue) {
-            // Clear TQL results when switching back to normal mode
+            // Clear TQL results when switching back to normal mode, and drop a query still running
+            searchRequests.cancel();
+            isLoading.setValue(false);
             tqlResults.setValue(null);
             suggestTQLMode.setValue(null);
         }
@@ -244,56 +251,49 @@ public class SearchViewModel extends AndroidViewModel {
 
     // Perform search with current filters
     public void performSearch() {
-        isLoading.setValue(true);
-
-        executorService.execute(() -> {
-            try {
-                TransactionSearchFilter filter = buildCurrentFilter();
-                SupportSQLiteQuery query = filter.buildSearchQuery();
-
-                List<Transaction> results = TransactionDatabase.getInstance(getApplication())
-                        .transactionDao()
-                        .searchTransactionsWithFilterSync(query);
-
-                // Update UI on main thread
-                isLoading.postValue(false);
-                searchResults.postValue(results);
-            } catch (Exception e) {
-                isLoading.postValue(false);
-                errorMessage.postValue("Search error: " + e.getMessage());
-            }
-        });
+        performSearch(null);
     }
 
-    // Perform search with callback
+    // Perform search with callback. Cancels the search in flight, and results of a
+    // superseded search are never delivered.
     public void performSearch(SearchCallback callback) {
         isLoading.setValue(true);
 
+        // Capture the filter now; the fields may change again before the task runs
+        TransactionSearchFilter filter = buildCurrentFilter();
+        LatestRequest.Request request = searchRequests.next();
+
         executorService.execute(() -> {
+            if (!request.isCurrent()) {
+                return;
+            }
             try {
-                TransactionSearchFilter filter = buildCurrentFilter();
-                SupportSQLiteQuery query = filter.buildSearchQuery();
-
-                List<Transaction> results = TransactionDatabase.getInstance(getApplication())
-                        .transactionDao()
-                        .searchTransactionsWithFilterSync(query);
+                List<Transaction> results = CancellableSearch.search(
+                        TransactionDatabase.getInstance(getApplication()), filter,
+                        request.getCancellationSignal());
 
                 // Update UI on main thread
-                isLoading.postValue(false);
+                request.postIfCurrent(() -> {
+                    isLoading.setValue(false);
 
-                if (callback != null) {
-                    callback.onSearchComplete(results);
-                }
+                    if (callback != null) {
+                        callback.onSearchComplete(results);
+                    }
 
-                searchResults.postValue(results);
+                    searchResults.setValue(results);
+                });
+            } catch (OperationCanceledException e) {
+                android.util.Log.d("SearchViewModel", "Superseded search cancelled");
             } catch (Exception e) {
-                isLoading.postValue(false);
+                request.postIfCurrent(() -> {
+                    isLoading.setValue(false);
 
-                if (callback != null) {
-                    callback.onError(e.getMessage());
-                }
+                    if (callback != null) {
+                        callback.onError(e.getMessage());
+                    }
 
-                errorMessage.postValue("Search error: " + e.getMessage());
+                    errorMessage.setValue("Search error: " + e.getMessage());
+                });
             }
         });
     }
@@ -338,28 +338,36 @@ public class SearchViewModel extends AndroidViewModel {
     // Load all transactions
     public void loadAllTransactions(SearchCallback callback) {
         isLoading.setValue(true);
+        LatestRequest.Request request = searchRequests.next();
 
         executorService.execute(() -> {
+            if (!request.isCurrent()) {
+                return;
+            }
             try {
                 List<Transaction> allTransactions = TransactionDatabase.getInstance(getApplication())
                         .transactionDao()
                         .getAllTransactionsSync();
 
-                isLoading.postValue(false);
+                request.postIfCurrent(() -> {
+                    isLoading.setValue(false);
 
-                if (callback != null) {
-                    callback.onSearchComplete(allTransactions);
-                }
+                    if (callback != null) {
+                        callback.onSearchComplete(allTransactions);
+                    }
 
-                searchResults.postValue(allTransactions);
+                    searchResults.setValue(allTransactions);
+                });
             } catch (Exception e) {
-                isLoading.postValue(false);
+                request.postIfCurrent(() -> {
+                    isLoading.setValue(false);
 
-                if (callback != null) {
-                    callback.onError(e.getMessage());
-                }
+                    if (callback != null) {
+                        callback.onError(e.getMessage());
+                    }
 
-                errorMessage.postValue("Error loading transactions: " + e.getMessage());
+                    errorMessage.setValue("Error loading transactions: " + e.getMessage());
+                });
             }
         });
     }
@@ -390,6 +398,7 @@ public class SearchViewModel extends AndroidViewModel {
                 .excludedFromTotal(excludedFromTotal)
                 .isRecurring(isRecurring)
                 .merchantName(merchantName)
+                .rankByRelevance(true)
                 .build();
     }
 
@@ -411,6 +420,8 @@ public class SearchViewModel extends AndroidViewModel {
      */
     public void performTQLQuery(String queryText) {
         if (queryText == null || queryText.trim().isEmpty()) {
+            searchRequests.cancel();
+            isLoading.setValue(false);
             tqlResults.setValue(null);
             debugLog.postValue("performTQLQuery: empty query");
             return;
@@ -418,8 +429,12 @@ public class SearchViewModel extends AndroidViewModel {
         
         debugLog.postValue("performTQLQuery started: " + queryText);
         isLoading.setValue(true);
+        LatestRequest.Request request = searchRequests.next();
         
         executorService.execute(() -> {
+            if (!request.isCurrent()) {
+                return;
+            }
             try {
                 // Parse the natural language query
                 TQLQuery tqlQuery;
@@ -446,6 +461,11 @@ public class SearchViewModel extends AndroidViewModel {
                 
                 debugLog.postValue("Parsed query with " + tqlQuery.getFilters().size() + " filters");
                 
+                // Don't start the query if the user has typed on since
+                if (!request.isCurrent()) {
+                    return;
+                }
+                
                 // Process the query
                 TQLProcessor.TQLResult result = tqlProcessor.processTQLQuery(tqlQuery);
                 android.util.Log.d("SearchViewModel", "TQL Result type: " + (result.isTransactionResult() ? "Transaction" : result.isAggregateResult() ? "Aggregate" : "Group"));
@@ -459,20 +479,24 @@ public class SearchViewModel extends AndroidViewModel {
                     debugLog.postValue("TQL result type: " + (result.isAggregateResult() ? "Aggregate" : "Group"));
                 }
                 
-                // Update UI on main thread
-                isLoading.postValue(false);
-                tqlResults.postValue(result);
-                
-                // For transaction results, also update the regular search results for compatibility
-                if (result.isTransactionResult() && result.getTransactions() != null) {
-                    searchResults.postValue(result.getTransactions());
-                }
+                // Update UI on main thread, unless a newer query has started
+                request.postIfCurrent(() -> {
+                    isLoading.setValue(false);
+                    tqlResults.setValue(result);
+                    
+                    // For transaction results, also update the regular search results for compatibility
+                    if (result.isTransactionResult() && result.getTransactions() != null) {
+                        searchResults.setValue(result.getTransactions());
+                    }
+                });
                 
             } catch (Exception e) {
                 android.util.Log.e("SearchViewModel", "TQL Query error", e);
                 debugLog.postValue("TQL Exception: " + e.getMessage());
-                isLoading.postValue(false);
-                errorMessage.postValue("TQL Query error: " + e.getMessage());
+                request.postIfCurrent(() -> {
+                    isLoading.setValue(false);
+                    errorMessage.setValue("TQL Query error: " + e.getMessage());
+                });
             }
         });
     }
@@ -827,6 +851,7 @@ public class SearchViewModel extends AndroidViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
-        executorService.shutdown();
+        searchRequests.cancel();
+        executorService.shutdownNow();
     }
 }
\ No newline at end of file
@@ -5,15 +5,23 @@ import android.app.Application;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
+import com.example.expensetracker.database.TransactionAggregateDao;
+import com.example.expensetracker.database.TransactionSearchFilter;
+import com.example.expensetracker.models.ExclusionSource;
 import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.models.TransactionType;
 import com.example.expensetracker.repository.TransactionRepository;
+import com.example.expensetracker.utils.AppExecutors;
 import com.example.expensetracker.utils.PreferencesManager;
 
 public class TransactionViewModel extends AndroidViewModel {
@@ -21,6 +29,9 @@ public class TransactionViewModel extends AndroidViewModel {
     private MutableLiveData<Double> budget;
     private LiveData<List<Transaction>> allTransactions;
     private MutableLiveData<Boolean> transactionUpdated = new MutableLiveData<>(false);
+    // The main list follows one filter at a time; a new filter replaces the pager
+    private final MutableLiveData<TransactionSearchFilter> listFilter = new MutableLiveData<>();
+    private final LiveData<PagingData<Transaction>> pagedTransactions;
     private ExecutorService executorService;
     private PreferencesManager preferencesManager;
 
@@ -29,7 +40,13 @@ public class TransactionViewModel extends AndroidViewModel {
         repository = new TransactionRepository(application);
         budget = new MutableLiveData<>(0.0);
         allTransactions = repository.getAllTransactions();
-        executorService = Executors.newSingleThreadExecutor();
+        executorService = AppExecutors.get().newReadScope();
+
+        // Cached once, downstream of the switch: each new filter's generation replaces the
+        // previous one's pages instead of keeping another pager alive until the activity ends
+        pagedTransactions = PagingLiveData.cachedIn(
+                Transformations.switchMap(listFilter, repository::getPagedTransactions),
+                ViewModelKt.getViewModelScope(this));
 
         // Initialize PreferencesManager
         preferencesManager = new PreferencesManager(application);
@@ -45,6 +62,18 @@ public class TransactionViewModel extends AndroidViewModel {
         return allTransactions;
     }
 
+    /**
+     * Pages of the main list, for the filter last passed to {@link #setListFilter}.
+     * Survives configuration changes, so observe it with the view's lifecycle.
+     */
+    public LiveData<PagingData<Transaction>> getPagedTransactions() {
+        return pagedTransactions;
+    }
+
+    public void setListFilter(TransactionSearchFilter filter) {
+        listFilter.setValue(filter);
+    }
+
     public void setBudget(double amount) {
         budget.setValue(amount);
 
@@ -65,6 +94,11 @@ public class TransactionViewModel extends AndroidViewModel {
         repository.getTransactionsBetweenDates(startDate, endDate, callback);
     }
 
+    public void getNonExcludedTotals(long startDate, long endDate,
+                                     TransactionRepository.Callback<TransactionAggregateDao.AmountTotals> callback) {
+        repository.getNonExcludedTotals(startDate, endDate, callback);
+    }
+
     // New method to update a transaction
     public void updateTransaction(Transaction transaction) {
         repository.updateTransaction(transaction);
@@ -72,6 +106,13 @@ public class TransactionViewModel extends AndroidViewModel {
         transactionUpdated.setValue(!transactionUpdated.getValue());
     }
 
+    // Include or exclude a transaction without rewriting the whole row
+    public void updateTransactionExclusion(long transactionId, boolean isExcluded, ExclusionSource source) {
+        repository.updateTransactionExclusion(transactionId, isExcluded, source);
+        // Notify observers that data has changed
+        transactionUpdated.setValue(!transactionUpdated.getValue());
+    }
+
     // Method to insert a new transaction
     public void insert(Transaction transaction) {
         repository.insert(transaction);
@@ -119,15 +160,10 @@ public class TransactionViewModel extends AndroidViewModel {
         return banks;
     }
 
-    public List<Transaction> getNonExcludedTransactionsBetweenDatesPaginatedSync(long startDate, long endDate, int limit, int offset) {
-        return repository.getNonExcludedTransactionsBetweenDatesPaginatedSync(startDate, endDate, limit, offset);
-    }
-
-    /**
-     * Get paginated list of manually excluded transactions between dates
-     */
-    public List<Transaction> getManuallyExcludedTransactionsPaginatedSync(long startDate, long endDate, int limit, int offset) {
-        return repository.getManuallyExcludedTransactionsPaginatedSync(startDate, endDate, limit, offset);
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        executorService.shutdownNow();
     }
 
     /**
@@ -162,6 +198,10 @@ public class TransactionViewModel extends AndroidViewModel {
 
             List<Transaction> result = new ArrayList<>();
 
+            // Resolve the type filter once so the loop compares enum constants
+            boolean anyType = type.equals("All Types");
+            TransactionType typeFilter = TransactionType.fromName(type);
+
             for (Transaction transaction : transactions) {
                 boolean shouldInclude = true;
 
@@ -182,7 +222,7 @@ public class TransactionViewModel extends AndroidViewModel {
                 }
 
                 // Apply type filter
-                if (shouldInclude && !type.equals("All Types") && !type.equals(transaction.getType())) {
+                if (shouldInclude && !anyType && transaction.getTransactionType() != typeFilter) {
                     shouldInclude = false;
                 }
 
@@ -261,10 +301,10 @@ public class TransactionViewModel extends AndroidViewModel {
                     Collections.sort(transactions, (a, b) -> Long.compare(a.getDate(), b.getDate()));
                     break;
                 case 2: // Amount (highest first)
-                    Collections.sort(transactions, (a, b) -> Double.compare(b.getAmount(), a.getAmount()));
+                    Collections.sort(transactions, (a, b) -> Long.compare(b.getAmountPaise(), a.getAmountPaise()));
                     break;
                 case 3: // Amount (lowest first)
-                    Collections.sort(transactions, (a, b) -> Double.compare(a.getAmount(), b.getAmount()));
+                    Collections.sort(transactions, (a, b) -> Long.compare(a.getAmountPaise(), b.getAmountPaise()));
                     break;
                 case 4: // Description (A-Z)
                     Collections.sort(transactions, (a, b) -> {
@@ -15,17 +15,16 @@ import android.widget.Toast;
 
 import com.example.expensetracker.MainActivity;
 import com.example.expensetracker.R;
-import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.database.TransactionAggregateDao;
 import com.example.expensetracker.repository.TransactionRepository;
+import com.example.expensetracker.utils.AppExecutors;
+import com.example.expensetracker.utils.Money;
 import com.example.expensetracker.utils.PreferencesManager;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class BudgetCompactBlueWidgetProvider extends AppWidgetProvider {
 
@@ -173,28 +172,14 @@ public class BudgetCompactBlueWidgetProvider extends AppWidgetProvider {
         TransactionRepository repository = new TransactionRepository(
                 (android.app.Application) context.getApplicationContext());
 
-        // Use a thread pool for background work
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-
-        executorService.execute(() -> {
+        AppExecutors.get().diskRead().execute(() -> {
             try {
-                // Fetch transactions
-                List<Transaction> transactions = repository.getTransactionsBetweenDatesSync(startDate, endDate);
-                Log.d(TAG, "Fetched " + transactions.size() + " transactions");
-
-                // Calculate totals
-                double totalIncome = 0;
-                double totalExpenses = 0;
-
-                for (Transaction transaction : transactions) {
-                    if (!transaction.isExcludedFromTotal()) {
-                        if ("CREDIT".equals(transaction.getType())) {
-                            totalIncome += transaction.getAmount();
-                        } else if ("DEBIT".equals(transaction.getType())) {
-                            totalExpenses += transaction.getAmount();
-                        }
-                    }
-                }
+                // Fetch totals
+                TransactionAggregateDao.AmountTotals totals = repository.getNonExcludedTotalsSync(startDate, endDate);
+                Log.d(TAG, "Fetched totals over " + totals.transactionCount + " transactions");
+
+                double totalIncome = Money.toRupees(totals.creditPaise);
+                double totalExpenses = Money.toRupees(totals.debitPaise);
 
                 // Get actual budget value from preferences
                 PreferencesManager preferencesManager = new PreferencesManager(context);
@@ -237,8 +222,6 @@ public class BudgetCompactBlueWidgetProvider extends AppWidgetProvider {
 
             } catch (Exception e) {
                 Log.e(TAG, "Error loading financial data: " + e.getMessage(), e);
-            } finally {
-                executorService.shutdown();
             }
         });
     }
@@ -13,16 +13,15 @@ import android.widget.RemoteViews;
 
 import com.example.expensetracker.MainActivity;
 import com.example.expensetracker.R;
-import com.example.expensetracker.models.Transaction;
+import com.example.expensetracker.database.TransactionAggregateDao;
 import com.example.expensetracker.repository.TransactionRepository;
+import com.example.expensetracker.utils.AppExecutors;
+import com.example.expensetracker.utils.Money;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class ModernExpenseWidgetProvider extends AppWidgetProvider {
 
@@ -104,10 +103,7 @@ public class ModernExpenseWidgetProvider extends AppWidgetProvider {
         TransactionRepository repository = new TransactionRepository(
                 (android.app.Application) context.getApplicationContext());
 
-        // Use a thread pool for background work
-        ExecutorService executorService = Executors.newSingleThreadExecutor();
-
-        executorService.execute(() -> {
+        AppExecutors.get().diskRead().execute(() -> {
             try {
                 // Get current month date range
                 Calendar cal = Calendar.getInstance();
@@ -125,23 +121,12 @@ public class ModernExpenseWidgetProvider extends AppWidgetProvider {
                 cal.set(Calendar.SECOND, 0);
                 long startDate = cal.getTimeInMillis();
 
-                // Fetch transactions
-                List<Transaction> transactions = repository.getTransactionsBetweenDatesSync(startDate, endDate);
-                Log.d(TAG, "Fetched " + transactions.size() + " transactions");
-
-                // Calculate totals
-                double totalIncome = 0;
-                double totalExpenses = 0;
-
-                for (Transaction transaction : transactions) {
-                    if (!transaction.isExcludedFromTotal()) {
-                        if ("CREDIT".equals(transaction.getType())) {
-                            totalIncome += transaction.getAmount();
-                        } else if ("DEBIT".equals(transaction.getType())) {
-                            totalExpenses += transaction.getAmount();
-                        }
-                    }
-                }
+                // Fetch totals
+                TransactionAggregateDao.AmountTotals totals = repository.getNonExcludedTotalsSync(startDate, endDate);
+                Log.d(TAG, "Fetched totals over " + totals.transactionCount + " transactions");
+
+                double totalIncome = Money.toRupees(totals.creditPaise);
+                double totalExpenses = Money.toRupees(totals.debitPaise);
 
                 // Placeholder budget value - get from preferences in a real implementation
                 double budget = 100000;
@@ -181,8 +166,6 @@ public class ModernExpenseWidgetProvider extends AppWidgetProvider {
 
             } catch (Exception e) {
                 Log.e(TAG, "Error loading financial data: " + e.getMessage(), e);
-            } finally {
-                executorService.shutdown();
             }
         });
     }